@@ -0,0 +1,211 @@
+package com.angel.update.collector;
+
+import com.angel.update.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Exécution parallèle des appels des collecteurs
+ * Le nombre d'appels simultanés vers un même hôte est borné par le rateLimit de sa source
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CollectorFetchExecutor {
+
+    private final AppConfig appConfig;
+
+    @Value("${angel.collectors.fetch.threads:8}")
+    private int fetchThreads = 8;
+
+    @Value("${angel.collectors.fetch.default-host-concurrency:4}")
+    private int defaultHostConcurrency = 4;
+
+    // Limite d'appels simultanés par hôte, issue des sources configurées
+    private final Map<String, Integer> hostLimits = new HashMap<>();
+
+    private final Map<String, HostLane> hostLanes = new ConcurrentHashMap<>();
+
+    private ExecutorService fetchExecutor;
+
+    /**
+     * Appel d'une source externe
+     */
+    @FunctionalInterface
+    public interface Fetch<T, R> {
+        R fetch(T task) throws Exception;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        appConfig.getCollectors().getCollectors().values().stream()
+                .filter(collector -> collector.getSources() != null)
+                .flatMap(collector -> collector.getSources().stream())
+                .filter(source -> source.getUrl() != null)
+                .forEach(source -> hostLimits.merge(hostOf(source.getUrl()), Math.max(1, source.getRateLimit()), Math::min));
+
+        AtomicInteger counter = new AtomicInteger();
+        fetchExecutor = Executors.newFixedThreadPool(Math.max(1, fetchThreads), runnable -> {
+            Thread thread = new Thread(runnable, "collector-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Collector fetch executor started with {} threads", Math.max(1, fetchThreads));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Exécute les appels en parallèle et transmet chaque résultat dès qu'il est disponible
+     * Les résultats sont traités sur le thread appelant ; un appel en échec est journalisé et ignoré
+     * Un appel n'occupe un thread du pool qu'une fois sa place obtenue auprès de son hôte :
+     * un hôte saturé ne bloque pas les appels vers les autres
+     *
+     * @return nombre d'appels réussis
+     */
+    public <T, R> int fanOut(List<T> tasks, Function<T, String> urlOf, Fetch<T, R> fetch, BiConsumer<T, R> onResult) {
+        BlockingQueue<FetchResult<T, R>> results = new LinkedBlockingQueue<>();
+        for (T task : tasks) {
+            laneFor(hostOf(urlOf.apply(task))).submit(() -> {
+                try {
+                    results.add(new FetchResult<>(task, fetch.fetch(task), null));
+                } catch (Throwable e) {
+                    results.add(new FetchResult<>(task, null, e));
+                }
+            });
+        }
+
+        int succeeded = 0;
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                FetchResult<T, R> result = results.take();
+                if (result.error() instanceof Error error) {
+                    throw new IllegalStateException("Collector fetch task failed unexpectedly", error);
+                }
+                if (result.error() != null) {
+                    log.warn("Collector fetch failed for {}", result.task(), result.error());
+                    continue;
+                }
+                try {
+                    if (result.value() != null) {
+                        onResult.accept(result.task(), result.value());
+                    }
+                    succeeded++;
+                } catch (RuntimeException e) {
+                    log.warn("Could not process collector result for {}", result.task(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Collector fan-out interrupted after {} of {} results", succeeded, tasks.size());
+        }
+        return succeeded;
+    }
+
+    private record FetchResult<T, R>(T task, R value, Throwable error) {
+    }
+
+    private HostLane laneFor(String host) {
+        return hostLanes.computeIfAbsent(host,
+                key -> new HostLane(hostLimits.getOrDefault(key, defaultHostConcurrency)));
+    }
+
+    /**
+     * File d'attente des appels d'un hôte, partagée par tous les collecteurs
+     * Au plus limit appels sont confiés au pool ; chacun, en se terminant, y confie le suivant
+     */
+    private final class HostLane {
+
+        private final int limit;
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+        private HostLane(int limit) {
+            this.limit = limit;
+        }
+
+        void submit(Runnable fetch) {
+            synchronized (this) {
+                if (running >= limit) {
+                    waiting.add(fetch);
+                    return;
+                }
+                running++;
+            }
+            start(fetch);
+        }
+
+        private void start(Runnable fetch) {
+            try {
+                fetchExecutor.execute(() -> {
+                    try {
+                        fetch.run();
+                    } finally {
+                        next();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    running--;
+                }
+                throw e;
+            }
+        }
+
+        private void next() {
+            Runnable following;
+            synchronized (this) {
+                following = waiting.poll();
+                if (following == null) {
+                    running--;
+                    return;
+                }
+            }
+            try {
+                start(following);
+            } catch (RejectedExecutionException e) {
+                log.debug("Collector fetch executor stopped, dropping queued fetches");
+            }
+        }
+    }
+
+    /**
+     * Hôte d'une URL, sans exiger qu'elle soit encodée (paramètres de requête bruts)
+     */
+    static String hostOf(String url) {
+        if (url == null) {
+            return "";
+        }
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length() && "/?#:".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        return url.substring(start, end).toLowerCase();
+    }
+}
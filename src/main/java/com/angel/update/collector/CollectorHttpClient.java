@@ -0,0 +1,207 @@
+package com.angel.update.collector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requêtes GET conditionnelles des collecteurs
+ * L'ETag et la date Last-Modified de chaque URL sont renvoyés à l'appel suivant :
+ * une source inchangée répond 304, sans corps à transférer ni à analyser.
+ * Les validateurs d'une réponse ne sont retenus qu'une fois son contenu enregistré
+ * par le collecteur (voir {@link #confirm(String)})
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CollectorHttpClient {
+    
+    private final HttpClient collectorHttpClient;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${angel.collectors.http.read-timeout-ms:15000}")
+    private long readTimeoutMs = 15000;
+    
+    @Value("${angel.collectors.http.max-tracked-urls:10000}")
+    private int maxTrackedUrls = 10000;
+    
+    // Validateurs de la dernière réponse enregistrée, par URL
+    private final Map<String, Validators> validators = new ConcurrentHashMap<>();
+    
+    // Validateurs des réponses lues mais pas encore enregistrées, par URL
+    private final Map<String, Validators> pending = new ConcurrentHashMap<>();
+    
+    /**
+     * Lecture du corps d'une réponse
+     */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws Exception;
+    }
+    
+    private record Validators(String etag, String lastModified) {
+        
+        boolean isEmpty() {
+            return etag == null && lastModified == null;
+        }
+    }
+    
+    /**
+     * GET conditionnel d'un document JSON, ou null si la source n'a pas changé
+     */
+    public <T> T getJson(String url, Class<T> type) throws Exception {
+        return get(url, true, body -> objectMapper.readValue(body, type));
+    }
+    
+    /**
+     * GET d'une source, lue en flux par le reader
+     *
+     * La lecture du corps est bornée par le délai de lecture, comme l'attente des en-têtes
+     *
+     * @param conditional envoyer les validateurs connus de l'URL
+     * @return le résultat du reader, ou null si la source répond 304
+     */
+    public <T> T get(String url, boolean conditional, BodyReader<T> reader) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .GET();
+        
+        Validators known = conditional ? validators.get(url) : null;
+        if (known != null) {
+            if (known.etag() != null) {
+                request.header("If-None-Match", known.etag());
+            }
+            if (known.lastModified() != null) {
+                request.header("If-Modified-Since", known.lastModified());
+            }
+        }
+        
+        HttpResponse<InputStream> response = collectorHttpClient.send(request.build(), 
+                HttpResponse.BodyHandlers.ofInputStream());
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMs);
+        try (InputStream body = new DeadlineInputStream(response.body(), deadline, url)) {
+            if (response.statusCode() == 304) {
+                log.debug("Source not modified: {}", url);
+                return null;
+            }
+            if (response.statusCode() >= 400) {
+                throw new IOException("HTTP " + response.statusCode() + " from " + url);
+            }
+            
+            // Un corps bloqué est fermé à l'échéance, ce qui débloque le reader
+            CompletableFuture<Void> watchdog = CompletableFuture.runAsync(() -> closeQuietly(body),
+                    CompletableFuture.delayedExecutor(readTimeoutMs, TimeUnit.MILLISECONDS));
+            T result;
+            try {
+                result = reader.read(body);
+            } catch (Exception e) {
+                if (System.nanoTime() - deadline >= 0) {
+                    HttpTimeoutException timeout = new HttpTimeoutException("Body read timed out for " + url);
+                    timeout.initCause(e);
+                    throw timeout;
+                }
+                throw e;
+            } finally {
+                watchdog.cancel(false);
+            }
+            
+            // En attente de confirmation : retenus seulement une fois le résultat enregistré
+            pending.put(url, validatorsOf(response));
+            return result;
+        }
+    }
+    
+    /**
+     * Retient les validateurs de la dernière réponse lue pour l'URL, une fois son contenu
+     * enregistré : une source dont l'enregistrement a échoué est relue en entier à l'appel suivant
+     */
+    public void confirm(String url) {
+        Validators fetched = pending.remove(url);
+        if (fetched == null) {
+            return;
+        }
+        if (fetched.isEmpty()) {
+            validators.remove(url);
+            return;
+        }
+        if (validators.size() >= maxTrackedUrls && !validators.containsKey(url)) {
+            validators.clear();
+        }
+        validators.put(url, fetched);
+    }
+    
+    /**
+     * Oublie les validateurs d'une URL (prochain appel complet)
+     */
+    public void forget(String url) {
+        validators.remove(url);
+        pending.remove(url);
+    }
+    
+    private Validators validatorsOf(HttpResponse<?> response) {
+        if (pending.size() >= maxTrackedUrls) {
+            pending.clear();
+        }
+        return new Validators(response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null));
+    }
+    
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("Failed to close timed out body", e);
+        }
+    }
+    
+    /**
+     * Corps de réponse dont chaque lecture échoue une fois l'échéance dépassée
+     * (source qui envoie son corps au compte-gouttes)
+     */
+    private static class DeadlineInputStream extends FilterInputStream {
+        
+        private final long deadline;
+        private final String url;
+        
+        DeadlineInputStream(InputStream in, long deadline, String url) {
+            super(in);
+            this.deadline = deadline;
+            this.url = url;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            checkDeadline();
+            return super.read();
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkDeadline();
+            return super.read(b, off, len);
+        }
+        
+        private void checkDeadline() throws HttpTimeoutException {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new HttpTimeoutException("Body read timed out for " + url);
+            }
+        }
+    }
+}
@@ -7,15 +7,12 @@ import com.angel.update.repository.CountryRepository;
 import com.angel.update.repository.RegionRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.IOException;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -39,10 +36,19 @@ public class GoogleNewsCollector extends BaseCollector {
     @Autowired
     private RegionRepository regionRepository;
     
+    @Autowired
+    private CollectorFetchExecutor fetchExecutor;
+    
+    @Autowired
+    private CollectorHttpClient httpClient;
+    
     private static final String BASE_URL = "https://news.google.com/rss/search";
     private static final String DATA_DIR = "data/news";
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
+    @Value("${angel.collectors.google-news.max-items:100}")
+    private int maxItems = 100;
+    
     @Override
     public String getCollectorName() {
         return "GoogleNewsCollector";
@@ -86,39 +92,20 @@ public class GoogleNewsCollector extends BaseCollector {
     private void collectRegionalNews() {
         log.info("Collecting regional news");
         
-        List<Country> countries = countryRepository.findByActiveTrue();
-        for (Country country : countries) {
+        // Sauvegarder dans data/news/regional/<pays>/<region>/<date>.txt
+        String fileName = LocalDate.now().format(DATE_FORMAT) + ".txt";
+        List<NewsFeed> feeds = new ArrayList<>();
+        for (Country country : countryRepository.findByActiveTrue()) {
             for (Region region : country.getRegions()) {
                 if (region.getActive()) {
-                    collectRegionalNewsForRegion(country, region);
+                    feeds.add(new NewsFeed(country.getCode() + "/" + region.getCode(),
+                            buildGoogleNewsUrl(region.getName(), country.getLanguageCode(), country.getCode()),
+                            Paths.get(DATA_DIR, "regional", country.getCode(), region.getCode(), fileName)));
                 }
             }
         }
-    }
-    
-    /**
-     * Collecte les actualités pour une région spécifique
-     */
-    private void collectRegionalNewsForRegion(Country country, Region region) {
-        try {
-            String query = region.getName();
-            String url = buildGoogleNewsUrl(query, country.getLanguageCode(), country.getCode());
-            
-            log.debug("Fetching regional news for {}/{}: {}", country.getCode(), region.getCode(), url);
-            
-            List<NewsItem> newsItems = parseRssFeed(url);
-            List<String> processedTitles = processNewsItems(newsItems);
-            
-            // Sauvegarder dans data/news/regional/<pays>/<region>/<date>.txt
-            String fileName = LocalDate.now().format(DATE_FORMAT) + ".txt";
-            Path filePath = Paths.get(DATA_DIR, "regional", country.getCode(), region.getCode(), fileName);
-            
-            saveNewsToFile(filePath, processedTitles);
-            log.info("Saved {} regional news items for {}/{}", processedTitles.size(), country.getCode(), region.getCode());
-            
-        } catch (Exception e) {
-            log.error("Error collecting regional news for {}/{}", country.getCode(), region.getCode(), e);
-        }
+        
+        collectFeeds("regional", feeds);
     }
     
     /**
@@ -127,28 +114,16 @@ public class GoogleNewsCollector extends BaseCollector {
     private void collectNationalNews() {
         log.info("Collecting national news");
         
-        List<Country> countries = countryRepository.findByActiveTrue();
-        for (Country country : countries) {
-            try {
-                String query = country.getName();
-                String url = buildGoogleNewsUrl(query, country.getLanguageCode(), country.getCode());
-                
-                log.debug("Fetching national news for {}: {}", country.getCode(), url);
-                
-                List<NewsItem> newsItems = parseRssFeed(url);
-                List<String> processedTitles = processNewsItems(newsItems);
-                
-                // Sauvegarder dans data/news/national/<pays>/<date>.txt
-                String fileName = LocalDate.now().format(DATE_FORMAT) + ".txt";
-                Path filePath = Paths.get(DATA_DIR, "national", country.getCode(), fileName);
-                
-                saveNewsToFile(filePath, processedTitles);
-                log.info("Saved {} national news items for {}", processedTitles.size(), country.getCode());
-                
-            } catch (Exception e) {
-                log.error("Error collecting national news for {}", country.getCode(), e);
-            }
+        // Sauvegarder dans data/news/national/<pays>/<date>.txt
+        String fileName = LocalDate.now().format(DATE_FORMAT) + ".txt";
+        List<NewsFeed> feeds = new ArrayList<>();
+        for (Country country : countryRepository.findByActiveTrue()) {
+            feeds.add(new NewsFeed(country.getCode(),
+                    buildGoogleNewsUrl(country.getName(), country.getLanguageCode(), country.getCode()),
+                    Paths.get(DATA_DIR, "national", country.getCode(), fileName)));
         }
+        
+        collectFeeds("national", feeds);
     }
     
     /**
@@ -157,25 +132,37 @@ public class GoogleNewsCollector extends BaseCollector {
     private void collectInternationalNews() {
         log.info("Collecting international news");
         
-        try {
-            // Actualités internationales génériques
-            String url = buildGoogleNewsUrl("world news", "en", "US");
-            
-            log.debug("Fetching international news: {}", url);
-            
-            List<NewsItem> newsItems = parseRssFeed(url);
-            List<String> processedTitles = processNewsItems(newsItems);
-            
-            // Sauvegarder dans data/news/international/<date>.txt
-            String fileName = LocalDate.now().format(DATE_FORMAT) + ".txt";
-            Path filePath = Paths.get(DATA_DIR, "international", fileName);
-            
-            saveNewsToFile(filePath, processedTitles);
-            log.info("Saved {} international news items", processedTitles.size());
-            
-        } catch (Exception e) {
-            log.error("Error collecting international news", e);
-        }
+        // Actualités internationales génériques, dans data/news/international/<date>.txt
+        String fileName = LocalDate.now().format(DATE_FORMAT) + ".txt";
+        collectFeeds("international", List.of(new NewsFeed("world",
+                buildGoogleNewsUrl("world news", "en", "US"),
+                Paths.get(DATA_DIR, "international", fileName))));
+    }
+    
+    /**
+     * Récupère les flux en parallèle et enregistre chacun dès qu'il est traité
+     */
+    private void collectFeeds(String scope, List<NewsFeed> feeds) {
+        int collected = fetchExecutor.fanOut(feeds, NewsFeed::url,
+                feed -> {
+                    log.debug("Fetching {} news for {}: {}", scope, feed.label(), feed.url());
+                    // Flux inchangé (304) : le fichier du jour est déjà à jour
+                    List<RssFeedParser.RssItem> newsItems = httpClient.get(feed.url(), Files.exists(feed.filePath()), 
+                            this::parseRssFeed);
+                    return newsItems != null ? processNewsItems(newsItems) : null;
+                },
+                (feed, processedTitles) -> {
+                    try {
+                        saveNewsToFile(feed.filePath(), processedTitles);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    // Fichier écrit : la prochaine requête du flux peut être conditionnelle
+                    httpClient.confirm(feed.url());
+                    log.info("Saved {} {} news items for {}", processedTitles.size(), scope, feed.label());
+                });
+        
+        log.info("Collected {} of {} {} news feeds", collected, feeds.size(), scope);
     }
     
     /**
@@ -192,41 +179,20 @@ public class GoogleNewsCollector extends BaseCollector {
     }
     
     /**
-     * Parse le flux RSS et extrait les éléments de news
+     * Parse le flux RSS en flux, jusqu'à maxItems éléments
      */
-    private List<NewsItem> parseRssFeed(String urlString) throws Exception {
-        List<NewsItem> newsItems = new ArrayList<>();
-        
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document document = builder.parse(new URL(urlString).openStream());
-        
-        NodeList items = document.getElementsByTagName("item");
-        
-        for (int i = 0; i < items.getLength(); i++) {
-            Element item = (Element) items.item(i);
-            
-            String title = getElementText(item, "title");
-            String link = getElementText(item, "link");
-            String pubDate = getElementText(item, "pubDate");
-            String description = getElementText(item, "description");
-            
-            if (title != null && !title.isEmpty()) {
-                newsItems.add(new NewsItem(title, link, pubDate, description));
-            }
-        }
-        
-        return newsItems;
+    private List<RssFeedParser.RssItem> parseRssFeed(InputStream feed) throws Exception {
+        return RssFeedParser.parse(feed, maxItems);
     }
     
     /**
      * Traite les éléments de news et nettoie les titres
      */
-    private List<String> processNewsItems(List<NewsItem> newsItems) {
+    private List<String> processNewsItems(List<RssFeedParser.RssItem> newsItems) {
         List<String> processedTitles = new ArrayList<>();
         
-        for (NewsItem item : newsItems) {
-            String cleanTitle = cleanTitle(item.getTitle());
+        for (RssFeedParser.RssItem item : newsItems) {
+            String cleanTitle = cleanTitle(item.title());
             if (!cleanTitle.isEmpty()) {
                 processedTitles.add(cleanTitle);
             }
@@ -239,27 +205,7 @@ public class GoogleNewsCollector extends BaseCollector {
      * Nettoie un titre : enlève la partie après le dernier '-' et améliore la lisibilité
      */
     private String cleanTitle(String title) {
-        if (title == null || title.isEmpty()) {
-            return "";
-        }
-        
-        // Enlever la partie après le dernier '-' (source du média)
-        int lastDashIndex = title.lastIndexOf('-');
-        if (lastDashIndex > 0) {
-            title = title.substring(0, lastDashIndex).trim();
-        }
-        
-        // Nettoyer et améliorer la lisibilité
-        title = title.replaceAll("\\s+", " "); // Normaliser les espaces
-        title = title.replaceAll("^[\\s\\p{Punct}]+", ""); // Enlever ponctuation au début
-        title = title.replaceAll("[\\s\\p{Punct}]+$", ""); // Enlever ponctuation à la fin
-        
-        // S'assurer que la phrase se termine correctement
-        if (!title.isEmpty() && !title.matches(".*[.!?]$")) {
-            title += ".";
-        }
-        
-        return title;
+        return TitleNormalizer.normalize(title);
     }
     
     /**
@@ -290,35 +236,8 @@ public class GoogleNewsCollector extends BaseCollector {
     }
     
     /**
-     * Utilitaire pour extraire le texte d'un élément XML
+     * Flux à collecter et fichier de destination
      */
-    private String getElementText(Element parent, String tagName) {
-        NodeList nodeList = parent.getElementsByTagName(tagName);
-        if (nodeList.getLength() > 0) {
-            return nodeList.item(0).getTextContent();
-        }
-        return null;
-    }
-    
-    /**
-     * Classe interne pour représenter un élément de news
-     */
-    private static class NewsItem {
-        private final String title;
-        private final String link;
-        private final String pubDate;
-        private final String description;
-        
-        public NewsItem(String title, String link, String pubDate, String description) {
-            this.title = title;
-            this.link = link;
-            this.pubDate = pubDate;
-            this.description = description;
-        }
-        
-        public String getTitle() { return title; }
-        public String getLink() { return link; }
-        public String getPubDate() { return pubDate; }
-        public String getDescription() { return description; }
+    private record NewsFeed(String label, String url, Path filePath) {
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,28 @@
 package com.angel.update.collector;
 
+import com.angel.update.model.ContentItem;
 import com.angel.update.service.CacheService;
+import com.angel.update.service.ContentManagerService;
+import com.angel.update.service.TieredCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Collecteur d'actualités depuis des APIs externes
@@ -24,7 +34,10 @@ import java.util.Map;
 public class NewsCollector extends BaseCollector {
     
     private final CacheService cacheService;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ContentManagerService contentManagerService;
+    private final ObjectMapper objectMapper;
+    private final CollectorFetchExecutor fetchExecutor;
+    private final CollectorHttpClient httpClient;
     
     @Value("${angel.collectors.news.api-key:demo}")
     private String apiKey;
@@ -63,12 +76,34 @@ public class NewsCollector extends BaseCollector {
         log.info("Starting news collection...");
         
         try {
-            // Collecter pour les principaux pays
-            collectForCountry("FR", null);
-            collectForCountry("FR", "IDF"); // Île-de-France
-            collectForCountry("US", null);
-            collectForCountry("GB", null);
-            collectForCountry("DE", null);
+            // Collecter pour les principaux pays, en parallèle
+            List<NewsScope> scopes = List.of(
+                    new NewsScope("FR", null),
+                    new NewsScope("FR", "IDF"), // Île-de-France
+                    new NewsScope("US", null),
+                    new NewsScope("GB", null),
+                    new NewsScope("DE", null)
+            );
+            List<TieredCache.Entry> cacheEntries = new ArrayList<>();
+            List<String> storedUrls = new ArrayList<>();
+            fetchExecutor.fanOut(scopes,
+                    scope -> buildNewsApiUrl(scope.countryCode(), scope.regionCode()),
+                    scope -> mockMode
+                            ? generateMockNews(scope.countryCode(), scope.regionCode())
+                            : fetchNewsFromAPI(scope.countryCode(), scope.regionCode()),
+                    (scope, articles) -> {
+                        if (storeNews(scope.countryCode(), scope.regionCode(), articles, cacheEntries)) {
+                            storedUrls.add(buildNewsApiUrl(scope.countryCode(), scope.regionCode()));
+                        }
+                    });
+            
+            // Toutes les actualités de la collecte sont publiées dans le cache en un seul lot
+            if (!cacheEntries.isEmpty()) {
+                cacheService.cacheAll(cacheEntries);
+            }
+            
+            // Sources enregistrées : leur prochaine requête peut être conditionnelle
+            storedUrls.forEach(httpClient::confirm);
             
             updateCollectorStatus(com.angel.update.model.CollectorStatus.Status.ACTIVE, "News collection completed successfully");
             log.info("News collection completed successfully");
@@ -80,36 +115,29 @@ public class NewsCollector extends BaseCollector {
     }
     
     /**
-     * Collecte les actualités pour un pays spécifique
+     * Sauvegarde les actualités collectées pour un pays et prépare leur mise en cache
+     *
+     * @return true si toutes les actualités ont été enregistrées
      */
-    private void collectForCountry(String countryCode, String regionCode) {
-        try {
-            List<NewsArticle> articles;
-            
-            if (mockMode) {
-                articles = generateMockNews(countryCode, regionCode);
-            } else {
-                articles = fetchNewsFromAPI(countryCode, regionCode);
-            }
-            
-            if (!articles.isEmpty()) {
-                // Mettre en cache
-                cacheService.cacheNews(countryCode, regionCode, articles);
-                
-                // Sauvegarder en base (via ContentManagerService)
-                saveArticles(articles, countryCode, regionCode);
-                
-                log.info("Collected {} news articles for {}-{}", 
-                        articles.size(), countryCode, regionCode);
-            }
-            
-        } catch (Exception e) {
-            log.error("Error collecting news for {}-{}", countryCode, regionCode, e);
+    private boolean storeNews(String countryCode, String regionCode, List<NewsArticle> articles,
+                              List<TieredCache.Entry> cacheEntries) {
+        if (articles.isEmpty()) {
+            return true;
         }
+        
+        // Mettre en cache avec le reste de la collecte
+        cacheEntries.add(CacheService.newsEntry(countryCode, regionCode, articles));
+        
+        // Sauvegarder en base (via ContentManagerService)
+        boolean saved = saveArticles(articles, countryCode, regionCode);
+        
+        log.info("Collected {} news articles for {}-{}", 
+                articles.size(), countryCode, regionCode);
+        return saved;
     }
     
     /**
-     * Récupère les actualités depuis l'API externe
+     * Récupère les actualités depuis l'API externe, ou null si elles n'ont pas changé
      */
     private List<NewsArticle> fetchNewsFromAPI(String countryCode, String regionCode) {
         // Simulation d'appel API - à remplacer par de vrais appels
@@ -117,8 +145,20 @@ public class NewsCollector extends BaseCollector {
         
         try {
             // Exemple avec une API REST générique
-            NewsApiResponse response = restTemplate.getForObject(url, NewsApiResponse.class);
+            NewsApiResponse response = httpClient.getJson(url, NewsApiResponse.class);
             
+            if (response == null) {
+                // Source inchangée : la copie en cache reste valable, son TTL est prolongé
+                List<NewsArticle> cached = cacheService.getCachedNews(countryCode, regionCode, articleListType());
+                if (cached != null) {
+                    log.debug("News unchanged for {}-{}", countryCode, regionCode);
+                    cacheService.cacheNews(countryCode, regionCode, cached);
+                    return null;
+                }
+                // Copie expirée : relecture complète de la source
+                httpClient.forget(url);
+                response = httpClient.getJson(url, NewsApiResponse.class);
+            }
             if (response != null && response.getArticles() != null) {
                 return response.getArticles().stream()
                         .filter(this::isValidArticle)
@@ -132,6 +172,10 @@ public class NewsCollector extends BaseCollector {
         return List.of();
     }
     
+    private JavaType articleListType() {
+        return objectMapper.getTypeFactory().constructCollectionType(List.class, NewsArticle.class);
+    }
+    
     /**
      * Génère des actualités simulées pour le mode mock
      */
@@ -161,10 +205,43 @@ public class NewsCollector extends BaseCollector {
         );
     }
     
-    private void saveArticles(List<NewsArticle> articles, String countryCode, String regionCode) {
-        // Implémentation de la sauvegarde via ContentManagerService
-        // Pour l'instant, juste un log
-        log.debug("Saving {} articles for {}-{}", articles.size(), countryCode, regionCode);
+    private boolean saveArticles(List<NewsArticle> articles, String countryCode, String regionCode) {
+        // Un seul lot par pays/région
+        List<ContentItem> items = articles.stream()
+                .map(article -> toContentItem(article, countryCode, regionCode))
+                .toList();
+        
+        ContentManagerService.IngestResult result = contentManagerService.ingestContent(items);
+        log.debug("Saved {} articles for {}-{} ({} unchanged, {} failed)", 
+                result.stored(), countryCode, regionCode, result.unchanged(), result.failed());
+        return result.failed() == 0;
+    }
+    
+    private ContentItem toContentItem(NewsArticle article, String countryCode, String regionCode) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(article);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize article: " + article.getTitle(), e);
+        }
+        
+        return ContentItem.builder()
+                .contentType(getContentType())
+                .countryCode(countryCode)
+                .regionCode(regionCode)
+                .fileName(articleFileName(article))
+                .source(() -> new ByteArrayInputStream(payload))
+                .tags(article.getCategory() != null ? Set.of(article.getCategory()) : null)
+                .publishedAt(article.getPublishedAt())
+                .build();
+    }
+    
+    /**
+     * Nom de fichier stable : un article recollecté réécrit le même fichier
+     */
+    private String articleFileName(NewsArticle article) {
+        String key = article.getSource() + "|" + article.getTitle();
+        return "article-" + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".json";
     }
     
     private String buildNewsApiUrl(String countryCode, String regionCode) {
@@ -188,6 +265,12 @@ public class NewsCollector extends BaseCollector {
         };
     }
     
+    /**
+     * Pays et région à collecter
+     */
+    private record NewsScope(String countryCode, String regionCode) {
+    }
+    
     /**
      * Classes pour la sérialisation des réponses API
      */
@@ -0,0 +1,114 @@
+package com.angel.update.collector;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture en flux (StAX) des éléments d'un flux RSS
+ * Les éléments sont extraits au fil de la lecture ; le flux n'est plus lu une fois la limite atteinte
+ */
+final class RssFeedParser {
+    
+    private static final XMLInputFactory FACTORY = createFactory();
+    
+    private RssFeedParser() {
+    }
+    
+    /**
+     * Élément d'un flux RSS
+     */
+    record RssItem(String title, String link, String pubDate, String description) {
+    }
+    
+    /**
+     * Extrait au plus maxItems éléments ayant un titre (sans limite si maxItems <= 0)
+     */
+    static List<RssItem> parse(InputStream feed, int maxItems) throws XMLStreamException {
+        int limit = maxItems > 0 ? maxItems : Integer.MAX_VALUE;
+        List<RssItem> items = new ArrayList<>();
+        
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(feed);
+        try {
+            while (items.size() < limit && reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "item".equals(qualifiedName(reader))) {
+                    RssItem item = readItem(reader);
+                    if (item.title() != null && !item.title().isEmpty()) {
+                        items.add(item);
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return items;
+    }
+    
+    /**
+     * Lit un élément item jusqu'à sa balise fermante ; la première occurrence de chaque champ l'emporte
+     */
+    private static RssItem readItem(XMLStreamReader reader) throws XMLStreamException {
+        String title = null;
+        String link = null;
+        String pubDate = null;
+        String description = null;
+        
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (qualifiedName(reader)) {
+                    case "title" -> title = first(title, readText(reader));
+                    case "link" -> link = first(link, readText(reader));
+                    case "pubDate" -> pubDate = first(pubDate, readText(reader));
+                    case "description" -> description = first(description, readText(reader));
+                    default -> depth++;
+                }
+            }
+        }
+        return new RssItem(title, link, pubDate, description);
+    }
+    
+    /**
+     * Texte d'un élément et de ses descendants, jusqu'à sa balise fermante
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getText());
+                default -> {
+                }
+            }
+        }
+        return text.toString();
+    }
+    
+    private static String first(String current, String candidate) {
+        return current != null ? current : candidate;
+    }
+    
+    private static String qualifiedName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        return prefix == null || prefix.isEmpty() ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+    }
+    
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Pas de DTD ni d'entités externes dans un flux distant
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
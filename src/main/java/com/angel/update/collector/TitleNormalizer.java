@@ -0,0 +1,102 @@
+package com.angel.update.collector;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation des titres d'actualités, en une seule passe sur les caractères
+ * Enlève la source après le dernier '-', réduit les espaces, retire la ponctuation
+ * en début et en fin, puis termine la phrase par un point
+ */
+final class TitleNormalizer {
+    
+    // Chemin de repli, pour les titres contenant des fins de ligne Unicode
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern LEADING = Pattern.compile("^[\\s\\p{Punct}]+");
+    private static final Pattern TRAILING = Pattern.compile("[\\s\\p{Punct}]+$");
+    private static final Pattern TERMINATED = Pattern.compile(".*[.!?]$");
+    
+    private TitleNormalizer() {
+    }
+    
+    static String normalize(String title) {
+        if (title == null || title.isEmpty()) {
+            return "";
+        }
+        
+        int start = 0;
+        int end = title.length();
+        
+        // Enlever la partie après le dernier '-' (source du média)
+        int lastDashIndex = title.lastIndexOf('-');
+        if (lastDashIndex > 0) {
+            end = lastDashIndex;
+            while (start < end && title.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && title.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        }
+        
+        // '.' et '$' des expressions régulières traitent NEL, LS et PS comme des fins de ligne
+        for (int i = start; i < end; i++) {
+            char c = title.charAt(i);
+            if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return normalizeWithPatterns(title.substring(start, end));
+            }
+        }
+        
+        // Enlever espaces et ponctuation au début et à la fin
+        while (start < end && isSpaceOrPunct(title.charAt(start))) {
+            start++;
+        }
+        while (end > start && isSpaceOrPunct(title.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return "";
+        }
+        
+        // Normaliser les espaces ; la phrase ne se termine plus par une ponctuation
+        StringBuilder result = new StringBuilder(end - start + 1);
+        boolean inSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = title.charAt(i);
+            if (isSpace(c)) {
+                inSpace = true;
+                continue;
+            }
+            if (inSpace) {
+                result.append(' ');
+                inSpace = false;
+            }
+            result.append(c);
+        }
+        return result.append('.').toString();
+    }
+    
+    private static String normalizeWithPatterns(String title) {
+        title = WHITESPACE.matcher(title).replaceAll(" ");
+        title = LEADING.matcher(title).replaceAll("");
+        title = TRAILING.matcher(title).replaceAll("");
+        if (!title.isEmpty() && !TERMINATED.matcher(title).matches()) {
+            title += ".";
+        }
+        return title;
+    }
+    
+    /**
+     * Équivalent de \s (ASCII)
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    /**
+     * Équivalent de [\s\p{Punct}] (ASCII)
+     */
+    private static boolean isSpaceOrPunct(char c) {
+        return isSpace(c) || (c >= '!' && c <= '/') || (c >= ':' && c <= '@')
+                || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+}
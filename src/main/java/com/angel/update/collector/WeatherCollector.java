@@ -1,17 +1,29 @@
 package com.angel.update.collector;
 
+import com.angel.update.model.ContentItem;
 import com.angel.update.service.CacheService;
+import com.angel.update.service.ContentManagerService;
+import com.angel.update.service.TieredCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Collecteur de données météorologiques
@@ -23,7 +35,10 @@ import java.util.Map;
 public class WeatherCollector extends BaseCollector {
     
     private final CacheService cacheService;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final ContentManagerService contentManagerService;
+    private final ObjectMapper objectMapper;
+    private final CollectorFetchExecutor fetchExecutor;
+    private final CollectorHttpClient httpClient;
     
     @Value("${angel.collectors.weather.api-key:demo}")
     private String apiKey;
@@ -67,10 +82,11 @@ public class WeatherCollector extends BaseCollector {
         log.info("Starting weather data collection...");
         
         try {
-            // Collecter pour les principaux pays
-            for (String countryCode : majorCities.keySet()) {
-                collectWeatherForCountry(countryCode);
-            }
+            // Collecter pour les principaux pays, toutes villes en parallèle
+            List<CityRequest> requests = new ArrayList<>();
+            majorCities.forEach((countryCode, cities) -> 
+                    cities.forEach(city -> requests.add(new CityRequest(city, countryCode))));
+            collectWeatherForCities(requests);
             
             updateCollectorStatus(com.angel.update.model.CollectorStatus.Status.ACTIVE, "Weather collection completed successfully");
             log.info("Weather collection completed successfully");
@@ -82,46 +98,94 @@ public class WeatherCollector extends BaseCollector {
     }
     
     /**
-     * Collecte les données météo pour un pays
+     * Collecte les données météo des villes, puis les sauvegarde en un lot par pays
+     * et les publie dans le cache en un seul lot
      */
-    private void collectWeatherForCountry(String countryCode) {
-        List<String> cities = majorCities.get(countryCode);
-        if (cities == null) return;
+    private void collectWeatherForCities(List<CityRequest> requests) {
+        Map<String, List<ContentItem>> itemsByCountry = new HashMap<>();
+        Map<String, List<String>> urlsByCountry = new HashMap<>();
+        List<TieredCache.Entry> cacheEntries = new ArrayList<>();
         
-        for (String city : cities) {
-            try {
-                WeatherData weatherData;
-                
-                if (mockMode) {
-                    weatherData = generateMockWeather(city, countryCode);
-                } else {
-                    weatherData = fetchWeatherFromAPI(city, countryCode);
-                }
-                
-                if (weatherData != null) {
-                    // Mettre en cache
-                    cacheService.cacheWeather(countryCode, getRegionForCity(city, countryCode), weatherData);
+        // Copies en cache, lues avant la collecte en un aller-retour par pays pour les réponses 304
+        Map<String, Map<String, WeatherData>> cachedByCountry = mockMode ? Map.of() : readCachedWeather(requests);
+        List<TieredCache.Entry> unchangedEntries = new CopyOnWriteArrayList<>();
+        
+        fetchExecutor.fanOut(requests,
+                request -> buildWeatherApiUrl(request.city(), request.countryCode()),
+                request -> mockMode
+                        ? generateMockWeather(request.city(), request.countryCode())
+                        : fetchWeatherFromAPI(request.city(), request.countryCode(),
+                                cachedByCountry.getOrDefault(request.countryCode(), Map.of()), unchangedEntries),
+                (request, weatherData) -> {
+                    String regionCode = getRegionForCity(request.city(), request.countryCode());
                     
-                    // Sauvegarder en base
-                    saveWeatherData(weatherData, countryCode);
+                    // Mettre en cache avec le reste de la collecte
+                    cacheEntries.add(CacheService.weatherEntry(request.countryCode(), regionCode, weatherData));
                     
-                    log.debug("Collected weather data for {}, {}", city, countryCode);
-                }
-                
-            } catch (Exception e) {
-                log.error("Error collecting weather for {}, {}", city, countryCode, e);
-            }
+                    // Sauvegarder en base avec le reste du pays
+                    itemsByCountry.computeIfAbsent(request.countryCode(), key -> new ArrayList<>())
+                            .add(toContentItem(weatherData, request.countryCode(), regionCode));
+                    urlsByCountry.computeIfAbsent(request.countryCode(), key -> new ArrayList<>())
+                            .add(buildWeatherApiUrl(request.city(), request.countryCode()));
+                    
+                    log.debug("Collected weather data for {}, {}", request.city(), request.countryCode());
+                });
+        
+        // Sources inchangées : leur TTL est prolongé avec le reste du lot
+        cacheEntries.addAll(unchangedEntries);
+        if (!cacheEntries.isEmpty()) {
+            cacheService.cacheAll(cacheEntries);
         }
+        itemsByCountry.forEach((countryCode, items) -> {
+            // Sources enregistrées : leur prochaine requête peut être conditionnelle
+            if (saveWeatherData(items, countryCode)) {
+                urlsByCountry.get(countryCode).forEach(httpClient::confirm);
+            }
+        });
     }
     
     /**
-     * Récupère les données météo depuis l'API
+     * Météo en cache des régions de chaque pays collecté, indexée par pays puis par région
      */
-    private WeatherData fetchWeatherFromAPI(String city, String countryCode) {
+    private Map<String, Map<String, WeatherData>> readCachedWeather(List<CityRequest> requests) {
+        Map<String, Set<String>> regionsByCountry = new HashMap<>();
+        requests.forEach(request -> regionsByCountry
+                .computeIfAbsent(request.countryCode(), key -> new LinkedHashSet<>())
+                .add(getRegionForCity(request.city(), request.countryCode())));
+        
+        JavaType type = objectMapper.constructType(WeatherData.class);
+        Map<String, Map<String, WeatherData>> cachedByCountry = new HashMap<>();
+        regionsByCountry.forEach((countryCode, regionCodes) ->
+                cachedByCountry.put(countryCode, cacheService.getCachedWeather(countryCode, regionCodes, type)));
+        return cachedByCountry;
+    }
+    
+    /**
+     * Récupère les données météo depuis l'API, ou null si elles n'ont pas changé
+     * Dans ce cas, l'entrée de cache de la ville est ajoutée à unchangedEntries pour prolonger son TTL
+     */
+    private WeatherData fetchWeatherFromAPI(String city, String countryCode, Map<String, WeatherData> cachedByRegion,
+                                            List<TieredCache.Entry> unchangedEntries) {
         String url = buildWeatherApiUrl(city, countryCode);
         
         try {
-            WeatherApiResponse response = restTemplate.getForObject(url, WeatherApiResponse.class);
+            WeatherApiResponse response = httpClient.getJson(url, WeatherApiResponse.class);
+            
+            if (response == null) {
+                // Source inchangée : la copie en cache reste valable, son TTL est prolongé
+                // (l'entrée de la région peut être celle d'une autre ville, qui la prolonge elle-même)
+                String regionCode = getRegionForCity(city, countryCode);
+                WeatherData cached = cachedByRegion.get(regionCode != null ? regionCode : "national");
+                if (cached != null) {
+                    if (city.equals(cached.getCity())) {
+                        unchangedEntries.add(CacheService.weatherEntry(countryCode, regionCode, cached));
+                    }
+                    return null;
+                }
+                // Copie expirée : relecture complète de la source
+                httpClient.forget(url);
+                response = httpClient.getJson(url, WeatherApiResponse.class);
+            }
             
             if (response != null) {
                 return mapToWeatherData(response, city, countryCode);
@@ -176,9 +240,28 @@ public class WeatherCollector extends BaseCollector {
                 .toList();
     }
     
-    private void saveWeatherData(WeatherData weatherData, String countryCode) {
-        // Implémentation de la sauvegarde
-        log.debug("Saving weather data for {}, {}", weatherData.getCity(), countryCode);
+    private boolean saveWeatherData(List<ContentItem> items, String countryCode) {
+        ContentManagerService.IngestResult result = contentManagerService.ingestContent(items);
+        log.debug("Saved weather data for {} cities in {} ({} unchanged, {} failed)", 
+                result.stored(), countryCode, result.unchanged(), result.failed());
+        return result.failed() == 0;
+    }
+    
+    private ContentItem toContentItem(WeatherData weatherData, String countryCode, String regionCode) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(weatherData);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize weather data for " + weatherData.getCity(), e);
+        }
+        return ContentItem.builder()
+                .contentType(getContentType())
+                .countryCode(countryCode)
+                .regionCode(regionCode)
+                .fileName("weather-" + weatherData.getCity().toLowerCase(Locale.ROOT).replace(' ', '-') + ".json")
+                .source(() -> new ByteArrayInputStream(payload))
+                .publishedAt(weatherData.getTimestamp())
+                .build();
     }
     
     private WeatherData mapToWeatherData(WeatherApiResponse response, String city, String countryCode) {
@@ -225,6 +308,12 @@ public class WeatherCollector extends BaseCollector {
         return conditions[(int) (Math.random() * conditions.length)];
     }
     
+    /**
+     * Ville à collecter
+     */
+    private record CityRequest(String city, String countryCode) {
+    }
+    
     /**
      * Classes pour les données météo
      */
@@ -297,6 +386,13 @@ public class WeatherCollector extends BaseCollector {
             return new Builder();
         }
         
+        // Getters
+        public LocalDateTime getDate() { return date; }
+        public double getMinTemp() { return minTemp; }
+        public double getMaxTemp() { return maxTemp; }
+        public String getCondition() { return condition; }
+        public int getPrecipitationChance() { return precipitationChance; }
+        
         public static class Builder {
             private final ForecastDay day = new ForecastDay();
             
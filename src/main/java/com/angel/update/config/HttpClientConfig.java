@@ -0,0 +1,31 @@
+package com.angel.update.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Client HTTP partagé par les collecteurs
+ * Les connexions keep-alive sont réutilisées d'une collecte à l'autre ; HTTP/2 si le serveur l'accepte
+ */
+@Configuration
+@Slf4j
+public class HttpClientConfig {
+    
+    @Value("${angel.collectors.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+    
+    @Bean
+    public HttpClient collectorHttpClient() {
+        log.info("Configuring collector HTTP client (connect timeout {} ms)", connectTimeoutMs);
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+}
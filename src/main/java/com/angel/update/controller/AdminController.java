@@ -2,6 +2,7 @@ package com.angel.update.controller;
 
 import com.angel.update.model.Content;
 import com.angel.update.model.CollectorStatus;
+import com.angel.update.model.ContentItem;
 import com.angel.update.service.ContentManagerService;
 import com.angel.update.service.CollectorService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,8 +16,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Controller d'administration
@@ -64,6 +68,45 @@ public class AdminController {
         }
     }
 
+    @PostMapping("/content/bulk")
+    @Operation(summary = "Upload de contenus en lot")
+    public ResponseEntity<Map<String, Object>> uploadContentBulk(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam String contentType,
+            @RequestParam String countryCode,
+            @RequestParam(required = false) String regionCode,
+            @RequestParam(required = false) String tags,
+            @RequestParam(defaultValue = "NORMAL") String priority) {
+        
+        log.info("Bulk uploading {} contents: type={}, country={}, region={}",
+                files.size(), contentType, countryCode, regionCode);
+        
+        Set<String> tagSet = tags != null && !tags.isEmpty()
+                ? Arrays.stream(tags.split(",")).map(String::trim).collect(Collectors.toSet())
+                : null;
+        
+        List<ContentItem> items = files.stream()
+                .map(file -> ContentItem.builder()
+                        .contentType(contentType)
+                        .countryCode(countryCode)
+                        .regionCode(regionCode)
+                        .fileName(file.getOriginalFilename())
+                        .source(file::getInputStream)
+                        .tags(tagSet)
+                        .priority(Content.ContentPriority.valueOf(priority))
+                        .build())
+                .toList();
+        
+        ContentManagerService.IngestResult result = contentManagerService.ingestContent(items);
+        
+        return ResponseEntity.ok(Map.of(
+                "success", result.failed() == 0,
+                "stored", result.stored(),
+                "unchanged", result.unchanged(),
+                "failed", result.failed()
+        ));
+    }
+
     @GetMapping("/collectors")
     @Operation(summary = "Liste des collecteurs")
     public ResponseEntity<List<CollectorStatus>> getCollectors() {
@@ -0,0 +1,240 @@
+package com.angel.update.controller;
+
+import com.angel.update.model.PackageDescriptor;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.RequestFacade;
+import org.apache.catalina.connector.ResponseFacade;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Envoi des packages de mise à jour avec support des requêtes conditionnelles et partielles
+ * (ETag, If-None-Match, Range, If-Range) pour permettre la reprise des téléchargements
+ */
+@Component
+@Slf4j
+public class PackageDownloadHandler {
+
+    // Attributs de requête permettant à Tomcat d'envoyer le fichier via sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String BYTES_UNIT = "bytes";
+
+    /**
+     * Écrit le package dans la réponse HTTP
+     */
+    public void sendPackage(PackageDescriptor descriptor, String fileName,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        Path file = Paths.get(descriptor.getPackagePath());
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + descriptor.getChecksum() + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES_UNIT);
+
+        // Le client possède déjà ce package
+        if (matchesIfNoneMatch(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteRange range = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && matchesIfRange(request, etag, lastModified)) {
+            range = parseRange(rangeHeader, size);
+            if (range == ByteRange.UNSATISFIABLE) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES_UNIT + " */" + size);
+                return;
+            }
+        }
+
+        long start = 0;
+        long length = size;
+        if (range != null) {
+            start = range.start();
+            length = range.end() - range.start() + 1;
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    BYTES_UNIT + " " + range.start() + "-" + range.end() + "/" + size);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        response.setContentLengthLong(length);
+
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        writeBody(file, start, length, request, response);
+    }
+
+    /**
+     * Envoi sans copie par sendfile si le conteneur le supporte, sinon copie par FileChannel.transferTo
+     */
+    private void writeBody(Path file, long start, long length,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        if (canSendfile(request, response)) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * Sendfile contourne le flux de sortie de la réponse : il faut une requête Tomcat sous les
+     * enveloppes des filtres (Spring Security…), et aucune enveloppe qui met le corps en mémoire
+     */
+    private boolean canSendfile(HttpServletRequest request, HttpServletResponse response) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && unwrap(request) instanceof RequestFacade
+                && !buffersBody(response);
+    }
+
+    private static ServletRequest unwrap(ServletRequest request) {
+        while (request instanceof ServletRequestWrapper wrapper) {
+            request = wrapper.getRequest();
+        }
+        return request;
+    }
+
+    /**
+     * Une enveloppe qui accumule le corps (ETag calculé, journalisation) ne verrait pas le package
+     */
+    private static boolean buffersBody(ServletResponse response) {
+        while (response instanceof ServletResponseWrapper wrapper) {
+            if (wrapper instanceof ContentCachingResponseWrapper) {
+                return true;
+            }
+            response = wrapper.getResponse();
+        }
+        return !(response instanceof ResponseFacade);
+    }
+
+    private boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Une plage n'est honorée que si le package n'a pas changé depuis le premier téléchargement
+     */
+    private boolean matchesIfRange(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Comparaison forte : un ETag faible ne correspond jamais
+            return etag.equals(ifRange.trim());
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Analyse un en-tête Range à plage unique ; retourne null si l'en-tête doit être ignoré
+     */
+    private ByteRange parseRange(String rangeHeader, long size) {
+        String prefix = BYTES_UNIT + "=";
+        if (!rangeHeader.startsWith(prefix) || rangeHeader.indexOf(',') >= 0) {
+            // Unité inconnue ou plages multiples : le package complet est envoyé
+            return null;
+        }
+
+        String spec = rangeHeader.substring(prefix.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            String startPart = spec.substring(0, dash).trim();
+            String endPart = spec.substring(dash + 1).trim();
+
+            if (startPart.isEmpty()) {
+                // Suffixe : les N derniers octets
+                long suffix = Long.parseLong(endPart);
+                if (suffix <= 0 || size == 0) {
+                    return ByteRange.UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+
+            long start = Long.parseLong(startPart);
+            long end = endPart.isEmpty() ? size - 1 : Math.min(Long.parseLong(endPart), size - 1);
+            if (start >= size) {
+                return ByteRange.UNSATISFIABLE;
+            }
+            if (end < start) {
+                return null;
+            }
+            return new ByteRange(start, end);
+
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed Range header: {}", rangeHeader);
+            return null;
+        }
+    }
+
+    private record ByteRange(long start, long end) {
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+    }
+}
@@ -1,19 +1,21 @@
 package com.angel.update.controller;
 
+import com.angel.update.model.PackageDescriptor;
 import com.angel.update.model.UpdateRequest;
 import com.angel.update.model.UpdateResponse;
 import com.angel.update.service.UpdateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 /**
  * Controller principal pour les mises à jour
  */
@@ -25,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 public class UpdateController {
 
     private final UpdateService updateService;
+    private final PackageDownloadHandler packageDownloadHandler;
 
     @PostMapping("/check")
     @Operation(summary = "Vérifier les mises à jour disponibles")
@@ -47,21 +50,20 @@ public class UpdateController {
 
     @GetMapping("/download/{version}")
     @Operation(summary = "Télécharger un package de mise à jour")
-    public ResponseEntity<Resource> downloadUpdate(
+    public void downloadUpdate(
             @PathVariable String version,
             @RequestParam String countryCode,
-            @RequestParam(required = false) String regionCode) {
+            @RequestParam(required = false) String regionCode,
+            @RequestParam(required = false) String fromVersion,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
-        log.info("Downloading update version: {} for country: {}, region: {}",
-                version, countryCode, regionCode);
+        log.info("Downloading update version: {} for country: {}, region: {}, from: {}",
+                version, countryCode, regionCode, fromVersion);
         
-        Resource resource = updateService.getUpdatePackage(version, countryCode, regionCode);
+        PackageDescriptor descriptor = updateService.getUpdatePackage(version, countryCode, regionCode, fromVersion);
         
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"update-" + version + ".zip\"")
-                .body(resource);
+        packageDownloadHandler.sendPackage(descriptor, "update-" + version + ".zip", request, response);
     }
 
     @GetMapping("/version")
@@ -17,12 +17,14 @@ import java.util.Set;
 @Entity
 @Table(name = "contents")
 @Data
-@EqualsAndHashCode(exclude = {"region"})
-@ToString(exclude = {"region"})
+@EqualsAndHashCode(exclude = {"region", "content", "tags"})
+@ToString(exclude = {"region", "content", "tags"})
 public class Content {
     
+    // Séquence allouée par blocs : les insertions peuvent être regroupées en lots JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contents_seq")
+    @SequenceGenerator(name = "contents_seq", sequenceName = "contents_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -39,7 +41,9 @@ public class Content {
     @Column(nullable = false)
     private String filePath;
     
+    // Chargé à la demande (entités enrichies par hibernate-enhance-maven-plugin)
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
     private String content;
     
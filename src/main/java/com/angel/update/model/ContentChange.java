@@ -0,0 +1,48 @@
+package com.angel.update.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrée du journal des modifications de contenu
+ * La séquence est celle de la version de la région qui publie la modification ;
+ * elle reste nulle tant que la prochaine version n'est pas publiée
+ */
+@Entity
+@Table(name = "content_changes")
+@Data
+public class ContentChange {
+    
+    // Séquence allouée par blocs : les insertions peuvent être regroupées en lots JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "content_changes_seq")
+    @SequenceGenerator(name = "content_changes_seq", sequenceName = "content_changes_id_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String countryCode;
+    
+    private String regionCode; // null : catalogue national du pays
+    
+    private Long sequence;
+    
+    @Column(nullable = false, length = 500)
+    private String filePath;
+    
+    // Checksum du fichier publié, nul pour une suppression
+    @Column(length = 64)
+    private String checksum;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ChangeType changeType;
+    
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+    
+    public enum ChangeType {
+        UPSERT, DELETE
+    }
+}
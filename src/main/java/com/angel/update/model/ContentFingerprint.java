@@ -0,0 +1,10 @@
+package com.angel.update.model;
+
+/**
+ * Projection chemin / checksum d'un contenu, pour la déduplication
+ */
+public record ContentFingerprint(
+        String filePath,
+        String checksum
+) {
+}
@@ -0,0 +1,47 @@
+package com.angel.update.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Élément de contenu à ingérer en lot (collecteurs, upload multiple)
+ * Les données sont lues en flux depuis la source, une seule fois
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentItem {
+    
+    private String contentType;
+    
+    private String countryCode;
+    
+    private String regionCode;
+    
+    private String fileName;
+    
+    private Source source;
+    
+    private Set<String> tags;
+    
+    @Builder.Default
+    private Content.ContentPriority priority = Content.ContentPriority.NORMAL;
+    
+    private LocalDateTime publishedAt;
+    
+    /**
+     * Source des données de l'élément
+     */
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,20 @@
+package com.angel.update.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection d'un contenu sans son corps ni ses tags
+ */
+public record ContentSummary(
+        Long id,
+        String contentType,
+        String countryCode,
+        String regionCode,
+        String filePath,
+        String checksum,
+        Long fileSize,
+        String version,
+        Content.ContentPriority priority,
+        LocalDateTime publishedAt
+) {
+}
@@ -0,0 +1,41 @@
+package com.angel.update.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrée du manifeste d'un package de mise à jour
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ManifestEntry {
+    
+    public enum Type {
+        FILE,
+        PATCH,
+        DELETE
+    }
+    
+    private Type type;
+    
+    private String path;
+    
+    private String contentType;
+    
+    // Taille et CRC des données de l'entrée ZIP (le patch pour une entrée PATCH), absents pour DELETE
+    private Long size;
+    
+    private Long crc;
+    
+    // SHA-256 du fichier final, après application du patch le cas échéant
+    private String checksum;
+    
+    // SHA-256 du fichier que le client doit posséder pour appliquer le patch
+    private String baseChecksum;
+}
@@ -0,0 +1,38 @@
+package com.angel.update.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Description d'un package de mise à jour déjà construit
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackageDescriptor {
+    
+    private String countryCode;
+    
+    private String regionCode;
+    
+    private String fromVersion;
+    
+    private String toVersion;
+    
+    private String packagePath;
+    
+    private long packageSize;
+    
+    private String checksum;
+    
+    private List<String> changedFiles;
+    
+    private List<ManifestEntry> manifest;
+    
+    private LocalDateTime builtAt;
+}
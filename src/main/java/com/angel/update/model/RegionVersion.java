@@ -0,0 +1,41 @@
+package com.angel.update.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité représentant une version publiée pour une région
+ * La séquence est strictement croissante par région : la plus grande est la version courante
+ */
+@Entity
+@Table(name = "region_versions",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"region_key", "sequence"}),
+           @UniqueConstraint(columnNames = {"region_key", "version"})
+       })
+@Data
+public class RegionVersion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "region_key", nullable = false, length = 64)
+    private String regionKey; // ex: "FR-IDF" ou "FR"
+    
+    @Column(nullable = false)
+    private String countryCode;
+    
+    private String regionCode;
+    
+    @Column(nullable = false, length = 50)
+    private String version;
+    
+    @Column(nullable = false)
+    private Long sequence;
+    
+    @Column(nullable = false)
+    private LocalDateTime releasedAt;
+}
@@ -1,5 +1,6 @@
 package com.angel.update.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -27,8 +28,14 @@ public class UpdateResponse {
     
     private String checksum;
     
+    // Liste brute des chemins, renseignée seulement pour les packages sans manifeste
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> changedFiles;
     
+    // Projection du manifeste binaire du package
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ManifestEntry> manifest;
+    
     private Map<String, Integer> changesSummary;
     
     private LocalDateTime releaseDate;
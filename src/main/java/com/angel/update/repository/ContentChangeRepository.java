@@ -0,0 +1,96 @@
+package com.angel.update.repository;
+
+import com.angel.update.model.ContentChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository pour le journal des modifications de contenu
+ * Les variantes nationale et régionale sont séparées pour parcourir l'index (pays, région, séquence)
+ */
+@Repository
+public interface ContentChangeRepository extends JpaRepository<ContentChange, Long> {
+    
+    /**
+     * Rattache les modifications en attente d'une région à la version publiée
+     */
+    @Modifying
+    @Query("UPDATE ContentChange c SET c.sequence = :sequence WHERE " +
+           "c.countryCode = :countryCode AND c.regionCode = :regionCode AND c.sequence IS NULL")
+    int assignRegionalSequence(
+            @Param("countryCode") String countryCode,
+            @Param("regionCode") String regionCode,
+            @Param("sequence") Long sequence
+    );
+    
+    /**
+     * Rattache les modifications en attente du catalogue national à la version publiée
+     */
+    @Modifying
+    @Query("UPDATE ContentChange c SET c.sequence = :sequence WHERE " +
+           "c.countryCode = :countryCode AND c.regionCode IS NULL AND c.sequence IS NULL")
+    int assignNationalSequence(
+            @Param("countryCode") String countryCode,
+            @Param("sequence") Long sequence
+    );
+    
+    /**
+     * Trouve les modifications d'une région publiées dans ]fromSequence, toSequence]
+     */
+    @Query("SELECT c FROM ContentChange c WHERE " +
+           "c.countryCode = :countryCode AND c.regionCode = :regionCode AND " +
+           "c.sequence > :fromSequence AND c.sequence <= :toSequence " +
+           "ORDER BY c.sequence, c.id")
+    List<ContentChange> findRegionalChanges(
+            @Param("countryCode") String countryCode,
+            @Param("regionCode") String regionCode,
+            @Param("fromSequence") Long fromSequence,
+            @Param("toSequence") Long toSequence
+    );
+    
+    /**
+     * Trouve les modifications du catalogue national publiées dans ]fromSequence, toSequence]
+     */
+    @Query("SELECT c FROM ContentChange c WHERE " +
+           "c.countryCode = :countryCode AND c.regionCode IS NULL AND " +
+           "c.sequence > :fromSequence AND c.sequence <= :toSequence " +
+           "ORDER BY c.sequence, c.id")
+    List<ContentChange> findNationalChanges(
+            @Param("countryCode") String countryCode,
+            @Param("fromSequence") Long fromSequence,
+            @Param("toSequence") Long toSequence
+    );
+    
+    /**
+     * Historique de fichiers d'une région jusqu'à une séquence incluse
+     */
+    @Query("SELECT c FROM ContentChange c WHERE " +
+           "c.countryCode = :countryCode AND c.regionCode = :regionCode AND " +
+           "c.filePath IN :filePaths AND c.sequence <= :sequence " +
+           "ORDER BY c.sequence, c.id")
+    List<ContentChange> findRegionalHistory(
+            @Param("countryCode") String countryCode,
+            @Param("regionCode") String regionCode,
+            @Param("filePaths") Collection<String> filePaths,
+            @Param("sequence") Long sequence
+    );
+    
+    /**
+     * Historique de fichiers du catalogue national jusqu'à une séquence incluse
+     */
+    @Query("SELECT c FROM ContentChange c WHERE " +
+           "c.countryCode = :countryCode AND c.regionCode IS NULL AND " +
+           "c.filePath IN :filePaths AND c.sequence <= :sequence " +
+           "ORDER BY c.sequence, c.id")
+    List<ContentChange> findNationalHistory(
+            @Param("countryCode") String countryCode,
+            @Param("filePaths") Collection<String> filePaths,
+            @Param("sequence") Long sequence
+    );
+}
@@ -1,6 +1,8 @@
 package com.angel.update.repository;
 
 import com.angel.update.model.Content;
+import com.angel.update.model.ContentFingerprint;
+import com.angel.update.model.ContentSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,38 +13,53 @@ import java.util.List;
 
 /**
  * Repository pour la gestion des contenus
+ * Les requêtes de lecture fréquentes retournent des ContentSummary, sans le corps ni les tags
  */
 @Repository
 public interface ContentRepository extends JpaRepository<Content, Long> {
     
     /**
-     * Trouve les contenus par pays et région dans une plage de dates
+     * Trouve les contenus actifs par type et localisation
+     * Sans région, tous les contenus du pays sont retournés
+     */
+    default List<ContentSummary> findActiveContent(String contentType, String countryCode, String regionCode) {
+        return regionCode != null
+                ? findActiveContentForRegion(contentType, countryCode, regionCode)
+                : findActiveContentForCountry(contentType, countryCode);
+    }
+    
+    /**
+     * Trouve les contenus actifs par type pour une région
      */
-    @Query("SELECT c FROM Content c WHERE " +
+    @Query("SELECT new com.angel.update.model.ContentSummary(" +
+           "c.id, c.contentType, c.countryCode, c.regionCode, c.filePath, " +
+           "c.checksum, c.fileSize, c.version, c.priority, c.publishedAt) " +
+           "FROM Content c WHERE " +
+           "c.contentType = :contentType AND " +
            "c.countryCode = :countryCode AND " +
-           "(:regionCode IS NULL OR c.regionCode = :regionCode) AND " +
-           "c.publishedAt BETWEEN :fromDate AND :toDate AND " +
-           "c.status = 'ACTIVE'")
-    List<Content> findByCountryAndRegionAndDateRange(
+           "c.regionCode = :regionCode AND " +
+           "c.status = 'ACTIVE' " +
+           "ORDER BY c.priority DESC, c.publishedAt DESC")
+    List<ContentSummary> findActiveContentForRegion(
+            @Param("contentType") String contentType,
             @Param("countryCode") String countryCode,
-            @Param("regionCode") String regionCode,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate
+            @Param("regionCode") String regionCode
     );
     
     /**
-     * Trouve les contenus actifs par type et localisation
+     * Trouve les contenus actifs par type pour un pays, toutes régions confondues
      */
-    @Query("SELECT c FROM Content c WHERE " +
+    @Query("SELECT new com.angel.update.model.ContentSummary(" +
+           "c.id, c.contentType, c.countryCode, c.regionCode, c.filePath, " +
+           "c.checksum, c.fileSize, c.version, c.priority, c.publishedAt) " +
+           "FROM Content c WHERE " +
            "c.contentType = :contentType AND " +
            "c.countryCode = :countryCode AND " +
-           "(:regionCode IS NULL OR c.regionCode = :regionCode) AND " +
            "c.status = 'ACTIVE' " +
            "ORDER BY c.priority DESC, c.publishedAt DESC")
-    List<Content> findActiveContent(
+    List<ContentSummary> findActiveContentForCountry(
             @Param("contentType") String contentType,
-            @Param("countryCode") String countryCode,
-            @Param("regionCode") String regionCode
+            @Param("countryCode") String countryCode
     );
     
     /**
@@ -75,9 +92,34 @@ public interface ContentRepository extends JpaRepository<Content, Long> {
     List<Content> findByChecksum(String checksum);
     
     /**
-     * Supprime les anciens contenus (soft delete)
+     * Indique si une révision active plus récente existe pour ce chemin
+     */
+    @Query("SELECT COUNT(c) > 0 FROM Content c WHERE " +
+           "c.filePath = :filePath AND " +
+           "c.id > :id AND " +
+           "c.status = 'ACTIVE'")
+    boolean existsNewerActiveContent(@Param("filePath") String filePath, @Param("id") Long id);
+    
+    /**
+     * Indique si ce contenu est toujours actif et la dernière révision active de son chemin
+     */
+    @Query("SELECT COUNT(c) > 0 FROM Content c WHERE " +
+           "c.id = :id AND " +
+           "c.status = 'ACTIVE' AND " +
+           "NOT EXISTS (SELECT n.id FROM Content n WHERE " +
+           "n.filePath = c.filePath AND n.id > c.id AND n.status = 'ACTIVE')")
+    boolean isLatestActiveRevision(@Param("id") Long id);
+    
+    /**
+     * Chemins et checksums des contenus actifs, pour initialiser l'index de déduplication
+     */
+    @Query("SELECT new com.angel.update.model.ContentFingerprint(c.filePath, c.checksum) " +
+           "FROM Content c WHERE c.status = 'ACTIVE'")
+    List<ContentFingerprint> findActiveFingerprints();
+    
+    /**
+     * Trouve les contenus actifs publiés avant une date, à archiver
      */
-    @Query("UPDATE Content c SET c.status = 'ARCHIVED' WHERE " +
-           "c.publishedAt < :cutoffDate AND c.status = 'ACTIVE'")
-    void archiveOldContent(@Param("cutoffDate") LocalDateTime cutoffDate);
-}
\ No newline at end of file
+    @Query("SELECT c FROM Content c WHERE c.publishedAt < :cutoffDate AND c.status = 'ACTIVE'")
+    List<Content> findActivePublishedBefore(@Param("cutoffDate") LocalDateTime cutoffDate);
+}
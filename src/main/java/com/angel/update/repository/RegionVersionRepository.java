@@ -0,0 +1,33 @@
+package com.angel.update.repository;
+
+import com.angel.update.model.RegionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository pour le catalogue des versions par région
+ */
+@Repository
+public interface RegionVersionRepository extends JpaRepository<RegionVersion, Long> {
+    
+    /**
+     * Trouve la version courante de chaque région
+     */
+    @Query("SELECT v FROM RegionVersion v WHERE v.sequence = " +
+           "(SELECT MAX(w.sequence) FROM RegionVersion w WHERE w.regionKey = v.regionKey)")
+    List<RegionVersion> findLatestVersions();
+    
+    /**
+     * Trouve la version courante d'une région
+     */
+    Optional<RegionVersion> findTopByRegionKeyOrderBySequenceDesc(String regionKey);
+    
+    /**
+     * Trouve une version publiée d'une région
+     */
+    Optional<RegionVersion> findByRegionKeyAndVersion(String regionKey, String version);
+}
@@ -0,0 +1,209 @@
+package com.angel.update.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Différentiel binaire de type VCDIFF (instructions COPY / ADD)
+ *
+ * Format : magic "ANGD", version, taille cible (varint), puis une suite d'instructions
+ * COPY (offset, longueur dans la source) ou ADD (longueur, octets littéraux), terminée par END
+ */
+public final class BinaryDelta {
+
+    private static final byte[] MAGIC = {'A', 'N', 'G', 'D'};
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int OP_END = 0;
+    private static final int OP_COPY = 1;
+    private static final int OP_ADD = 2;
+
+    // Taille des blocs indexés dans la source
+    private static final int BLOCK_SIZE = 16;
+    private static final long HASH_BASE = 257;
+
+    private BinaryDelta() {
+    }
+
+    /**
+     * Calcule le différentiel permettant de reconstruire target à partir de source
+     */
+    public static byte[] encode(byte[] source, byte[] target) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, target.length / 8));
+        out.writeBytes(MAGIC);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, target.length);
+
+        Map<Long, Integer> blocks = indexBlocks(source);
+        long highPower = power(BLOCK_SIZE - 1);
+
+        int literalStart = 0;
+        int position = 0;
+        long hash = target.length >= BLOCK_SIZE ? hash(target, 0) : 0;
+
+        while (position + BLOCK_SIZE <= target.length) {
+            Integer candidate = blocks.get(hash);
+            if (candidate != null && regionMatches(source, candidate, target, position, BLOCK_SIZE)) {
+                int sourceStart = candidate;
+                int targetStart = position;
+
+                // Étendre la correspondance vers l'arrière, dans les octets littéraux en attente
+                while (targetStart > literalStart && sourceStart > 0
+                        && source[sourceStart - 1] == target[targetStart - 1]) {
+                    sourceStart--;
+                    targetStart--;
+                }
+
+                // Puis vers l'avant
+                int length = position - targetStart + BLOCK_SIZE;
+                while (targetStart + length < target.length && sourceStart + length < source.length
+                        && source[sourceStart + length] == target[targetStart + length]) {
+                    length++;
+                }
+
+                writeAdd(out, target, literalStart, targetStart - literalStart);
+                writeCopy(out, sourceStart, length);
+
+                position = targetStart + length;
+                literalStart = position;
+                if (position + BLOCK_SIZE <= target.length) {
+                    hash = hash(target, position);
+                }
+                continue;
+            }
+
+            // Hachage glissant vers la position suivante
+            if (position + BLOCK_SIZE < target.length) {
+                hash = (hash - (target[position] & 0xFF) * highPower) * HASH_BASE
+                        + (target[position + BLOCK_SIZE] & 0xFF);
+            }
+            position++;
+        }
+
+        writeAdd(out, target, literalStart, target.length - literalStart);
+        out.write(OP_END);
+        return out.toByteArray();
+    }
+
+    /**
+     * Applique un différentiel à la source
+     */
+    public static byte[] apply(byte[] source, byte[] patch) throws IOException {
+        if (patch.length < MAGIC.length + 1
+                || !Arrays.equals(Arrays.copyOf(patch, MAGIC.length), MAGIC)
+                || patch[MAGIC.length] != FORMAT_VERSION) {
+            throw new IOException("Invalid delta header");
+        }
+
+        int[] cursor = {MAGIC.length + 1};
+        int targetLength = (int) readVarint(patch, cursor);
+        byte[] target = new byte[targetLength];
+        int written = 0;
+
+        while (true) {
+            if (cursor[0] >= patch.length) {
+                throw new IOException("Truncated delta");
+            }
+            int op = patch[cursor[0]++];
+            if (op == OP_END) {
+                break;
+            }
+
+            if (op == OP_COPY) {
+                int offset = (int) readVarint(patch, cursor);
+                int length = (int) readVarint(patch, cursor);
+                if (offset + length > source.length || written + length > targetLength) {
+                    throw new IOException("Delta COPY out of bounds");
+                }
+                System.arraycopy(source, offset, target, written, length);
+                written += length;
+            } else if (op == OP_ADD) {
+                int length = (int) readVarint(patch, cursor);
+                if (cursor[0] + length > patch.length || written + length > targetLength) {
+                    throw new IOException("Delta ADD out of bounds");
+                }
+                System.arraycopy(patch, cursor[0], target, written, length);
+                cursor[0] += length;
+                written += length;
+            } else {
+                throw new IOException("Unknown delta instruction: " + op);
+            }
+        }
+
+        if (written != targetLength) {
+            throw new IOException("Delta produced " + written + " bytes, expected " + targetLength);
+        }
+        return target;
+    }
+
+    private static Map<Long, Integer> indexBlocks(byte[] source) {
+        Map<Long, Integer> blocks = new HashMap<>(Math.max(16, source.length / BLOCK_SIZE * 2));
+        for (int offset = 0; offset + BLOCK_SIZE <= source.length; offset += BLOCK_SIZE) {
+            blocks.putIfAbsent(hash(source, offset), offset);
+        }
+        return blocks;
+    }
+
+    private static long hash(byte[] data, int offset) {
+        long hash = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            hash = hash * HASH_BASE + (data[offset + i] & 0xFF);
+        }
+        return hash;
+    }
+
+    private static long power(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= HASH_BASE;
+        }
+        return result;
+    }
+
+    private static boolean regionMatches(byte[] source, int sourceOffset, byte[] target, int targetOffset, int length) {
+        return Arrays.equals(source, sourceOffset, sourceOffset + length, target, targetOffset, targetOffset + length);
+    }
+
+    private static void writeAdd(ByteArrayOutputStream out, byte[] data, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        out.write(OP_ADD);
+        writeVarint(out, length);
+        out.write(data, offset, length);
+    }
+
+    private static void writeCopy(ByteArrayOutputStream out, int offset, int length) {
+        out.write(OP_COPY);
+        writeVarint(out, offset);
+        writeVarint(out, length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] cursor) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (shift < 64) {
+            if (cursor[0] >= data.length) {
+                throw new IOException("Truncated varint");
+            }
+            int b = data[cursor[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,126 @@
+package com.angel.update.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Diffusion des invalidations du cache L1 à tous les pods via Redis pub/sub
+ * Le pod émetteur a déjà invalidé ses deux niveaux ; les autres ne vident que leur L1
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final TieredCache tieredCache;
+    private final VersioningService versioningService;
+
+    @Value("${angel.cache.invalidation.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${angel.cache.invalidation.channel:angel:cache:invalidations}")
+    private String channel = "angel:cache:invalidations";
+
+    // Identifiant du pod, pour ignorer ses propres messages
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Invalidation diffusée : caches L1 à vider entièrement et/ou motif de clés
+     * catalogChanged demande aux pods de relire les versions avant de recalculer leurs réponses
+     */
+    public record Invalidation(String origin, List<String> cacheNames, String pattern,
+                               boolean all, boolean catalogChanged) {
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+            log.info("Cache invalidation bus listening on {}", channel);
+        }
+    }
+
+    /**
+     * Diffuse le vidage de caches L1 et des clés correspondant au motif
+     */
+    public void publish(List<String> cacheNames, String pattern) {
+        send(new Invalidation(instanceId, cacheNames, pattern, false, false));
+    }
+
+    /**
+     * Diffuse l'invalidation des réponses d'une région après une nouvelle version
+     */
+    public void publishVersionChange(String pattern) {
+        send(new Invalidation(instanceId, List.of(), pattern, false, true));
+    }
+
+    /**
+     * Diffuse le vidage complet des caches L1
+     */
+    public void publishAll() {
+        send(new Invalidation(instanceId, List.of(), null, true, false));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Invalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), Invalidation.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+        if (instanceId.equals(invalidation.origin())) {
+            return;
+        }
+        apply(invalidation);
+    }
+
+    /**
+     * Applique une invalidation reçue d'un autre pod
+     */
+    void apply(Invalidation invalidation) {
+        if (invalidation.catalogChanged()) {
+            // Sinon la réponse serait recalculée avec l'ancienne version jusqu'au prochain rafraîchissement
+            versioningService.refreshCatalog();
+        }
+        if (invalidation.all()) {
+            tieredCache.clearAllLocal();
+        } else {
+            if (invalidation.cacheNames() != null) {
+                tieredCache.clearLocal(invalidation.cacheNames().toArray(String[]::new));
+            }
+            if (invalidation.pattern() != null) {
+                tieredCache.invalidateLocalMatching(invalidation.pattern());
+            }
+        }
+        log.debug("Applied cache invalidation from {}: {}", invalidation.origin(), invalidation);
+    }
+
+    private void send(Invalidation invalidation) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(invalidation));
+        } catch (Exception e) {
+            // Les autres pods retrouveront des données fraîches à l'expiration de leur L1
+            log.warn("Could not broadcast cache invalidation: {}", invalidation, e);
+        }
+    }
+}
@@ -1,28 +1,38 @@
 package com.angel.update.service;
 
 import com.angel.update.model.UpdateResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JavaType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service de cache multi-niveaux (L1: Caffeine, L2: Redis)
+ * Les deux niveaux sont gérés explicitement par {@link TieredCache} ;
+ * les invalidations sont diffusées aux autres pods par {@link CacheInvalidationBus}
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CacheService {
     
+    private final TieredCache tieredCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
     private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    
+    // Noms des caches L1, associés aux specs Caffeine de la configuration
+    static final String UPDATE_RESPONSES = "updateResponses";
+    static final String CONTENTS = "contents";
+    static final String NEWS = "news";
+    static final String WEATHER = "weather";
     
     // TTL par défaut pour les différents types de cache
     private static final Duration DEFAULT_UPDATE_RESPONSE_TTL = Duration.ofHours(1);
@@ -31,41 +41,34 @@ public class CacheService {
     private static final Duration DEFAULT_WEATHER_TTL = Duration.ofMinutes(10);
     
     /**
-     * Cache de niveau 1 (Caffeine) pour les réponses de mise à jour
+     * Réponse de mise à jour en cache, lue en L1 puis en L2
      */
-    @Cacheable(value = "updateResponses", key = "#cacheKey")
     public UpdateResponse getUpdateResponse(String cacheKey) {
-        // Si pas en cache L1, vérifier le cache L2 (Redis)
-        return getFromRedis(cacheKey, UpdateResponse.class);
+        return tieredCache.get(UPDATE_RESPONSES, cacheKey, UpdateResponse.class);
     }
     
     /**
      * Met en cache une réponse de mise à jour
      */
-    @CachePut(value = "updateResponses", key = "#cacheKey")
     public UpdateResponse putUpdateResponse(String cacheKey, UpdateResponse response) {
-        // Mettre également en cache L2 (Redis)
-        putInRedis(cacheKey, response, DEFAULT_UPDATE_RESPONSE_TTL);
+        tieredCache.put(UPDATE_RESPONSES, cacheKey, response, DEFAULT_UPDATE_RESPONSE_TTL);
         return response;
     }
     
     /**
-     * Cache pour les contenus par type
+     * Cache pour les contenus par type, décodé vers le type attendu
      */
-    @Cacheable(value = "contents", key = "#contentType + '-' + #countryCode + '-' + #regionCode")
-    public Object getContentCache(String contentType, String countryCode, String regionCode) {
+    public <T> T getContentCache(String contentType, String countryCode, String regionCode, JavaType type) {
         String cacheKey = buildContentCacheKey(contentType, countryCode, regionCode);
-        return getFromRedis(cacheKey, Object.class);
+        return tieredCache.get(CONTENTS, cacheKey, type);
     }
     
     /**
      * Met en cache du contenu
      */
-    @CachePut(value = "contents", key = "#contentType + '-' + #countryCode + '-' + #regionCode")
     public Object putContentCache(String contentType, String countryCode, String regionCode, Object content) {
         String cacheKey = buildContentCacheKey(contentType, countryCode, regionCode);
-        Duration ttl = getContentTTL(contentType);
-        putInRedis(cacheKey, content, ttl);
+        tieredCache.put(CONTENTS, cacheKey, content, getContentTTL(contentType));
         return content;
     }
     
@@ -73,63 +76,126 @@ public class CacheService {
      * Cache spécialisé pour les actualités
      */
     public void cacheNews(String countryCode, String regionCode, Object newsData) {
-        String cacheKey = "news:" + countryCode + ":" + (regionCode != null ? regionCode : "national");
-        putInRedis(cacheKey, newsData, DEFAULT_NEWS_TTL);
+        String cacheKey = buildRegionalCacheKey("news", countryCode, regionCode);
+        tieredCache.put(NEWS, cacheKey, newsData, DEFAULT_NEWS_TTL);
         log.debug("Cached news for {}", cacheKey);
     }
     
-    public Object getCachedNews(String countryCode, String regionCode) {
-        String cacheKey = "news:" + countryCode + ":" + (regionCode != null ? regionCode : "national");
-        return getFromRedis(cacheKey, Object.class);
+    public <T> T getCachedNews(String countryCode, String regionCode, JavaType type) {
+        String cacheKey = buildRegionalCacheKey("news", countryCode, regionCode);
+        return tieredCache.get(NEWS, cacheKey, type);
     }
     
     /**
      * Cache spécialisé pour la météo
      */
     public void cacheWeather(String countryCode, String regionCode, Object weatherData) {
-        String cacheKey = "weather:" + countryCode + ":" + (regionCode != null ? regionCode : "national");
-        putInRedis(cacheKey, weatherData, DEFAULT_WEATHER_TTL);
+        String cacheKey = buildRegionalCacheKey("weather", countryCode, regionCode);
+        tieredCache.put(WEATHER, cacheKey, weatherData, DEFAULT_WEATHER_TTL);
         log.debug("Cached weather for {}", cacheKey);
     }
     
-    public Object getCachedWeather(String countryCode, String regionCode) {
-        String cacheKey = "weather:" + countryCode + ":" + (regionCode != null ? regionCode : "national");
-        return getFromRedis(cacheKey, Object.class);
+    public <T> T getCachedWeather(String countryCode, String regionCode, JavaType type) {
+        String cacheKey = buildRegionalCacheKey("weather", countryCode, regionCode);
+        return tieredCache.get(WEATHER, cacheKey, type);
+    }
+    
+    /**
+     * Météo en cache de plusieurs régions d'un pays, lue en un seul aller-retour Redis
+     * Le résultat est indexé par code de région (« national » pour le pays) ; les absentes n'y figurent pas
+     */
+    public <T> Map<String, T> getCachedWeather(String countryCode, Collection<String> regionCodes, JavaType type) {
+        Map<String, String> regionsByKey = new LinkedHashMap<>();
+        for (String regionCode : regionCodes) {
+            regionsByKey.put(buildRegionalCacheKey("weather", countryCode, regionCode),
+                    regionCode != null ? regionCode : "national");
+        }
+        
+        Map<String, T> weatherByRegion = new LinkedHashMap<>();
+        tieredCache.<T>getAll(WEATHER, regionsByKey.keySet(), type)
+                .forEach((cacheKey, weather) -> weatherByRegion.put(regionsByKey.get(cacheKey), weather));
+        return weatherByRegion;
+    }
+    
+    /**
+     * Met en cache un lot d'entrées, écrites dans Redis en un seul pipeline
+     * Chaque entrée garde le TTL de son type (voir {@link #newsEntry}, {@link #weatherEntry})
+     */
+    public void cacheAll(List<TieredCache.Entry> entries) {
+        tieredCache.putAll(entries);
+        log.debug("Cached {} entries in one batch", entries.size());
+    }
+    
+    /**
+     * Entrée de lot pour les actualités d'un pays ou d'une région
+     */
+    public static TieredCache.Entry newsEntry(String countryCode, String regionCode, Object newsData) {
+        return new TieredCache.Entry(NEWS, buildRegionalCacheKey("news", countryCode, regionCode),
+                newsData, DEFAULT_NEWS_TTL);
+    }
+    
+    /**
+     * Entrée de lot pour la météo d'un pays ou d'une région
+     */
+    public static TieredCache.Entry weatherEntry(String countryCode, String regionCode, Object weatherData) {
+        return new TieredCache.Entry(WEATHER, buildRegionalCacheKey("weather", countryCode, regionCode),
+                weatherData, DEFAULT_WEATHER_TTL);
     }
     
     /**
      * Vide le cache par pattern
      */
-    @CacheEvict(value = {"updateResponses", "contents"}, allEntries = true)
     public void evictCache(String pattern) {
-        if (pattern != null && !pattern.isEmpty()) {
-            // Supprimer du cache Redis par pattern
-            evictFromRedis(pattern);
+        tieredCache.clearLocal(UPDATE_RESPONSES, CONTENTS);
+        String keyPattern = pattern != null && !pattern.isEmpty() ? pattern : null;
+        if (keyPattern != null) {
+            tieredCache.evictMatching(keyPattern);
         }
+        cacheInvalidationBus.publish(List.of(UPDATE_RESPONSES, CONTENTS), keyPattern);
         log.info("Cache evicted for pattern: {}", pattern);
     }
     
+    /**
+     * Vide le cache des contenus, sur tous les pods
+     */
+    public void evictContentCache() {
+        tieredCache.clearLocal(CONTENTS);
+        tieredCache.evictMatching("content:*");
+        cacheInvalidationBus.publish(List.of(CONTENTS), null);
+        log.info("Content cache evicted");
+    }
+    
     /**
      * Vide tout le cache
      */
-    @CacheEvict(value = {"updateResponses", "contents", "news", "weather"}, allEntries = true)
     public void evictAllCache() {
-        // Vider aussi Redis
-        try {
-            redisTemplate.getConnectionFactory().getConnection().flushDb();
-            log.info("All caches evicted");
-        } catch (Exception e) {
-            log.warn("Error flushing Redis cache", e);
-        }
+        tieredCache.evictAll();
+        cacheInvalidationBus.publishAll();
+        log.info("All caches evicted");
+    }
+    
+    /**
+     * Invalide les réponses de mise à jour de la région sur tous les pods
+     */
+    @EventListener
+    public void onVersionUpdated(VersionUpdatedEvent event) {
+        String pattern = String.format("update:%s:%s:*",
+                event.getCountryCode(),
+                event.getRegionCode() != null ? event.getRegionCode() : "national");
+        tieredCache.evictMatching(pattern);
+        cacheInvalidationBus.publishVersionChange(pattern);
+        log.debug("Update responses invalidated for pattern: {}", pattern);
     }
     
     /**
      * Obtient les statistiques du cache
      */
     public CacheStats getCacheStats() {
-        // Implementation basique - à améliorer avec les vraies métriques Caffeine
+        var updateStats = tieredCache.localStats(UPDATE_RESPONSES);
         return CacheStats.builder()
                 .redisConnected(isRedisConnected())
+                .updateResponseHitRate(updateStats != null ? updateStats.hitRate() : 0.0)
+                .pendingWrites(tieredCache.pendingWriteCount())
                 .build();
     }
     
@@ -148,36 +214,8 @@ public class CacheService {
     
     // Méthodes utilitaires privées
     
-    private <T> T getFromRedis(String key, Class<T> clazz) {
-        try {
-            String value = redisTemplate.opsForValue().get(key);
-            if (value != null) {
-                return objectMapper.readValue(value, clazz);
-            }
-        } catch (Exception e) {
-            log.warn("Error reading from Redis cache: {}", key, e);
-        }
-        return null;
-    }
-    
-    private void putInRedis(String key, Object value, Duration ttl) {
-        try {
-            String jsonValue = objectMapper.writeValueAsString(value);
-            redisTemplate.opsForValue().set(key, jsonValue, ttl.toSeconds(), TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.warn("Error writing to Redis cache: {}", key, e);
-        }
-    }
-    
-    private void evictFromRedis(String pattern) {
-        try {
-            var keys = redisTemplate.keys(pattern);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-            }
-        } catch (Exception e) {
-            log.warn("Error evicting from Redis cache with pattern: {}", pattern, e);
-        }
+    private static String buildRegionalCacheKey(String prefix, String countryCode, String regionCode) {
+        return prefix + ":" + countryCode + ":" + (regionCode != null ? regionCode : "national");
     }
     
     private String buildContentCacheKey(String contentType, String countryCode, String regionCode) {
@@ -200,9 +238,13 @@ public class CacheService {
      */
     public static class CacheStats {
         private final boolean redisConnected;
+        private final double updateResponseHitRate;
+        private final int pendingWrites;
         
-        private CacheStats(boolean redisConnected) {
+        private CacheStats(boolean redisConnected, double updateResponseHitRate, int pendingWrites) {
             this.redisConnected = redisConnected;
+            this.updateResponseHitRate = updateResponseHitRate;
+            this.pendingWrites = pendingWrites;
         }
         
         public static Builder builder() {
@@ -213,16 +255,36 @@ public class CacheService {
             return redisConnected;
         }
         
+        public double getUpdateResponseHitRate() {
+            return updateResponseHitRate;
+        }
+        
+        public int getPendingWrites() {
+            return pendingWrites;
+        }
+        
         public static class Builder {
             private boolean redisConnected;
+            private double updateResponseHitRate;
+            private int pendingWrites;
             
             public Builder redisConnected(boolean redisConnected) {
                 this.redisConnected = redisConnected;
                 return this;
             }
             
+            public Builder updateResponseHitRate(double updateResponseHitRate) {
+                this.updateResponseHitRate = updateResponseHitRate;
+                return this;
+            }
+            
+            public Builder pendingWrites(int pendingWrites) {
+                this.pendingWrites = pendingWrites;
+                return this;
+            }
+            
             public CacheStats build() {
-                return new CacheStats(redisConnected);
+                return new CacheStats(redisConnected, updateResponseHitRate, pendingWrites);
             }
         }
     }
@@ -0,0 +1,166 @@
+package com.angel.update.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodage des valeurs stockées dans Redis
+ * Une valeur encodée commence par un en-tête [MAGIC, format, compression] ;
+ * les valeurs sans en-tête sont du JSON texte écrit avant l'introduction du codec
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheValueCodec {
+
+    // Octet impossible en tête d'un document JSON UTF-8
+    static final byte MAGIC = (byte) 0xAC;
+
+    private static final int HEADER_LENGTH = 3;
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte DEFLATED = 1;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${angel.cache.codec.format:SMILE}")
+    private Format format = Format.SMILE;
+
+    // Taille à partir de laquelle la valeur encodée est compressée, 0 pour désactiver
+    @Value("${angel.cache.codec.compression-threshold:1024}")
+    private int compressionThreshold = 1024;
+
+    private ObjectMapper smileMapper;
+
+    /**
+     * Formats d'encodage, identifiés par l'octet stocké dans l'en-tête
+     */
+    public enum Format {
+        JSON((byte) 1),
+        SMILE((byte) 2);
+
+        private final byte id;
+
+        Format(byte id) {
+            this.id = id;
+        }
+
+        static Format fromId(byte id) {
+            for (Format format : values()) {
+                if (format.id == id) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cache value format: " + id);
+        }
+    }
+
+    @PostConstruct
+    public void initialize() {
+        // Noms de champs et petites chaînes partagés : les listes d'articles se répètent beaucoup
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        smileMapper = objectMapper.copyWith(smileFactory);
+        log.info("Cache value codec: {} (compression above {} bytes)", format, compressionThreshold);
+    }
+
+    /**
+     * Encode une valeur avec le format configuré
+     */
+    public byte[] encode(Object value) throws IOException {
+        byte[] payload = mapperFor(format).writeValueAsBytes(value);
+        byte compression = UNCOMPRESSED;
+        if (compressionThreshold > 0 && payload.length >= compressionThreshold) {
+            byte[] deflated = deflate(payload);
+            // Une valeur déjà dense peut grossir à la compression
+            if (deflated.length < payload.length) {
+                payload = deflated;
+                compression = DEFLATED;
+            }
+        }
+
+        byte[] encoded = new byte[HEADER_LENGTH + payload.length];
+        encoded[0] = MAGIC;
+        encoded[1] = format.id;
+        encoded[2] = compression;
+        System.arraycopy(payload, 0, encoded, HEADER_LENGTH, payload.length);
+        return encoded;
+    }
+
+    /**
+     * Décode une valeur vers le type attendu, quel que soit le format utilisé à l'écriture
+     */
+    public <T> T decode(byte[] encoded, JavaType type) throws IOException {
+        if (encoded.length < HEADER_LENGTH || encoded[0] != MAGIC) {
+            return objectMapper.readValue(encoded, type);
+        }
+
+        Format encodedFormat = Format.fromId(encoded[1]);
+        byte[] payload = encoded[2] == DEFLATED
+                ? inflate(encoded, HEADER_LENGTH)
+                : Arrays.copyOfRange(encoded, HEADER_LENGTH, encoded.length);
+        return mapperFor(encodedFormat).readValue(payload, type);
+    }
+
+    /**
+     * Type Jackson d'une classe, pour les appels de décodage
+     */
+    public JavaType typeOf(Class<?> type) {
+        return objectMapper.getTypeFactory().constructType(type);
+    }
+
+    private ObjectMapper mapperFor(Format format) {
+        return format == Format.SMILE ? smileMapper : objectMapper;
+    }
+
+    private byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] data, int offset) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((data.length - offset) * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed cache value");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed cache value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
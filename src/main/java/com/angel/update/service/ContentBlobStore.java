@@ -0,0 +1,364 @@
+package com.angel.update.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Stockage adressé par contenu des entrées de package pré-compressées
+ * Chaque blob est identifié par le SHA-256 du fichier source (le même que Content.checksum) :
+ * un fichier partagé par plusieurs régions n'est compressé qu'une seule fois
+ */
+@Service
+@Slf4j
+public class ContentBlobStore {
+
+    @Value("${angel.update.blob.base-path:/data/blobs}")
+    private String blobBasePath = "/data/blobs";
+
+    @Value("${angel.update.compression-level:6}")
+    private int compressionLevel = 6;
+
+    // Taille maximale d'un fichier pour le calcul d'un différentiel (chargé en mémoire)
+    @Value("${angel.update.delta.max-file-size:8388608}")
+    private long maxDeltaFileSize = 8388608L;
+
+    private static final int MAGIC = 0x414E4742; // "ANGB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 4 + 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String BLOB_EXTENSION = ".blob";
+    private static final String DELTA_EXTENSION = ".delta";
+    private static final int MAX_UNPROFITABLE_DELTAS = 10000;
+    private static final int MAX_INDEXED_SOURCES = 50000;
+
+    // Correspondance fichier source -> checksum, valide tant que taille et date sont inchangées ;
+    // vidée à MAX_INDEXED_SOURCES entrées, un fichier oublié est simplement relu
+    private final Map<Path, SourceEntry> sourceIndex = new ConcurrentHashMap<>();
+
+    // Différentiels plus volumineux que le fichier complet, à ne pas recalculer
+    private final Set<String> unprofitableDeltas = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Blob compressé prêt à être copié dans une archive
+     */
+    public static class Blob {
+        private final Path path;
+        private final String checksum;
+        private final int method;
+        private final long crc;
+        private final long size;
+        private final long compressedSize;
+
+        Blob(Path path, String checksum, int method, long crc, long size, long compressedSize) {
+            this.path = path;
+            this.checksum = checksum;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.compressedSize = compressedSize;
+        }
+
+        public String getChecksum() { return checksum; }
+        public int getMethod() { return method; }
+        public long getCrc() { return crc; }
+        public long getSize() { return size; }
+        public long getCompressedSize() { return compressedSize; }
+
+        /**
+         * Lit le contenu décompressé
+         */
+        public byte[] readContent() throws IOException {
+            try (InputStream is = Files.newInputStream(path)) {
+                is.skipNBytes(HEADER_SIZE);
+                InputStream content = method == ZipEntry.DEFLATED
+                        ? new InflaterInputStream(is, new Inflater(true), BUFFER_SIZE)
+                        : is;
+                return content.readAllBytes();
+            }
+        }
+
+        /**
+         * Copie les données compressées, sans décompression
+         */
+        public void copyTo(OutputStream out) throws IOException {
+            try (InputStream is = Files.newInputStream(path)) {
+                is.skipNBytes(HEADER_SIZE);
+                is.transferTo(out);
+            }
+        }
+    }
+
+    /**
+     * Enregistre un fichier source dont le checksum est déjà connu (ex : à l'upload)
+     */
+    public Blob register(String checksum, Path source) throws IOException {
+        Blob blob = checksum != null && !checksum.isEmpty() ? find(checksum) : null;
+        if (blob != null) {
+            indexSource(source, checksum);
+            return blob;
+        }
+        return getOrCreate(source);
+    }
+
+    /**
+     * Retourne le blob d'un fichier source, en le créant si nécessaire
+     */
+    public Blob getOrCreate(Path source) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        SourceEntry known = sourceIndex.get(source);
+        if (known != null && known.matches(attributes)) {
+            Blob blob = find(known.checksum);
+            if (blob != null) {
+                return blob;
+            }
+        }
+        return ingest(source, attributes, compressionLevel);
+    }
+
+    /**
+     * Recherche un blob par checksum
+     */
+    public Blob find(String checksum) throws IOException {
+        Path blobPath = getBlobPath(checksum);
+        if (!Files.exists(blobPath)) {
+            return null;
+        }
+        return readBlob(blobPath, checksum);
+    }
+
+    /**
+     * Retourne le différentiel compressé de baseChecksum vers target,
+     * ou null s'il n'est pas plus petit que le fichier complet
+     */
+    public Blob getOrCreateDelta(String baseChecksum, Blob target) throws IOException {
+        String deltaKey = baseChecksum + "-" + target.getChecksum();
+        Path deltaPath = Paths.get(blobBasePath, baseChecksum.substring(0, 2), deltaKey + DELTA_EXTENSION);
+        if (Files.exists(deltaPath)) {
+            return readBlob(deltaPath, deltaKey);
+        }
+        if (unprofitableDeltas.contains(deltaKey)) {
+            return null;
+        }
+
+        Blob base = find(baseChecksum);
+        if (base == null || base.getSize() > maxDeltaFileSize || target.getSize() > maxDeltaFileSize) {
+            return null;
+        }
+
+        byte[] patch = BinaryDelta.encode(base.readContent(), target.readContent());
+        CRC32 crc = new CRC32();
+        crc.update(patch);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(patch.length / 2 + 64);
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(compressed, deflater)) {
+            dos.write(patch);
+        } finally {
+            deflater.end();
+        }
+
+        int method = compressed.size() < patch.length ? ZipEntry.DEFLATED : ZipEntry.STORED;
+        byte[] data = method == ZipEntry.DEFLATED ? compressed.toByteArray() : patch;
+
+        // Repli sur le fichier complet quand le différentiel n'est pas rentable
+        if (data.length >= target.getCompressedSize()) {
+            if (unprofitableDeltas.size() >= MAX_UNPROFITABLE_DELTAS) {
+                unprofitableDeltas.clear();
+            }
+            unprofitableDeltas.add(deltaKey);
+            return null;
+        }
+
+        Files.createDirectories(deltaPath.getParent());
+        Path tempPath = Files.createTempFile(deltaPath.getParent(), deltaKey, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tempPath))) {
+                out.writeInt(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+                out.writeByte(method);
+                out.writeInt((int) crc.getValue());
+                out.writeLong(patch.length);
+                out.write(data);
+            }
+            try {
+                Files.move(tempPath, deltaPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, deltaPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+
+        log.debug("Stored delta {} ({} -> {} bytes)", deltaKey, target.getCompressedSize(), data.length);
+        return new Blob(deltaPath, deltaKey, method, crc.getValue(), patch.length, data.length);
+    }
+
+    /**
+     * Compresse le fichier source en une seule lecture, en calculant checksum et CRC au passage
+     * Le repli STORED, rare, relit la source plutôt que d'en garder une copie brute à chaque ingestion
+     */
+    private Blob ingest(Path source, BasicFileAttributes attributes, int compressionLevel) throws IOException {
+        Path baseDir = Paths.get(blobBasePath);
+        Files.createDirectories(baseDir);
+        Path tempPath = Files.createTempFile(baseDir, "ingest", ".tmp");
+
+        try {
+            MessageDigest digest = newSha256();
+            CRC32 crc = new CRC32();
+            long size;
+
+            Deflater deflater = new Deflater(compressionLevel, true);
+            try (InputStream is = new CheckedInputStream(
+                         new DigestInputStream(Files.newInputStream(source), digest), crc);
+                 OutputStream fos = new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE)) {
+
+                // En-tête réservé, complété une fois les valeurs connues
+                fos.write(new byte[HEADER_SIZE]);
+                DeflaterOutputStream dos = new DeflaterOutputStream(fos, deflater, BUFFER_SIZE);
+                size = is.transferTo(dos);
+                dos.finish();
+            } finally {
+                deflater.end();
+            }
+
+            String checksum = bytesToHex(digest.digest());
+            long compressedSize = Files.size(tempPath) - HEADER_SIZE;
+            int method = ZipEntry.DEFLATED;
+
+            // Les petits fichiers peuvent grossir à la compression : les stocker tels quels
+            if (compressedSize >= size) {
+                method = ZipEntry.STORED;
+                compressedSize = size;
+                writeStored(source, tempPath, checksum);
+            }
+            writeHeader(tempPath, method, crc.getValue(), size);
+
+            indexSource(source, checksum, attributes);
+
+            // Contenu déjà présent (autre région, autre fichier) : le blob existant fait foi
+            Path blobPath = getBlobPath(checksum);
+            Blob existing = find(checksum);
+            if (existing != null) {
+                return existing;
+            }
+
+            Files.createDirectories(blobPath.getParent());
+            try {
+                Files.move(tempPath, blobPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, blobPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.debug("Stored blob {} ({} -> {} bytes)", checksum, size, compressedSize);
+
+            return new Blob(blobPath, checksum, method, crc.getValue(), size, compressedSize);
+
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Remplace le blob temporaire par les octets bruts de la source, relue sur disque
+     * La source ne doit pas avoir changé depuis la lecture qui a produit checksum
+     */
+    private void writeStored(Path source, Path tempPath, String checksum) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream is = new DigestInputStream(Files.newInputStream(source), digest);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE)) {
+            out.write(new byte[HEADER_SIZE]);
+            is.transferTo(out);
+        }
+        if (!checksum.equals(bytesToHex(digest.digest()))) {
+            throw new IOException("Source file changed while being stored: " + source);
+        }
+    }
+
+    private void writeHeader(Path blobPath, int method, long crc, long size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(blobPath.toFile(), "rw")) {
+            file.writeInt(MAGIC);
+            file.writeByte(FORMAT_VERSION);
+            file.writeByte(method);
+            file.writeInt((int) crc);
+            file.writeLong(size);
+        }
+    }
+
+    private Blob readBlob(Path blobPath, String checksum) throws IOException {
+        try (DataInputStream is = new DataInputStream(Files.newInputStream(blobPath))) {
+            if (is.readInt() != MAGIC || is.readUnsignedByte() != FORMAT_VERSION) {
+                log.warn("Ignoring corrupted blob: {}", blobPath);
+                return null;
+            }
+            int method = is.readUnsignedByte();
+            long crc = is.readInt() & 0xFFFFFFFFL;
+            long size = is.readLong();
+            long compressedSize = Files.size(blobPath) - HEADER_SIZE;
+            return new Blob(blobPath, checksum, method, crc, size, compressedSize);
+        }
+    }
+
+    private void indexSource(Path source, String checksum) throws IOException {
+        indexSource(source, checksum, Files.readAttributes(source, BasicFileAttributes.class));
+    }
+
+    private void indexSource(Path source, String checksum, BasicFileAttributes attributes) {
+        if (sourceIndex.size() >= MAX_INDEXED_SOURCES && !sourceIndex.containsKey(source)) {
+            sourceIndex.clear();
+        }
+        sourceIndex.put(source, new SourceEntry(checksum, attributes.size(), attributes.lastModifiedTime().toMillis()));
+    }
+
+    private Path getBlobPath(String checksum) {
+        return Paths.get(blobBasePath, checksum.substring(0, 2), checksum + BLOB_EXTENSION);
+    }
+
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String bytesToHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder();
+        for (byte b : bytes) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+    private static class SourceEntry {
+        private final String checksum;
+        private final long size;
+        private final long lastModified;
+
+        SourceEntry(String checksum, long size, long lastModified) {
+            this.checksum = checksum;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+        }
+    }
+}
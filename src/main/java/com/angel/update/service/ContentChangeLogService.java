@@ -0,0 +1,245 @@
+package com.angel.update.service;
+
+import com.angel.update.model.Content;
+import com.angel.update.model.ContentChange;
+import com.angel.update.repository.ContentChangeRepository;
+import com.angel.update.repository.RegionVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Service du journal des modifications de contenu
+ * Les fichiers modifiés entre deux versions sont lus par séquence de version ;
+ * les dernières versions de chaque région sont gardées en mémoire
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentChangeLogService {
+
+    private final ContentChangeRepository contentChangeRepository;
+    private final RegionVersionRepository regionVersionRepository;
+
+    private static final int MAX_TAIL_VERSIONS = 8;
+
+    // Modifications des dernières versions publiées, par région puis par séquence
+    private final Map<String, NavigableMap<Long, List<Change>>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Fichiers à mettre à jour et à supprimer entre deux versions
+     */
+    public record ChangeSet(List<String> changedFiles, List<String> deletedFiles) {
+        public static final ChangeSet EMPTY = new ChangeSet(List.of(), List.of());
+    }
+
+    private record Change(String filePath, ContentChange.ChangeType type) {
+    }
+
+    /**
+     * Enregistre une modification, publiée avec la prochaine version de la région
+     * Un contenu régional apparaît aussi dans le catalogue national du pays
+     */
+    @Transactional
+    public void recordChange(String countryCode, String regionCode, String filePath, String checksum,
+                             ContentChange.ChangeType changeType) {
+        String region = normalizeRegion(regionCode);
+        contentChangeRepository.save(newChange(countryCode, region, filePath, checksum, changeType));
+        if (region != null) {
+            contentChangeRepository.save(newChange(countryCode, null, filePath, checksum, changeType));
+        }
+    }
+
+    /**
+     * Enregistre les modifications d'un lot de contenus en une seule insertion groupée
+     */
+    @Transactional
+    public void recordChanges(List<Content> contents, ContentChange.ChangeType changeType) {
+        List<ContentChange> changes = new ArrayList<>(contents.size() * 2);
+        for (Content content : contents) {
+            String region = normalizeRegion(content.getRegionCode());
+            changes.add(newChange(content.getCountryCode(), region, content.getFilePath(),
+                    content.getChecksum(), changeType));
+            if (region != null) {
+                changes.add(newChange(content.getCountryCode(), null, content.getFilePath(),
+                        content.getChecksum(), changeType));
+            }
+        }
+        contentChangeRepository.saveAll(changes);
+    }
+
+    /**
+     * Rattache les modifications en attente à la version publiée
+     */
+    @Transactional
+    public int publish(String countryCode, String regionCode, long sequence) {
+        String region = normalizeRegion(regionCode);
+        int assigned = region != null
+                ? contentChangeRepository.assignRegionalSequence(countryCode, region, sequence)
+                : contentChangeRepository.assignNationalSequence(countryCode, sequence);
+
+        // La version publiée devient la fin du journal en mémoire, une fois la transaction validée
+        String regionKey = buildRegionKey(countryCode, region);
+        List<Change> changes = toChanges(findChanges(countryCode, region, sequence - 1, sequence));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheTail(regionKey, sequence, changes);
+                }
+            });
+        } else {
+            cacheTail(regionKey, sequence, changes);
+        }
+
+        log.info("Published {} content changes for {} at sequence {}", assigned, regionKey, sequence);
+        return assigned;
+    }
+
+    /**
+     * Calcule les fichiers modifiés et supprimés dans ]fromSequence, toSequence]
+     * La dernière modification d'un fichier l'emporte
+     */
+    @Transactional(readOnly = true)
+    public ChangeSet getChanges(String countryCode, String regionCode, long fromSequence, long toSequence) {
+        if (toSequence <= fromSequence) {
+            return ChangeSet.EMPTY;
+        }
+
+        String region = normalizeRegion(regionCode);
+        String regionKey = buildRegionKey(countryCode, region);
+
+        List<Change> changes = readTail(regionKey, fromSequence, toSequence);
+        if (changes == null) {
+            // Vérifié avant la lecture : une version validée a toutes ses modifications rattachées
+            boolean published = toSequence - fromSequence == 1 && isPublished(regionKey, toSequence);
+            changes = toChanges(findChanges(countryCode, region, fromSequence, toSequence));
+            if (published) {
+                cacheTail(regionKey, toSequence, changes);
+            }
+        }
+
+        Map<String, ContentChange.ChangeType> latest = new LinkedHashMap<>();
+        for (Change change : changes) {
+            latest.put(change.filePath(), change.type());
+        }
+
+        List<String> changedFiles = new ArrayList<>();
+        List<String> deletedFiles = new ArrayList<>();
+        latest.forEach((filePath, type) ->
+                (type == ContentChange.ChangeType.DELETE ? deletedFiles : changedFiles).add(filePath));
+        return new ChangeSet(changedFiles, deletedFiles);
+    }
+
+    /**
+     * Checksums des fichiers tels que publiés à une séquence, base des différentiels
+     * Un fichier absent, supprimé ou sans checksum enregistré n'a pas d'entrée
+     */
+    @Transactional(readOnly = true)
+    public Map<String, String> getChecksumsAt(String countryCode, String regionCode,
+                                              List<String> filePaths, long sequence) {
+        if (filePaths.isEmpty() || sequence <= 0) {
+            return Map.of();
+        }
+
+        String region = normalizeRegion(regionCode);
+        List<ContentChange> history = region != null
+                ? contentChangeRepository.findRegionalHistory(countryCode, region, filePaths, sequence)
+                : contentChangeRepository.findNationalHistory(countryCode, filePaths, sequence);
+
+        // Dernière modification de chaque fichier
+        Map<String, String> checksums = new HashMap<>();
+        for (ContentChange change : history) {
+            if (change.getChangeType() == ContentChange.ChangeType.UPSERT && change.getChecksum() != null) {
+                checksums.put(change.getFilePath(), change.getChecksum());
+            } else {
+                checksums.remove(change.getFilePath());
+            }
+        }
+        return checksums;
+    }
+
+    private List<ContentChange> findChanges(String countryCode, String region, long fromSequence, long toSequence) {
+        return region != null
+                ? contentChangeRepository.findRegionalChanges(countryCode, region, fromSequence, toSequence)
+                : contentChangeRepository.findNationalChanges(countryCode, fromSequence, toSequence);
+    }
+
+    /**
+     * Indique si la version de cette séquence est validée dans le catalogue
+     */
+    private boolean isPublished(String regionKey, long sequence) {
+        return regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc(regionKey)
+                .map(version -> version.getSequence() >= sequence)
+                .orElse(false);
+    }
+
+    /**
+     * Lit ]fromSequence, toSequence] en mémoire, ou null si une version manque
+     */
+    private List<Change> readTail(String regionKey, long fromSequence, long toSequence) {
+        NavigableMap<Long, List<Change>> tail = tails.get(regionKey);
+        if (tail == null) {
+            return null;
+        }
+
+        List<Change> changes = new ArrayList<>();
+        for (long sequence = fromSequence + 1; sequence <= toSequence; sequence++) {
+            List<Change> versionChanges = tail.get(sequence);
+            if (versionChanges == null) {
+                return null;
+            }
+            changes.addAll(versionChanges);
+        }
+        return changes;
+    }
+
+    private void cacheTail(String regionKey, long sequence, List<Change> changes) {
+        NavigableMap<Long, List<Change>> tail = tails.computeIfAbsent(regionKey, key -> new ConcurrentSkipListMap<>());
+        tail.put(sequence, changes);
+        while (tail.size() > MAX_TAIL_VERSIONS) {
+            tail.pollFirstEntry();
+        }
+    }
+
+    private List<Change> toChanges(List<ContentChange> contentChanges) {
+        return contentChanges.stream()
+                .map(change -> new Change(change.getFilePath(), change.getChangeType()))
+                .toList();
+    }
+
+    private ContentChange newChange(String countryCode, String regionCode, String filePath, String checksum,
+                                    ContentChange.ChangeType changeType) {
+        ContentChange change = new ContentChange();
+        change.setCountryCode(countryCode);
+        change.setRegionCode(regionCode);
+        change.setFilePath(filePath);
+        change.setChecksum(changeType == ContentChange.ChangeType.UPSERT ? checksum : null);
+        change.setChangeType(changeType);
+        change.setRecordedAt(LocalDateTime.now());
+        return change;
+    }
+
+    private String normalizeRegion(String regionCode) {
+        return regionCode != null && !regionCode.isEmpty() ? regionCode : null;
+    }
+
+    private String buildRegionKey(String countryCode, String regionCode) {
+        return regionCode != null && !regionCode.isEmpty()
+                ? countryCode + "-" + regionCode
+                : countryCode;
+    }
+}
@@ -0,0 +1,203 @@
+package com.angel.update.service;
+
+import com.angel.update.model.Content;
+import com.angel.update.model.ContentFingerprint;
+import com.angel.update.repository.ContentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Index des contenus déjà stockés, par chemin et checksum
+ * Un filtre de Bloom écarte sans requête les contenus nouveaux ; seuls les doublons
+ * probables sont confirmés en base
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContentChecksumIndex {
+
+    private final ContentRepository contentRepository;
+
+    @Value("${angel.update.dedup.expected-entries:100000}")
+    private int expectedEntries = 100000;
+
+    @Value("${angel.update.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Value("${angel.update.dedup.max-cached-paths:10000}")
+    private int maxCachedPaths = 10000;
+
+    private volatile BloomFilter bloomFilter;
+
+    // Dernière révision stockée par chemin, confirmée en base à chaque utilisation
+    private final Map<String, LatestRevision> latestRevisions = new ConcurrentHashMap<>();
+
+    private record LatestRevision(String checksum, Long id) {
+    }
+
+    /**
+     * Charge les contenus actifs dans le filtre
+     */
+    @PostConstruct
+    public void initialize() {
+        BloomFilter filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        bloomFilter = filter;
+        try {
+            int count = 0;
+            for (ContentFingerprint fingerprint : contentRepository.findActiveFingerprints()) {
+                filter.put(key(fingerprint.filePath(), fingerprint.checksum()));
+                count++;
+            }
+            log.info("Content checksum index loaded with {} active contents", count);
+        } catch (RuntimeException e) {
+            // Sans index, tous les contenus sont stockés
+            bloomFilter = null;
+            log.warn("Could not load content checksum index, deduplication disabled", e);
+        }
+    }
+
+    /**
+     * Indique si le contenu est identique à la dernière révision active de ce chemin
+     * La révision en mémoire évite la recherche par checksum, mais reste vérifiée par clé primaire :
+     * un autre pod a pu stocker une révision plus récente ou archiver celle-ci
+     */
+    public boolean isUnchanged(String filePath, String checksum) {
+        LatestRevision latest = latestRevisions.get(filePath);
+        if (latest != null && latest.checksum().equals(checksum)) {
+            if (latest.id() != null && contentRepository.isLatestActiveRevision(latest.id())) {
+                return true;
+            }
+            latestRevisions.remove(filePath, latest);
+        }
+        return findUnchanged(filePath, checksum).isPresent();
+    }
+
+    /**
+     * Cherche en base le contenu actif identique, dernière révision de ce chemin
+     */
+    public Optional<Content> findUnchanged(String filePath, String checksum) {
+        BloomFilter filter = bloomFilter;
+        if (filter == null || !filter.mightContain(key(filePath, checksum))) {
+            return Optional.empty();
+        }
+
+        Optional<Content> existing = contentRepository.findByChecksum(checksum).stream()
+                .filter(content -> filePath.equals(content.getFilePath()))
+                .filter(content -> content.getStatus() == Content.ContentStatus.ACTIVE)
+                .reduce((first, second) -> second.getId() > first.getId() ? second : first)
+                .filter(content -> !contentRepository.existsNewerActiveContent(filePath, content.getId()));
+        existing.ifPresent(content -> cacheLatest(filePath, checksum, content.getId()));
+        return existing;
+    }
+
+    /**
+     * Enregistre un contenu stocké, à la validation de la transaction en cours
+     */
+    public void record(String filePath, String checksum, Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index(filePath, checksum, id);
+                }
+            });
+        } else {
+            index(filePath, checksum, id);
+        }
+    }
+
+    /**
+     * Oublie la dernière révision d'un chemin (contenu archivé ou supprimé)
+     */
+    public void forget(String filePath) {
+        latestRevisions.remove(filePath);
+    }
+
+    private void index(String filePath, String checksum, Long id) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null) {
+            filter.put(key(filePath, checksum));
+        }
+        cacheLatest(filePath, checksum, id);
+    }
+
+    private void cacheLatest(String filePath, String checksum, Long id) {
+        if (latestRevisions.size() >= maxCachedPaths && !latestRevisions.containsKey(filePath)) {
+            latestRevisions.clear();
+        }
+        latestRevisions.put(filePath, new LatestRevision(checksum, id));
+    }
+
+    private String key(String filePath, String checksum) {
+        return filePath + '|' + checksum;
+    }
+
+    /**
+     * Filtre de Bloom concurrent, double hachage sur 64 bits
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedEntries, double falsePositiveRate) {
+            int entries = Math.max(1, expectedEntries);
+            long optimalBits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) Math.max(1, (optimalBits + 63) / 64));
+            this.bitCount = (long) bits.length() * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+        }
+
+        void put(String key) {
+            long hash1 = fnv1a(key);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(index);
+                } while ((current & mask) == 0 && !bits.compareAndSet(index, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash1 = fnv1a(key);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long fnv1a(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+            value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+            return (value ^ (value >>> 31)) | 1;
+        }
+    }
+}
@@ -1,21 +1,47 @@
 package com.angel.update.service;
 
 import com.angel.update.model.Content;
+import com.angel.update.model.ContentChange;
+import com.angel.update.model.ContentItem;
+import com.angel.update.model.ContentSummary;
 import com.angel.update.repository.ContentRepository;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,102 +55,445 @@ import java.util.stream.Collectors;
 public class ContentManagerService {
     
     private final ContentRepository contentRepository;
-    private final String baseDataPath = "/data";
+    private final ContentBlobStore contentBlobStore;
+    private final VersioningService versioningService;
+    private final ContentChangeLogService contentChangeLogService;
+    private final ContentChecksumIndex contentChecksumIndex;
+    private final CacheService cacheService;
+    private final TransactionOperations transactionOperations;
+    
+    private static final JavaType CONTENT_SUMMARY_LIST = TypeFactory.defaultInstance()
+            .constructCollectionType(List.class, ContentSummary.class);
+    
+    @Value("${angel.update.content.base-path:/data}")
+    private String baseDataPath = "/data";
+    
+    // Copie du corps en base, tronquée : le fichier sur disque fait foi
+    @Value("${angel.update.content.store-body:false}")
+    private boolean storeBody;
+    
+    @Value("${angel.update.content.max-body-length:65536}")
+    private int maxBodyLength = 65536;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${angel.update.ingest.batch-size:100}")
+    private int ingestBatchSize = 100;
+    
+    /**
+     * Résultat d'une ingestion en lot
+     */
+    public record IngestResult(int stored, int unchanged, int failed) {
+    }
+    
+    /**
+     * Fichier écrit à côté de sa cible, en attente de mise en place
+     */
+    private record StagedFile(Path tempFile, Path targetPath, String filePath, String checksum, long size) {
+        
+        void commit() throws IOException {
+            Files.move(tempFile, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        void discard() throws IOException {
+            Files.deleteIfExists(tempFile);
+        }
+    }
     
     /**
      * Upload un nouveau contenu
+     * Le fichier est lu en flux depuis la requête, sans être chargé en mémoire ;
+     * un contenu identique à la dernière révision du chemin n'est pas stocké à nouveau.
+     * Le fichier n'est mis en place qu'une fois la transaction validée
      */
     public Content uploadContent(MultipartFile file, String contentType, 
                                 String countryCode, String regionCode, 
                                 String tags, String priority) throws IOException {
         
-        // Construire le chemin du fichier
-        String filePath = buildFilePath(contentType, countryCode, regionCode, file.getOriginalFilename());
-        Path targetPath = Paths.get(baseDataPath, filePath);
-        
-        // Créer les répertoires si nécessaire
-        Files.createDirectories(targetPath.getParent());
-        
-        // Sauvegarder le fichier
-        Files.write(targetPath, file.getBytes());
-        
-        // Créer l'entité Content
-        Content content = new Content();
-        content.setContentType(contentType);
-        content.setCountryCode(countryCode);
-        content.setRegionCode(regionCode);
-        content.setLanguageCode(detectLanguage(countryCode));
-        content.setFilePath(filePath);
-        content.setContent(new String(file.getBytes()));
-        content.setFileSize(file.getSize());
-        content.setPriority(Content.ContentPriority.valueOf(priority));
-        content.setStatus(Content.ContentStatus.ACTIVE);
-        content.setPublishedAt(LocalDateTime.now());
+        ContentItem item = ContentItem.builder()
+                .contentType(contentType)
+                .countryCode(countryCode)
+                .regionCode(regionCode)
+                .fileName(file.getOriginalFilename())
+                .source(file::getInputStream)
+                .tags(parseTags(tags))
+                .priority(Content.ContentPriority.valueOf(priority))
+                .build();
         
-        // Ajouter les tags
-        if (tags != null && !tags.isEmpty()) {
-            Set<String> tagSet = Set.of(tags.split(","));
-            content.setTags(tagSet.stream()
-                    .map(String::trim)
-                    .collect(Collectors.toSet()));
+        Content content;
+        StagedFile staged = stage(item);
+        try {
+            Optional<Content> existing = contentChecksumIndex.findUnchanged(staged.filePath(), staged.checksum());
+            if (existing.isPresent()) {
+                log.info("Content unchanged, upload skipped: {}", staged.filePath());
+                staged.discard();
+                return existing.get();
+            }
+            content = toContent(item, staged);
+        } catch (IOException | RuntimeException e) {
+            discardQuietly(staged);
+            throw e;
         }
         
-        // Calculer le checksum
-        content.setChecksum(calculateChecksum(file.getBytes()));
-        
         // Sauvegarder en base
-        Content saved = contentRepository.save(content);
+        Content saved;
+        try {
+            saved = contentRepository.save(content);
+            contentChangeLogService.recordChange(countryCode, regionCode, content.getFilePath(), 
+                    content.getChecksum(), ContentChange.ChangeType.UPSERT);
+            contentChecksumIndex.record(saved.getFilePath(), saved.getChecksum(), saved.getId());
+        } catch (RuntimeException e) {
+            discardQuietly(staged);
+            throw e;
+        }
+        
+        // Un rollback laisse le fichier publié intact et abandonne le fichier écrit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        publishUpload(saved, staged);
+                    } else {
+                        discardQuietly(staged);
+                    }
+                }
+            });
+        } else {
+            publishUpload(saved, staged);
+        }
         
         log.info("Content uploaded successfully: {}", saved.getId());
         
         return saved;
     }
     
+    /**
+     * Met en place le fichier d'un upload validé et le pré-compresse pour l'assemblage des packages
+     */
+    private void publishUpload(Content content, StagedFile staged) {
+        try {
+            staged.commit();
+        } catch (IOException e) {
+            log.error("Stored content {} but could not move its file into place", content.getFilePath(), e);
+            discardQuietly(staged);
+            return;
+        }
+        registerBlob(content);
+    }
+    
+    /**
+     * Ingère un lot de contenus (collecteurs, upload multiple)
+     * Chaque fichier est écrit en flux avec son checksum en une seule passe ;
+     * les entités et le journal sont insérés par lots JDBC, sans corps en base, un lot par transaction.
+     * Les fichiers ne sont mis en place qu'une fois leur lot validé ;
+     * les contenus inchangés ne créent ni révision ni entrée de journal
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public IngestResult ingestContent(List<ContentItem> items) {
+        List<PendingContent> batch = new ArrayList<>(Math.min(items.size(), ingestBatchSize));
+        int stored = 0;
+        int unchanged = 0;
+        int failed = 0;
+        
+        for (ContentItem item : items) {
+            try {
+                PendingContent pending = stageItem(item);
+                if (pending == null) {
+                    unchanged++;
+                    continue;
+                }
+                batch.add(pending);
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                log.warn("Could not ingest content {} for {}-{}", 
+                        item.getFileName(), item.getCountryCode(), item.getRegionCode(), e);
+                continue;
+            }
+            if (batch.size() >= ingestBatchSize) {
+                int size = batch.size();
+                int flushed = flushBatch(batch);
+                stored += flushed;
+                failed += size - flushed;
+            }
+        }
+        int size = batch.size();
+        int flushed = flushBatch(batch);
+        stored += flushed;
+        failed += size - flushed;
+        
+        log.info("Ingested {} contents ({} unchanged, {} failed)", stored, unchanged, failed);
+        return new IngestResult(stored, unchanged, failed);
+    }
+    
     /**
      * Récupère les fichiers modifiés entre deux versions
+     * Un résultat vide n'est pas mis en cache : la version cible peut ne pas être encore publiée
      */
-    @Cacheable(value = "changedFiles", key = "#countryCode + '-' + #regionCode + '-' + #fromVersion + '-' + #toVersion")
+    @Cacheable(value = "changedFiles", key = "#countryCode + '-' + #regionCode + '-' + #fromVersion + '-' + #toVersion",
+               unless = "#result.isEmpty()")
     public List<String> getChangedFiles(String countryCode, String regionCode, 
                                        String fromVersion, String toVersion) {
-        
-        LocalDateTime fromDate = versionToDate(fromVersion);
-        LocalDateTime toDate = versionToDate(toVersion);
-        
-        List<Content> contents = contentRepository.findByCountryAndRegionAndDateRange(
-                countryCode, regionCode, fromDate, toDate);
-        
-        return contents.stream()
-                .map(Content::getFilePath)
-                .collect(Collectors.toList());
+        return getChangeSet(countryCode, regionCode, fromVersion, toVersion).changedFiles();
+    }
+    
+    /**
+     * Récupère les fichiers archivés ou supprimés entre deux versions
+     * Le client les supprime de son stockage à l'application du package
+     */
+    @Cacheable(value = "deletedFiles", key = "#countryCode + '-' + #regionCode + '-' + #fromVersion + '-' + #toVersion",
+               unless = "#result.isEmpty()")
+    public List<String> getDeletedFiles(String countryCode, String regionCode, 
+                                       String fromVersion, String toVersion) {
+        return getChangeSet(countryCode, regionCode, fromVersion, toVersion).deletedFiles();
     }
     
     /**
      * Vide le cache
      */
-    @CacheEvict(value = {"contents", "changedFiles"}, allEntries = true)
+    @CacheEvict(value = {"changedFiles", "deletedFiles"}, allEntries = true)
     public void clearCache(String cacheType) {
+        cacheService.evictContentCache();
         log.info("Cache cleared: {}", cacheType != null ? cacheType : "all");
     }
     
     /**
-     * Récupère le contenu actif par type et localisation
+     * Récupère le contenu actif par type et localisation, via le cache des contenus
      */
-    @Cacheable(value = "contents", key = "#contentType + '-' + #countryCode + '-' + #regionCode")
-    public List<Content> getActiveContent(String contentType, String countryCode, String regionCode) {
-        return contentRepository.findActiveContent(contentType, countryCode, regionCode);
+    public List<ContentSummary> getActiveContent(String contentType, String countryCode, String regionCode) {
+        List<ContentSummary> cached = cacheService.getContentCache(contentType, countryCode, regionCode,
+                CONTENT_SUMMARY_LIST);
+        if (cached != null) {
+            return cached;
+        }
+        List<ContentSummary> contents = contentRepository.findActiveContent(contentType, countryCode, regionCode);
+        cacheService.putContentCache(contentType, countryCode, regionCode, contents);
+        return contents;
     }
     
     /**
      * Met à jour le statut d'un contenu
+     * Le journal ne reçoit une modification que si ce contenu est la dernière révision active de son chemin,
+     * avant ou après le changement : une révision plus ancienne ne change pas le fichier publié
      */
     public void updateContentStatus(Long contentId, Content.ContentStatus newStatus) {
         contentRepository.findById(contentId).ifPresent(content -> {
+            Content.ContentStatus oldStatus = content.getStatus();
+            if (oldStatus == newStatus) {
+                log.debug("Content {} already has status {}", contentId, newStatus);
+                return;
+            }
             content.setStatus(newStatus);
             contentRepository.save(content);
-            log.info("Content {} status updated to {}", contentId, newStatus);
+            contentChecksumIndex.forget(content.getFilePath());
+            
+            boolean published = oldStatus == Content.ContentStatus.ACTIVE || newStatus == Content.ContentStatus.ACTIVE;
+            if (published && !contentRepository.existsNewerActiveContent(content.getFilePath(), content.getId())) {
+                contentChangeLogService.recordChange(content.getCountryCode(), content.getRegionCode(), 
+                        content.getFilePath(), content.getChecksum(), newStatus == Content.ContentStatus.ACTIVE 
+                                ? ContentChange.ChangeType.UPSERT 
+                                : ContentChange.ChangeType.DELETE);
+            }
+            
+            cacheService.evictContentCache();
+            log.info("Content {} status updated from {} to {}", contentId, oldStatus, newStatus);
         });
     }
     
+    /**
+     * Archive les contenus publiés avant la date limite (soft delete)
+     * Chaque chemin sans révision active restante est publié comme supprimé avec la prochaine version,
+     * dans la même transaction que le changement de statut
+     *
+     * @return nombre de contenus archivés
+     */
+    public int archiveOldContent(LocalDateTime cutoffDate) {
+        List<Content> archived = contentRepository.findActivePublishedBefore(cutoffDate);
+        if (archived.isEmpty()) {
+            return 0;
+        }
+        archived.forEach(content -> content.setStatus(Content.ContentStatus.ARCHIVED));
+        contentRepository.saveAll(archived);
+        
+        // Dernière révision archivée par chemin : une révision plus récente, encore active, reste publiée
+        Map<String, Content> latestByPath = archived.stream()
+                .collect(Collectors.toMap(Content::getFilePath, content -> content,
+                        (first, second) -> second.getId() > first.getId() ? second : first));
+        List<Content> deleted = latestByPath.values().stream()
+                .filter(content -> !contentRepository.existsNewerActiveContent(content.getFilePath(), content.getId()))
+                .toList();
+        latestByPath.keySet().forEach(contentChecksumIndex::forget);
+        if (!deleted.isEmpty()) {
+            contentChangeLogService.recordChanges(deleted, ContentChange.ChangeType.DELETE);
+        }
+        
+        cacheService.evictContentCache();
+        log.info("Archived {} contents published before {} ({} files deleted)", 
+                archived.size(), cutoffDate, deleted.size());
+        return archived.size();
+    }
+    
+    /**
+     * Contenu d'un lot d'ingestion : entité à insérer et fichier à mettre en place après validation
+     */
+    private record PendingContent(Content content, StagedFile staged) {
+    }
+    
+    /**
+     * Écrit un élément à côté de sa cible et construit son entité, ou null si le contenu est inchangé
+     */
+    private PendingContent stageItem(ContentItem item) throws IOException {
+        StagedFile staged = stage(item);
+        try {
+            if (contentChecksumIndex.isUnchanged(staged.filePath(), staged.checksum())) {
+                staged.discard();
+                return null;
+            }
+            return new PendingContent(toContent(item, staged), staged);
+        } catch (IOException | RuntimeException e) {
+            staged.discard();
+            throw e;
+        }
+    }
+    
+    /**
+     * Copie le flux dans un fichier temporaire voisin de la cible, en calculant le checksum
+     */
+    private StagedFile stage(ContentItem item) throws IOException {
+        String filePath = buildFilePath(item.getContentType(), item.getCountryCode(), 
+                item.getRegionCode(), item.getFileName());
+        Path targetPath = Paths.get(baseDataPath, filePath);
+        Files.createDirectories(targetPath.getParent());
+        
+        Path tempFile = Files.createTempFile(targetPath.getParent(), ".ingest-", ".tmp");
+        try (InputStream is = item.getSource().open()) {
+            MessageDigest digest = newDigest();
+            long size;
+            try (OutputStream os = new DigestOutputStream(Files.newOutputStream(tempFile), digest)) {
+                size = is.transferTo(os);
+            }
+            return new StagedFile(tempFile, targetPath, filePath, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+    
+    private Content toContent(ContentItem item, StagedFile staged) throws IOException {
+        Content content = new Content();
+        content.setContentType(item.getContentType());
+        content.setCountryCode(item.getCountryCode());
+        content.setRegionCode(item.getRegionCode());
+        content.setLanguageCode(detectLanguage(item.getCountryCode()));
+        content.setFilePath(staged.filePath());
+        content.setFileSize(staged.size());
+        content.setChecksum(staged.checksum());
+        content.setPriority(item.getPriority());
+        content.setStatus(Content.ContentStatus.ACTIVE);
+        content.setPublishedAt(item.getPublishedAt() != null ? item.getPublishedAt() : LocalDateTime.now());
+        if (item.getTags() != null) {
+            content.setTags(item.getTags());
+        }
+        if (storeBody) {
+            content.setContent(readBodyPrefix(staged.tempFile()));
+        }
+        return content;
+    }
+    
+    /**
+     * Lit au plus maxBodyLength caractères du fichier écrit
+     */
+    private String readBodyPrefix(Path path) throws IOException {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[maxBodyLength];
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+            }
+            return new String(buffer, 0, length);
+        }
+    }
+    
+    private Set<String> parseTags(String tags) {
+        if (tags == null || tags.isEmpty()) {
+            return null;
+        }
+        return Arrays.stream(tags.split(","))
+                .map(String::trim)
+                .collect(Collectors.toSet());
+    }
+    
+    /**
+     * Insère un lot dans sa propre transaction puis met ses fichiers en place
+     * Un lot refusé par la base est abandonné sans toucher aux fichiers existants
+     * Retourne le nombre de contenus stockés
+     */
+    private int flushBatch(List<PendingContent> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Content> contents = batch.stream().map(PendingContent::content).toList();
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                contentRepository.saveAll(contents);
+                contentChangeLogService.recordChanges(contents, ContentChange.ChangeType.UPSERT);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not store batch of {} contents", batch.size(), e);
+            batch.forEach(pending -> discardQuietly(pending.staged()));
+            batch.clear();
+            return 0;
+        }
+        
+        int stored = 0;
+        for (PendingContent pending : batch) {
+            Content content = pending.content();
+            try {
+                pending.staged().commit();
+            } catch (IOException e) {
+                log.error("Stored content {} but could not move its file into place", content.getFilePath(), e);
+                discardQuietly(pending.staged());
+                continue;
+            }
+            contentChecksumIndex.record(content.getFilePath(), content.getChecksum(), content.getId());
+            registerBlob(content);
+            stored++;
+        }
+        batch.clear();
+        return stored;
+    }
+    
+    /**
+     * Pré-compresse le fichier d'un contenu pour l'assemblage des packages
+     */
+    private void registerBlob(Content content) {
+        try {
+            contentBlobStore.register(content.getChecksum(), Paths.get(baseDataPath, content.getFilePath()));
+        } catch (IOException e) {
+            log.warn("Could not pre-compress content file: {}", content.getFilePath(), e);
+        }
+    }
+    
+    private void discardQuietly(StagedFile staged) {
+        try {
+            staged.discard();
+        } catch (IOException e) {
+            log.warn("Could not delete staged file: {}", staged.tempFile(), e);
+        }
+    }
+    
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
     private String buildFilePath(String contentType, String countryCode, 
                                 String regionCode, String filename) {
         StringBuilder path = new StringBuilder();
@@ -152,28 +521,18 @@ public class ContentManagerService {
         };
     }
     
-    private String calculateChecksum(byte[] data) {
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(data);
-            return bytesToHex(hash);
-        } catch (Exception e) {
-            log.error("Error calculating checksum", e);
-            return "";
-        }
-    }
-    
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
+    /**
+     * Lit le journal des modifications entre les séquences des deux versions
+     * Une version de départ inconnue du catalogue donne une resynchronisation complète
+     */
+    private ContentChangeLogService.ChangeSet getChangeSet(String countryCode, String regionCode, 
+                                                           String fromVersion, String toVersion) {
+        long toSequence = versioningService.getSequence(countryCode, regionCode, toVersion);
+        if (toSequence < 0) {
+            log.warn("Unknown target version {} for {}/{}", toVersion, countryCode, regionCode);
+            return ContentChangeLogService.ChangeSet.EMPTY;
         }
-        return result.toString();
-    }
-    
-    private LocalDateTime versionToDate(String version) {
-        // Simple conversion pour l'exemple
-        // En production, utiliser un vrai système de versioning
-        return LocalDateTime.now().minusDays(Long.parseLong(version.replace(".", "")));
+        long fromSequence = Math.max(0, versioningService.getSequence(countryCode, regionCode, fromVersion));
+        return contentChangeLogService.getChanges(countryCode, regionCode, fromSequence, toSequence);
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,260 @@
+package com.angel.update.service;
+
+import com.angel.update.model.PackageDescriptor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Index en mémoire des packages de mise à jour pré-construits
+ * Les packages sont construits en arrière-plan dès qu'une nouvelle version est publiée,
+ * la vérification des mises à jour se limite ainsi à une lecture de l'index
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PackageIndexService {
+
+    private final ContentManagerService contentManagerService;
+    private final ZipBuilderService zipBuilderService;
+
+    @Value("${angel.update.prebuild.threads:2}")
+    private int buildThreads = 2;
+
+    @Value("${angel.update.prebuild.max-from-versions:5}")
+    private int maxFromVersions = 5;
+
+    // Attente avant de relancer une construction échouée, doublée à chaque nouvel échec
+    @Value("${angel.update.prebuild.retry-backoff-ms:30000}")
+    private long retryBackoffMs = 30000;
+
+    @Value("${angel.update.prebuild.max-retry-backoff-ms:3600000}")
+    private long maxRetryBackoffMs = 3600000;
+
+    // Échecs consécutifs au-delà desquels le package est signalé indisponible aux clients
+    @Value("${angel.update.prebuild.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    // Nombre maximum de versions de départ suivies par région
+    private static final int MAX_TRACKED_VERSIONS = 50;
+
+    // Packages construits, par clé (pays, région, version de départ, version cible)
+    private final Map<String, PackageDescriptor> index = new ConcurrentHashMap<>();
+
+    // Constructions en cours, pour ne jamais lancer deux fois la même
+    private final Set<String> pendingBuilds = ConcurrentHashMap.newKeySet();
+
+    // Constructions échouées : nombre d'échecs consécutifs et date de la prochaine tentative
+    private final Map<String, BuildFailure> failedBuilds = new ConcurrentHashMap<>();
+
+    // Popularité des versions de départ observées, par région
+    private final Map<String, Map<String, LongAdder>> fromVersionDemand = new ConcurrentHashMap<>();
+
+    private ExecutorService buildExecutor;
+
+    @PostConstruct
+    public void initialize() {
+        AtomicInteger counter = new AtomicInteger();
+        buildExecutor = Executors.newFixedThreadPool(Math.max(1, buildThreads), runnable -> {
+            Thread thread = new Thread(runnable, "package-prebuild-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Package pre-builder started with {} threads", Math.max(1, buildThreads));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (buildExecutor != null) {
+            buildExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Recherche un package déjà construit
+     */
+    public PackageDescriptor findPackage(String countryCode, String regionCode,
+                                         String fromVersion, String toVersion) {
+        return index.get(buildIndexKey(countryCode, regionCode, fromVersion, toVersion));
+    }
+
+    /**
+     * Enregistre la demande d'un client pour une version de départ
+     */
+    public void recordDemand(String countryCode, String regionCode, String fromVersion) {
+        if (fromVersion == null) {
+            return;
+        }
+        Map<String, LongAdder> demand = fromVersionDemand.computeIfAbsent(
+                buildRegionKey(countryCode, regionCode), key -> new ConcurrentHashMap<>());
+
+        LongAdder counter = demand.get(fromVersion);
+        if (counter == null) {
+            if (demand.size() >= MAX_TRACKED_VERSIONS) {
+                return;
+            }
+            counter = demand.computeIfAbsent(fromVersion, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Demande la construction asynchrone d'un package s'il n'est ni indexé, ni en cours,
+     * ni en attente après un échec
+     */
+    public void requestBuild(String countryCode, String regionCode, String fromVersion, String toVersion) {
+        String key = buildIndexKey(countryCode, regionCode, fromVersion, toVersion);
+        BuildFailure failure = failedBuilds.get(key);
+        if (failure != null && System.currentTimeMillis() < failure.retryAt()) {
+            return;
+        }
+        if (index.containsKey(key) || !pendingBuilds.add(key)) {
+            return;
+        }
+
+        try {
+            buildExecutor.execute(() -> {
+                try {
+                    buildAndIndex(countryCode, regionCode, fromVersion, toVersion);
+                } finally {
+                    pendingBuilds.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingBuilds.remove(key);
+            log.warn("Package pre-build rejected for {}", key, e);
+        }
+    }
+
+    /**
+     * Indique si la construction de ce package a échoué trop de fois de suite
+     */
+    public boolean isBuildFailing(String countryCode, String regionCode, String fromVersion, String toVersion) {
+        BuildFailure failure = failedBuilds.get(buildIndexKey(countryCode, regionCode, fromVersion, toVersion));
+        return failure != null && failure.attempts() >= maxAttempts;
+    }
+
+    /**
+     * Pré-construit les packages les plus demandés lorsqu'une nouvelle version est publiée
+     */
+    @EventListener
+    public void onVersionUpdated(VersionUpdatedEvent event) {
+        String regionKey = buildRegionKey(event.getCountryCode(), event.getRegionCode());
+
+        // Les packages vers une ancienne version ne seront plus servis
+        index.values().removeIf(descriptor ->
+                regionKey.equals(buildRegionKey(descriptor.getCountryCode(), descriptor.getRegionCode()))
+                && !event.getNewVersion().equals(descriptor.getToVersion()));
+        failedBuilds.keySet().removeIf(key -> key.startsWith(regionKey + ":")
+                && !key.endsWith(":" + event.getNewVersion()));
+
+        List<String> fromVersions = selectPopularFromVersions(regionKey, event.getPreviousVersion());
+        log.info("Scheduling pre-build of {} packages for {} version {}",
+                fromVersions.size(), regionKey, event.getNewVersion());
+
+        for (String fromVersion : fromVersions) {
+            requestBuild(event.getCountryCode(), event.getRegionCode(), fromVersion, event.getNewVersion());
+        }
+    }
+
+    /**
+     * Nombre de packages indexés
+     */
+    public int getIndexedPackageCount() {
+        return index.size();
+    }
+
+    private void buildAndIndex(String countryCode, String regionCode, String fromVersion, String toVersion) {
+        try {
+            long startTime = System.currentTimeMillis();
+
+            List<String> changedFiles = contentManagerService.getChangedFiles(
+                    countryCode, regionCode, fromVersion, toVersion);
+            List<String> deletedFiles = contentManagerService.getDeletedFiles(
+                    countryCode, regionCode, fromVersion, toVersion);
+            String packagePath = zipBuilderService.buildUpdatePackage(
+                    countryCode, regionCode, fromVersion, toVersion, changedFiles, deletedFiles);
+
+            PackageDescriptor descriptor = PackageDescriptor.builder()
+                    .countryCode(countryCode)
+                    .regionCode(regionCode)
+                    .fromVersion(fromVersion)
+                    .toVersion(toVersion)
+                    .packagePath(packagePath)
+                    .packageSize(zipBuilderService.getPackageSize(packagePath))
+                    .checksum(zipBuilderService.calculateChecksum(packagePath))
+                    .changedFiles(List.copyOf(changedFiles))
+                    .manifest(zipBuilderService.readManifest(packagePath))
+                    .builtAt(LocalDateTime.now())
+                    .build();
+
+            String key = buildIndexKey(countryCode, regionCode, fromVersion, toVersion);
+            index.put(key, descriptor);
+            failedBuilds.remove(key);
+
+            log.info("Pre-built package {} -> {} for {} in {}ms", fromVersion, toVersion,
+                    buildRegionKey(countryCode, regionCode), System.currentTimeMillis() - startTime);
+
+        } catch (Exception e) {
+            BuildFailure failure = failedBuilds.merge(buildIndexKey(countryCode, regionCode, fromVersion, toVersion),
+                    nextFailure(1), (previous, ignored) -> nextFailure(previous.attempts() + 1));
+            log.error("Error pre-building package {} -> {} for {} (attempt {}, next retry in {}ms)",
+                    fromVersion, toVersion, buildRegionKey(countryCode, regionCode), failure.attempts(),
+                    failure.retryAt() - System.currentTimeMillis(), e);
+        }
+    }
+
+    private BuildFailure nextFailure(int attempts) {
+        long backoff = retryBackoffMs << Math.min(attempts - 1, 20);
+        return new BuildFailure(attempts, System.currentTimeMillis() + Math.min(backoff, maxRetryBackoffMs));
+    }
+
+    private List<String> selectPopularFromVersions(String regionKey, String previousVersion) {
+        List<String> selected = new ArrayList<>();
+
+        // La version précédente est toujours la plus demandée juste après une publication
+        if (previousVersion != null) {
+            selected.add(previousVersion);
+        }
+
+        Map<String, LongAdder> demand = fromVersionDemand.getOrDefault(regionKey, Map.of());
+        demand.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+                .map(Map.Entry::getKey)
+                .filter(version -> !selected.contains(version))
+                .limit(Math.max(0, maxFromVersions - selected.size()))
+                .forEach(selected::add);
+
+        return selected;
+    }
+
+    private String buildIndexKey(String countryCode, String regionCode, String fromVersion, String toVersion) {
+        return buildRegionKey(countryCode, regionCode) + ":" + fromVersion + ":" + toVersion;
+    }
+
+    private String buildRegionKey(String countryCode, String regionCode) {
+        return regionCode != null && !regionCode.isEmpty()
+                ? countryCode + "-" + regionCode
+                : countryCode;
+    }
+
+    private record BuildFailure(int attempts, long retryAt) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.angel.update.service;
+
+import com.angel.update.model.ManifestEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Manifeste binaire des packages, écrit en première entrée de l'archive
+ *
+ * Format (big-endian) : magic "ANGM", version, versions de départ et d'arrivée, nombre d'entrées,
+ * puis pour chaque entrée : type, chemin, type de contenu, et selon le type taille, CRC et SHA-256
+ * Les chaînes sont préfixées par leur longueur en octets (UTF-8)
+ */
+public final class PackageManifest {
+    
+    public static final String ENTRY_NAME = "MANIFEST.bin";
+    
+    private static final int MAGIC = 0x414E474D; // "ANGM"
+    private static final int FORMAT_VERSION = 1;
+    private static final int SHA256_LENGTH = 32;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+    
+    private static final HexFormat HEX = HexFormat.of();
+    
+    private PackageManifest() {
+    }
+    
+    /**
+     * Encode le manifeste d'un package
+     */
+    public static byte[] encode(String fromVersion, String toVersion, List<ManifestEntry> entries) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + entries.size() * 96);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, fromVersion);
+            writeString(out, toVersion);
+            out.writeInt(entries.size());
+            
+            for (ManifestEntry entry : entries) {
+                out.writeByte(entry.getType().ordinal());
+                writeString(out, entry.getPath());
+                writeString(out, entry.getContentType());
+                if (entry.getType() == ManifestEntry.Type.DELETE) {
+                    continue;
+                }
+                out.writeLong(entry.getSize());
+                out.writeInt(entry.getCrc().intValue());
+                out.write(HEX.parseHex(entry.getChecksum()));
+                if (entry.getType() == ManifestEntry.Type.PATCH) {
+                    out.write(HEX.parseHex(entry.getBaseChecksum()));
+                }
+            }
+        }
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Décode les entrées d'un manifeste
+     */
+    public static List<ManifestEntry> decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid manifest header");
+            }
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported manifest version: " + version);
+            }
+            readString(in);
+            readString(in);
+            
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Invalid manifest entry count: " + count);
+            }
+            
+            ManifestEntry.Type[] types = ManifestEntry.Type.values();
+            List<ManifestEntry> entries = new ArrayList<>(Math.min(count, 4096));
+            for (int i = 0; i < count; i++) {
+                int typeIndex = in.readUnsignedByte();
+                if (typeIndex >= types.length) {
+                    throw new IOException("Unknown manifest entry type: " + typeIndex);
+                }
+                ManifestEntry.Type type = types[typeIndex];
+                
+                ManifestEntry.ManifestEntryBuilder entry = ManifestEntry.builder()
+                        .type(type)
+                        .path(readString(in))
+                        .contentType(readString(in));
+                if (type != ManifestEntry.Type.DELETE) {
+                    entry.size(in.readLong())
+                            .crc(in.readInt() & 0xFFFFFFFFL)
+                            .checksum(readChecksum(in));
+                    if (type == ManifestEntry.Type.PATCH) {
+                        entry.baseChecksum(readChecksum(in));
+                    }
+                }
+                entries.add(entry.build());
+            }
+            return entries;
+        } catch (EOFException e) {
+            throw new IOException("Truncated manifest", e);
+        }
+    }
+    
+    /**
+     * Type de contenu d'un fichier, d'après son chemin {pays}/{région}/{type}/...
+     */
+    public static String contentTypeOf(String filePath) {
+        String[] parts = filePath.split("/");
+        if (parts.length > 2) {
+            return parts[2];
+        }
+        return "other";
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IOException("Manifest string too long: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static String readChecksum(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[SHA256_LENGTH];
+        in.readFully(bytes);
+        return HEX.formatHex(bytes);
+    }
+}
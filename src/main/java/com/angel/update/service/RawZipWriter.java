@@ -0,0 +1,235 @@
+package com.angel.update.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Écriture d'une archive ZIP à partir d'entrées déjà compressées
+ * Contrairement à ZipOutputStream, les données des entrées sont copiées telles quelles
+ * (deflate brut ou stockées), sans recompression ; le répertoire central est écrit à la fermeture
+ */
+class RawZipWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int UTF8_FLAG = 0x0800;
+    private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+    private static final int MAX_ZIP32_ENTRIES = 0xFFFF;
+
+    private final OutputStream out;
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private final int dosTime;
+    private final int dosDate;
+    private long offset;
+    private boolean closed;
+
+    /**
+     * Données d'une entrée, écrites directement dans l'archive
+     */
+    @FunctionalInterface
+    interface EntryData {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    RawZipWriter(OutputStream out) {
+        this.out = out;
+
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() >> 1);
+        this.dosDate = ((now.getYear() - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+    }
+
+    /**
+     * Ajoute une entrée en la compressant (pour les petites entrées générées, comme le manifeste)
+     */
+    void addEntry(String name, byte[] content, int compressionLevel) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2 + 64);
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(compressed, deflater)) {
+            dos.write(content);
+        } finally {
+            deflater.end();
+        }
+
+        if (compressed.size() < content.length) {
+            addRawEntry(name, ZipEntry.DEFLATED, crc.getValue(), compressed.size(), content.length,
+                    compressed::writeTo);
+        } else {
+            addRawEntry(name, ZipEntry.STORED, crc.getValue(), content.length, content.length,
+                    target -> target.write(content));
+        }
+    }
+
+    /**
+     * Ajoute une entrée dont les données sont déjà au format ZIP (deflate brut ou stockées)
+     */
+    void addRawEntry(String name, int method, long crc, long compressedSize, long size,
+                     EntryData data) throws IOException {
+        if (closed) {
+            throw new IOException("Archive already closed");
+        }
+        if (compressedSize > MAX_ZIP32_VALUE || size > MAX_ZIP32_VALUE || offset > MAX_ZIP32_VALUE) {
+            throw new IOException("Entry exceeds ZIP32 limits: " + name);
+        }
+        if (entries.size() >= MAX_ZIP32_ENTRIES) {
+            throw new IOException("Too many entries for a ZIP32 archive");
+        }
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        CentralEntry entry = new CentralEntry(nameBytes, method, crc, compressedSize, size, offset);
+
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(VERSION);
+        writeShort(UTF8_FLAG);
+        writeShort(method);
+        writeShort(dosTime);
+        writeShort(dosDate);
+        writeInt(crc);
+        writeInt(compressedSize);
+        writeInt(size);
+        writeShort(nameBytes.length);
+        writeShort(0);
+        writeBytes(nameBytes);
+
+        CountingOutputStream counter = new CountingOutputStream(out);
+        data.writeTo(counter);
+        if (counter.count != compressedSize) {
+            throw new IOException("Entry " + name + " wrote " + counter.count
+                    + " bytes, expected " + compressedSize);
+        }
+        offset += compressedSize;
+
+        entries.add(entry);
+    }
+
+    /**
+     * Écrit le répertoire central et la fin d'archive
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            long centralDirectoryOffset = offset;
+            for (CentralEntry entry : entries) {
+                writeInt(CENTRAL_HEADER_SIGNATURE);
+                writeShort(VERSION);
+                writeShort(VERSION);
+                writeShort(UTF8_FLAG);
+                writeShort(entry.method);
+                writeShort(dosTime);
+                writeShort(dosDate);
+                writeInt(entry.crc);
+                writeInt(entry.compressedSize);
+                writeInt(entry.size);
+                writeShort(entry.name.length);
+                writeShort(0); // extra
+                writeShort(0); // commentaire
+                writeShort(0); // disque
+                writeShort(0); // attributs internes
+                writeInt(0);   // attributs externes
+                writeInt(entry.localHeaderOffset);
+                writeBytes(entry.name);
+            }
+            long centralDirectorySize = offset - centralDirectoryOffset;
+            if (offset > MAX_ZIP32_VALUE) {
+                throw new IOException("Archive exceeds ZIP32 limits");
+            }
+
+            writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+            writeShort(0);
+            writeShort(0);
+            writeShort(entries.size());
+            writeShort(entries.size());
+            writeInt(centralDirectorySize);
+            writeInt(centralDirectoryOffset);
+            writeShort(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        offset += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+        out.write((int) (value & 0xFF));
+        out.write((int) ((value >>> 8) & 0xFF));
+        out.write((int) ((value >>> 16) & 0xFF));
+        out.write((int) ((value >>> 24) & 0xFF));
+        offset += 4;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.write(bytes);
+        offset += bytes.length;
+    }
+
+    private static class CentralEntry {
+        private final byte[] name;
+        private final int method;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        CentralEntry(byte[] name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+    /**
+     * Compte les octets écrits par une entrée sans fermer le flux sous-jacent
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        private long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            // Le flux de l'archive reste ouvert
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package com.angel.update.service;
+
+import com.angel.update.config.AppConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Cache à deux niveaux : Caffeine en mémoire (L1) devant Redis (L2)
+ * Les lectures passent par L1, puis L2 avec promotion en L1, puis le chargeur ;
+ * les écritures Redis sont différées sur un thread dédié, les valeurs encodées par {@link CacheValueCodec}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TieredCache {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final CacheValueCodec cacheValueCodec;
+    private final AppConfig appConfig;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${angel.cache.l1.default-spec:maximumSize=1000,expireAfterWrite=10m}")
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m";
+
+    @Value("${angel.cache.write-behind.max-pending:10000}")
+    private int maxPendingWrites = 10000;
+
+    // Index des clés écrites : ensemble racine des namespaces, puis par namespace un ensemble trié
+    // des clés, de score leur date d'expiration (v2 : les anciens index non triés expirent seuls)
+    static final String INDEX_ROOT = "cache-index";
+    static final String INDEX_PREFIX = "cache-index:v2:";
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    // Suppression atomique d'un namespace : ses clés, son index et son entrée dans l'index racine
+    // KEYS[1] = index du namespace, KEYS[2] = index racine, ARGV[1] = namespace
+    static final RedisScript<Long> EVICT_NAMESPACE = new DefaultRedisScript<>("""
+            local members = redis.call('ZRANGE', KEYS[1], 0, -1)
+            local deleted = 0
+            for i = 1, #members, 500 do
+                deleted = deleted + redis.call('DEL', unpack(members, i, math.min(i + 499, #members)))
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('SREM', KEYS[2], ARGV[1])
+            return deleted
+            """, Long.class);
+
+    // Suppression atomique de clés d'un namespace et de leurs entrées d'index ;
+    // le namespace quitte l'index racine quand son index est vide
+    // KEYS[1] = index du namespace, KEYS[2] = index racine, ARGV[1] = namespace, ARGV[2..] = clés
+    static final RedisScript<Long> EVICT_KEYS = new DefaultRedisScript<>("""
+            local deleted = 0
+            for i = 2, #ARGV, 500 do
+                local last = math.min(i + 499, #ARGV)
+                redis.call('ZREM', KEYS[1], unpack(ARGV, i, last))
+                deleted = deleted + redis.call('DEL', unpack(ARGV, i, last))
+            end
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                redis.call('SREM', KEYS[2], ARGV[1])
+            end
+            return deleted
+            """, Long.class);
+
+    private final Map<String, Cache<String, Object>> localCaches = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> l2Counters = new ConcurrentHashMap<>();
+
+    // Dernière écriture en attente par clé : les écritures successives d'une même clé fusionnent
+    private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Ordonne les écritures différées et les suppressions d'une même clé
+    private final Object redisLock = new Object();
+
+    private ExecutorService writeBehindExecutor;
+
+    private record PendingWrite(String cacheName, Object value, Duration ttl) {
+    }
+
+    /**
+     * Valeur à écrire dans un lot, avec son propre TTL
+     */
+    public record Entry(String cacheName, String key, Object value, Duration ttl) {
+    }
+
+    @PostConstruct
+    public void initialize() {
+        writeBehindExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writeBehindExecutor != null) {
+            // Les écritures en attente sont envoyées avant l'arrêt
+            writeBehindExecutor.shutdown();
+            drainPendingWrites();
+        }
+    }
+
+    /**
+     * Lit une valeur en L1 puis en L2, sans chargeur
+     */
+    public <T> T get(String cacheName, String key, Class<T> type) {
+        return get(cacheName, key, cacheValueCodec.typeOf(type), null, null);
+    }
+
+    /**
+     * Lit une valeur de type générique (liste d'articles...) en L1 puis en L2, sans chargeur
+     */
+    public <T> T get(String cacheName, String key, JavaType type) {
+        return get(cacheName, key, type, null, null);
+    }
+
+    /**
+     * Lit une valeur en L1, puis en L2 (promue en L1), puis via le chargeur
+     * Une valeur chargée est mise en L1 et écrite en L2 en différé ; null n'est jamais mis en cache
+     */
+    public <T> T get(String cacheName, String key, Class<T> type, Supplier<T> loader, Duration ttl) {
+        return get(cacheName, key, cacheValueCodec.typeOf(type), loader, ttl);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String cacheName, String key, JavaType type, Supplier<T> loader, Duration ttl) {
+        Cache<String, Object> local = localCache(cacheName);
+        if (local != null) {
+            Object cached = local.getIfPresent(key);
+            if (type.getRawClass().isInstance(cached)) {
+                return (T) cached;
+            }
+        }
+
+        T value = readFromRedis(cacheName, key, type);
+        if (value != null) {
+            if (local != null) {
+                local.put(key, value);
+            }
+            return value;
+        }
+
+        if (loader == null) {
+            return null;
+        }
+        value = loader.get();
+        if (value != null) {
+            put(cacheName, key, value, ttl);
+        }
+        return value;
+    }
+
+    /**
+     * Met une valeur en L1 et programme son écriture en L2
+     */
+    public void put(String cacheName, String key, Object value, Duration ttl) {
+        Cache<String, Object> local = localCache(cacheName);
+        if (local != null) {
+            local.put(key, value);
+        }
+
+        if (pendingWrites.size() >= maxPendingWrites && !pendingWrites.containsKey(key)) {
+            // File pleine : l'appelant écrit lui-même pour borner la mémoire
+            synchronized (redisLock) {
+                writeToRedis(Map.of(key, new PendingWrite(cacheName, value, ttl)));
+            }
+            return;
+        }
+        pendingWrites.put(key, new PendingWrite(cacheName, value, ttl));
+        scheduleDrain();
+    }
+
+    /**
+     * Met un lot de valeurs en L1 et programme leur écriture en L2 dans un même pipeline
+     */
+    public void putAll(Collection<Entry> entries) {
+        Map<String, PendingWrite> batch = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            Cache<String, Object> local = localCache(entry.cacheName());
+            if (local != null) {
+                local.put(entry.key(), entry.value());
+            }
+            batch.put(entry.key(), new PendingWrite(entry.cacheName(), entry.value(), entry.ttl()));
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Le lot entre d'un bloc dans la file : la prochaine vidange l'envoie en entier
+        synchronized (redisLock) {
+            if (pendingWrites.size() + batch.size() > maxPendingWrites) {
+                batch.keySet().forEach(pendingWrites::remove);
+                writeToRedis(batch);
+                return;
+            }
+            pendingWrites.putAll(batch);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Lit plusieurs clés d'un cache : L1, puis les manquantes en un seul MGET promu en L1
+     * Les clés absentes des deux niveaux ne figurent pas dans le résultat
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(String cacheName, Collection<String> keys, JavaType type) {
+        Map<String, T> found = new LinkedHashMap<>();
+        Cache<String, Object> local = localCache(cacheName);
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            Object cached = local != null ? local.getIfPresent(key) : null;
+            if (type.getRawClass().isInstance(cached)) {
+                found.put(key, (T) cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        List<byte[]> values;
+        try {
+            byte[][] rawKeys = missing.stream().map(TieredCache::bytes).toArray(byte[][]::new);
+            values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.stringCommands().mGet(rawKeys));
+        } catch (Exception e) {
+            l2Counter("cache.l2.errors", cacheName, "read").increment();
+            log.warn("Error reading {} keys from Redis cache", missing.size(), e);
+            return found;
+        }
+
+        for (int i = 0; i < missing.size(); i++) {
+            String key = missing.get(i);
+            byte[] value = values != null && i < values.size() ? values.get(i) : null;
+            if (value == null) {
+                l2Counter("cache.l2.gets", cacheName, "miss").increment();
+                continue;
+            }
+            try {
+                T decoded = cacheValueCodec.decode(value, type);
+                l2Counter("cache.l2.gets", cacheName, "hit").increment();
+                if (local != null) {
+                    local.put(key, decoded);
+                }
+                found.put(key, decoded);
+            } catch (Exception e) {
+                l2Counter("cache.l2.errors", cacheName, "read").increment();
+                log.warn("Error decoding Redis cache value: {}", key, e);
+            }
+        }
+        return found;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            writeBehindExecutor.execute(this::drainPendingWrites);
+        }
+    }
+
+    /**
+     * Supprime une clé des deux niveaux
+     */
+    public void evict(String cacheName, String key) {
+        Cache<String, Object> local = localCaches.get(cacheName);
+        if (local != null) {
+            local.invalidate(key);
+        }
+        synchronized (redisLock) {
+            pendingWrites.remove(key);
+            try {
+                redisTemplate.delete(key);
+            } catch (Exception e) {
+                log.warn("Error evicting from Redis cache: {}", key, e);
+            }
+        }
+    }
+
+    /**
+     * Supprime des deux niveaux les clés correspondant à un motif Redis (*, ?)
+     * Un motif « préfixe* » est résolu par les index de namespaces ; les autres par SCAN
+     */
+    public void evictMatching(String pattern) {
+        Predicate<String> matcher = globMatcher(pattern);
+        invalidateLocalMatching(pattern);
+        synchronized (redisLock) {
+            pendingWrites.keySet().removeIf(matcher);
+            try {
+                String prefix = literalPrefix(pattern);
+                long deleted = prefix != null
+                        ? evictIndexed(prefix, matcher)
+                        : scanAndDelete(pattern);
+                log.debug("Evicted {} Redis keys for pattern {}", deleted, pattern);
+            } catch (Exception e) {
+                log.warn("Error evicting from Redis cache with pattern: {}", pattern, e);
+            }
+        }
+    }
+
+    /**
+     * Supprime du niveau L1 seul les clés correspondant à un motif Redis
+     */
+    public void invalidateLocalMatching(String pattern) {
+        Predicate<String> matcher = globMatcher(pattern);
+        localCaches.values().forEach(local -> local.asMap().keySet().removeIf(matcher));
+    }
+
+    /**
+     * Vide le niveau L1 des caches indiqués
+     */
+    public void clearLocal(String... cacheNames) {
+        for (String cacheName : cacheNames) {
+            Cache<String, Object> local = localCaches.get(cacheName);
+            if (local != null) {
+                local.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Vide le niveau L1 de tous les caches
+     */
+    public void clearAllLocal() {
+        localCaches.values().forEach(Cache::invalidateAll);
+    }
+
+    /**
+     * Vide les deux niveaux
+     * Seules les clés indexées du cache sont supprimées, pas le reste de la base Redis
+     */
+    public void evictAll() {
+        clearAllLocal();
+        synchronized (redisLock) {
+            pendingWrites.clear();
+            try {
+                long deleted = evictIndexed("", key -> true);
+                log.debug("Evicted {} Redis keys", deleted);
+            } catch (Exception e) {
+                log.warn("Error evicting all keys from Redis cache", e);
+            }
+        }
+    }
+
+    /**
+     * Nombre d'écritures Redis en attente
+     */
+    public int pendingWriteCount() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Statistiques Caffeine du niveau L1 d'un cache, null s'il n'existe pas
+     */
+    public CacheStats localStats(String cacheName) {
+        Cache<String, Object> local = localCaches.get(cacheName);
+        return local != null ? local.stats() : null;
+    }
+
+    /**
+     * Envoie les écritures en attente à Redis
+     */
+    void drainPendingWrites() {
+        drainScheduled.set(false);
+        synchronized (redisLock) {
+            Map<String, PendingWrite> batch = new LinkedHashMap<>();
+            for (String key : pendingWrites.keySet()) {
+                PendingWrite write = pendingWrites.remove(key);
+                if (write != null) {
+                    batch.put(key, write);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeToRedis(batch);
+            }
+        }
+    }
+
+    private Cache<String, Object> localCache(String cacheName) {
+        if (!appConfig.getCache().getCaffeine().isEnabled()) {
+            return null;
+        }
+        return localCaches.computeIfAbsent(cacheName, this::buildLocalCache);
+    }
+
+    private Cache<String, Object> buildLocalCache(String cacheName) {
+        String spec = appConfig.getCache().getCaffeine().getSpec().getOrDefault(cacheName, defaultSpec);
+        Cache<String, Object> cache = Caffeine.from(CaffeineSpec.parse(spec)).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, cacheName, Tags.of("tier", "l1"));
+        log.info("L1 cache {} created with spec {}", cacheName, spec);
+        return cache;
+    }
+
+    private <T> T readFromRedis(String cacheName, String key, JavaType type) {
+        try {
+            byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.stringCommands().get(bytes(key)));
+            if (value != null) {
+                l2Counter("cache.l2.gets", cacheName, "hit").increment();
+                return cacheValueCodec.decode(value, type);
+            }
+            l2Counter("cache.l2.gets", cacheName, "miss").increment();
+        } catch (Exception e) {
+            l2Counter("cache.l2.errors", cacheName, "read").increment();
+            log.warn("Error reading from Redis cache: {}", key, e);
+        }
+        return null;
+    }
+
+    /**
+     * Écrit un lot de valeurs en un seul pipeline, avec l'index de leur namespace
+     * Chaque index est purgé de ses clés expirées à l'écriture : sa taille reste bornée par les clés vivantes,
+     * même quand les clés dépendent de la version envoyée par le client ; il expire avec la dernière valeur écrite
+     */
+    private void writeToRedis(Map<String, PendingWrite> writes) {
+        Map<String, byte[]> values = new LinkedHashMap<>();
+        writes.forEach((key, write) -> {
+            try {
+                values.put(key, cacheValueCodec.encode(write.value()));
+            } catch (Exception e) {
+                l2Counter("cache.l2.errors", write.cacheName(), "write").increment();
+                log.warn("Error serializing value for Redis cache: {}", key, e);
+            }
+        });
+        if (values.isEmpty()) {
+            return;
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                Set<String> namespaces = new LinkedHashSet<>();
+                values.forEach((key, value) -> {
+                    Duration ttl = writes.get(key).ttl();
+                    String namespace = namespaceOf(key);
+                    byte[] indexKey = bytes(INDEX_PREFIX + namespace);
+                    connection.stringCommands().set(bytes(key), value,
+                            Expiration.from(ttl), RedisStringCommands.SetOption.upsert());
+                    connection.zSetCommands().zAdd(indexKey, now + ttl.toMillis(), bytes(key));
+                    connection.keyCommands().expire(indexKey, ttl.toSeconds());
+                    connection.setCommands().sAdd(bytes(INDEX_ROOT), bytes(namespace));
+                    namespaces.add(namespace);
+                });
+                namespaces.forEach(namespace -> connection.zSetCommands()
+                        .zRemRangeByScore(bytes(INDEX_PREFIX + namespace), Double.NEGATIVE_INFINITY, now));
+                return null;
+            });
+            values.keySet().forEach(key -> l2Counter("cache.l2.puts", writes.get(key).cacheName(), "success").increment());
+        } catch (Exception e) {
+            values.keySet().forEach(key -> l2Counter("cache.l2.errors", writes.get(key).cacheName(), "write").increment());
+            log.warn("Error writing {} values to Redis cache", values.size(), e);
+        }
+    }
+
+    /**
+     * Supprime les clés indexées des namespaces recouverts par le préfixe
+     * Le coût est proportionnel aux namespaces concernés, pas à toute la base ; chaque namespace
+     * est traité par un script Lua, atomique face aux écritures concurrentes de son index
+     */
+    private long evictIndexed(String prefix, Predicate<String> matcher) {
+        Set<String> namespaces = redisTemplate.opsForSet().members(INDEX_ROOT);
+        if (namespaces == null || namespaces.isEmpty()) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long deleted = 0;
+        for (String namespace : namespaces) {
+            String scope = namespace + ':';
+            if (!scope.startsWith(prefix) && !prefix.startsWith(scope)) {
+                continue;
+            }
+            String indexKey = INDEX_PREFIX + namespace;
+            if (scope.startsWith(prefix)) {
+                // Namespace entièrement couvert : l'index disparaît avec ses clés
+                deleted += runScript(EVICT_NAMESPACE, indexKey, namespace, List.of());
+                continue;
+            }
+
+            // Seules les clés encore vivantes de l'index sont lues
+            Set<String> live = redisTemplate.opsForZSet().rangeByScore(indexKey, now, Double.POSITIVE_INFINITY);
+            List<String> matched = live == null ? List.of() : live.stream().filter(matcher).toList();
+            if (matched.isEmpty() && live != null && !live.isEmpty()) {
+                continue;
+            }
+            deleted += runScript(EVICT_KEYS, indexKey, namespace, matched);
+        }
+        return deleted;
+    }
+
+    private long runScript(RedisScript<Long> script, String indexKey, String namespace, List<String> keys) {
+        Object[] args = new Object[keys.size() + 1];
+        args[0] = namespace;
+        for (int i = 0; i < keys.size(); i++) {
+            args[i + 1] = keys.get(i);
+        }
+        Long deleted = redisTemplate.execute(script, List.of(indexKey, INDEX_ROOT), args);
+        return deleted != null ? deleted : 0;
+    }
+
+    /**
+     * Repli pour les motifs quelconques : parcours incrémental par SCAN, sans bloquer Redis
+     */
+    private long scanAndDelete(String pattern) {
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions()
+                .match(pattern).count(SCAN_BATCH_SIZE).build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == SCAN_BATCH_SIZE) {
+                    deleted += deleteKeys(batch);
+                }
+            }
+        }
+        return deleted + deleteKeys(batch);
+    }
+
+    private long deleteKeys(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long deleted = redisTemplate.delete(List.copyOf(keys));
+        keys.clear();
+        return deleted != null ? deleted : 0;
+    }
+
+    // Clés et index en UTF-8, comme le StringRedisSerializer du RedisTemplate
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Namespace d'une clé : la clé sans son dernier segment (update:FR:IDF:1.0.0 -> update:FR:IDF)
+     */
+    static String namespaceOf(String key) {
+        int end = key.lastIndexOf(':');
+        return end > 0 ? key.substring(0, end) : key;
+    }
+
+    /**
+     * Préfixe littéral d'un motif de la forme « préfixe* », null pour les autres motifs
+     */
+    static String literalPrefix(String pattern) {
+        if (!pattern.endsWith("*")) {
+            return null;
+        }
+        String prefix = pattern.substring(0, pattern.length() - 1);
+        for (int i = 0; i < prefix.length(); i++) {
+            if ("*?[]\\".indexOf(prefix.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return prefix;
+    }
+
+    private Counter l2Counter(String name, String cacheName, String result) {
+        return l2Counters.computeIfAbsent(name + '|' + cacheName + '|' + result,
+                id -> Counter.builder(name)
+                        .tags("cache", cacheName, "tier", "l2", "result", result)
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Traduit un motif Redis (* et ?) en prédicat sur les clés
+     */
+    static Predicate<String> globMatcher(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString()).asMatchPredicate();
+    }
+}
@@ -1,12 +1,13 @@
 package com.angel.update.service;
 
+import com.angel.update.model.ManifestEntry;
+import com.angel.update.model.PackageDescriptor;
 import com.angel.update.model.UpdateResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
@@ -21,10 +22,10 @@ import java.util.Map;
 @Slf4j
 public class UpdateService {
     
-    private final ContentManagerService contentManagerService;
     private final ZipBuilderService zipBuilderService;
     private final VersioningService versioningService;
     private final CacheService cacheService;
+    private final PackageIndexService packageIndexService;
     
     /**
      * Vérifie les mises à jour disponibles
@@ -32,7 +33,10 @@ public class UpdateService {
     public UpdateResponse checkForUpdates(String countryCode, String regionCode, 
                                          String currentVersion, String acceptLanguage) {
         
-        String cacheKey = buildCacheKey(countryCode, regionCode, currentVersion);
+        // La séquence du catalogue fait partie de la clé : une réponse calculée avec une version
+        // périmée, même écrite après l'invalidation, n'est plus lue une fois le catalogue rechargé
+        long catalogSequence = versioningService.getLatestSequence(countryCode, regionCode);
+        String cacheKey = buildCacheKey(countryCode, regionCode, catalogSequence, currentVersion);
         
         // Vérifier le cache
         UpdateResponse cached = cacheService.getUpdateResponse(cacheKey);
@@ -57,21 +61,41 @@ public class UpdateService {
             return response;
         }
         
-        // Construire la réponse avec mise à jour
-        List<String> changedFiles = contentManagerService.getChangedFiles(
+        // Construire la réponse à partir de l'index des packages pré-construits
+        packageIndexService.recordDemand(countryCode, regionCode, currentVersion);
+        PackageDescriptor descriptor = packageIndexService.findPackage(
                 countryCode, regionCode, currentVersion, latestVersion);
         
-        String packagePath = zipBuilderService.buildUpdatePackage(
-                countryCode, regionCode, currentVersion, latestVersion, changedFiles);
+        if (descriptor == null) {
+            // Le package est construit en arrière-plan, jamais sur le thread de la requête ;
+            // la mise à jour est annoncée sans lien de téléchargement, le client revient plus tard
+            packageIndexService.requestBuild(countryCode, regionCode, currentVersion, latestVersion);
+            boolean failing = packageIndexService.isBuildFailing(countryCode, regionCode, currentVersion, latestVersion);
+            
+            return UpdateResponse.builder()
+                    .hasUpdates(true)
+                    .latestVersion(latestVersion)
+                    .message(failing ? "Update package is temporarily unavailable" : "Update package is being prepared")
+                    .nextCheckTime(failing ? LocalDateTime.now().plusHours(1) : LocalDateTime.now().plusMinutes(1))
+                    .build();
+        }
+        
+        // Le manifeste remplace la liste des chemins ; elle n'est envoyée que pour les anciens packages
+        List<ManifestEntry> manifest = descriptor.getManifest();
+        List<String> changedFiles = manifest == null ? descriptor.getChangedFiles() : null;
+        Map<String, Integer> changesSummary = manifest == null
+                ? summarizeChanges(changedFiles)
+                : summarizeManifest(manifest);
         
         UpdateResponse response = UpdateResponse.builder()
                 .hasUpdates(true)
                 .latestVersion(latestVersion)
-                .downloadUrl("/api/v1/update/download/" + latestVersion)
-                .packageSize(zipBuilderService.getPackageSize(packagePath))
-                .checksum(zipBuilderService.calculateChecksum(packagePath))
+                .downloadUrl(buildDownloadUrl(countryCode, regionCode, currentVersion, latestVersion))
+                .packageSize(descriptor.getPackageSize())
+                .checksum(descriptor.getChecksum())
                 .changedFiles(changedFiles)
-                .changesSummary(summarizeChanges(changedFiles))
+                .manifest(manifest)
+                .changesSummary(changesSummary)
                 .releaseDate(versioningService.getReleaseDate(latestVersion))
                 .releaseNotes(versioningService.getReleaseNotes(latestVersion))
                 .message("Update available")
@@ -86,14 +110,26 @@ public class UpdateService {
     /**
      * Récupère le package de mise à jour
      */
-    public Resource getUpdatePackage(String version, String countryCode, String regionCode) {
+    public PackageDescriptor getUpdatePackage(String version, String countryCode, String regionCode, String fromVersion) {
+        PackageDescriptor indexed = packageIndexService.findPackage(countryCode, regionCode, fromVersion, version);
+        if (indexed != null && Files.isReadable(Paths.get(indexed.getPackagePath()))) {
+            return indexed;
+        }
+        
         try {
-            String packagePath = zipBuilderService.getPackagePath(version, countryCode, regionCode);
+            String packagePath = zipBuilderService.getPackagePath(fromVersion, version, countryCode, regionCode);
             Path file = Paths.get(packagePath);
-            Resource resource = new UrlResource(file.toUri());
             
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
+            if (Files.isReadable(file)) {
+                return PackageDescriptor.builder()
+                        .countryCode(countryCode)
+                        .regionCode(regionCode)
+                        .fromVersion(fromVersion)
+                        .toVersion(version)
+                        .packagePath(packagePath)
+                        .packageSize(zipBuilderService.getPackageSize(packagePath))
+                        .checksum(zipBuilderService.calculateChecksum(packagePath))
+                        .build();
             } else {
                 throw new RuntimeException("Could not read update package: " + packagePath);
             }
@@ -112,10 +148,21 @@ public class UpdateService {
                 : "1.0.0";
     }
     
-    private String buildCacheKey(String countryCode, String regionCode, String version) {
-        return String.format("update:%s:%s:%s", 
+    private String buildDownloadUrl(String countryCode, String regionCode, 
+                                    String fromVersion, String toVersion) {
+        StringBuilder url = new StringBuilder("/api/v1/update/download/").append(toVersion)
+                .append("?countryCode=").append(countryCode);
+        if (regionCode != null && !regionCode.isEmpty()) {
+            url.append("&regionCode=").append(regionCode);
+        }
+        return url.append("&fromVersion=").append(fromVersion).toString();
+    }
+    
+    private String buildCacheKey(String countryCode, String regionCode, long catalogSequence, String version) {
+        return String.format("update:%s:%s:%d:%s", 
                 countryCode, 
                 regionCode != null ? regionCode : "national", 
+                catalogSequence,
                 version);
     }
     
@@ -130,11 +177,17 @@ public class UpdateService {
         return summary;
     }
     
-    private String extractContentType(String filePath) {
-        String[] parts = filePath.split("/");
-        if (parts.length > 2) {
-            return parts[2]; // Assume structure: /data/{lang}/{type}/...
+    private Map<String, Integer> summarizeManifest(List<ManifestEntry> manifest) {
+        Map<String, Integer> summary = new java.util.HashMap<>();
+        
+        for (ManifestEntry entry : manifest) {
+            summary.merge(entry.getContentType(), 1, Integer::sum);
         }
-        return "other";
+        
+        return summary;
+    }
+    
+    private String extractContentType(String filePath) {
+        return PackageManifest.contentTypeOf(filePath);
     }
 }
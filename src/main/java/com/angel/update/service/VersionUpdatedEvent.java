@@ -0,0 +1,22 @@
+package com.angel.update.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Événement publié lorsqu'une nouvelle version est disponible pour une région
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class VersionUpdatedEvent {
+    
+    private final String countryCode;
+    
+    private final String regionCode;
+    
+    private final String previousVersion;
+    
+    private final String newVersion;
+}
@@ -1,24 +1,59 @@
 package com.angel.update.service;
 
+import com.angel.update.model.RegionVersion;
+import com.angel.update.repository.CountryRepository;
+import com.angel.update.repository.RegionRepository;
+import com.angel.update.repository.RegionVersionRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service de gestion des versions
+ * Les versions de chaque région sont persistées dans un catalogue commun à tous les pods ;
+ * les lectures sont servies par un instantané en mémoire, sans verrou
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class VersioningService {
     
-    // Cache des versions par région
-    private final Map<String, String> versionCache = new ConcurrentHashMap<>();
+    private final RegionVersionRepository regionVersionRepository;
+    private final RegionRepository regionRepository;
+    private final CountryRepository countryRepository;
+    private final ContentChangeLogService contentChangeLogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations transactionOperations;
+    
+    private static final int MAX_PARSED_VERSIONS = 10000;
+    private static final int[] INVALID_VERSION = new int[0];
+    
+    // Version servie aux régions absentes du référentiel : jamais plus récente que celle d'un client
+    static final String UNKNOWN_REGION_VERSION = "0.0.0";
+    
+    // Instantané immuable des versions courantes par région, remplacé en bloc à chaque changement
+    private volatile Map<String, CatalogEntry> latestVersions = Map.of();
+    
+    // Versions déjà analysées en clés numériques
+    private final Map<String, int[]> parsedVersions = new ConcurrentHashMap<>();
+    
+    // Régions absentes du référentiel, revérifiées à chaque rechargement du catalogue
+    private final Set<String> unknownRegions = ConcurrentHashMap.newKeySet();
+    
+    // Séquences des versions publiées, par "région:version"
+    private final Map<String, Long> versionSequences = new ConcurrentHashMap<>();
     
     // Notes de version par version
     private final Map<String, String> releaseNotesCache = new ConcurrentHashMap<>();
@@ -26,20 +61,93 @@ public class VersioningService {
     // Dates de release par version
     private final Map<String, LocalDateTime> releaseDateCache = new ConcurrentHashMap<>();
     
+    /**
+     * Recharge l'instantané depuis le catalogue, pour voir les versions publiées par les autres pods
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${angel.update.version.refresh-interval-ms:30000}",
+               initialDelayString = "${angel.update.version.refresh-interval-ms:30000}")
+    public void refreshCatalog() {
+        try {
+            Map<String, CatalogEntry> snapshot = new HashMap<>();
+            for (RegionVersion version : regionVersionRepository.findLatestVersions()) {
+                snapshot.put(version.getRegionKey(), toCatalogEntry(version));
+            }
+            unknownRegions.clear();
+            synchronized (this) {
+                // Une version publiée localement pendant le chargement n'est pas perdue
+                latestVersions.forEach((regionKey, entry) -> snapshot.merge(regionKey, entry, this::mostRecent));
+                latestVersions = Map.copyOf(snapshot);
+            }
+            log.debug("Version catalog refreshed: {} regions", snapshot.size());
+        } catch (Exception e) {
+            log.warn("Could not refresh version catalog", e);
+        }
+    }
+    
     /**
      * Obtient la dernière version disponible pour une région
+     * Une région inconnue du référentiel reçoit UNKNOWN_REGION_VERSION, sans écriture dans le catalogue
      */
     public String getLatestVersion(String countryCode, String regionCode) {
         String regionKey = buildRegionKey(countryCode, regionCode);
         
-        // Pour l'exemple, utiliser la date actuelle comme version
-        String version = versionCache.computeIfAbsent(regionKey, key -> {
-            LocalDateTime now = LocalDateTime.now();
-            return now.format(DateTimeFormatter.ofPattern("yyyy.MM.dd.HH"));
-        });
+        CatalogEntry entry = latestVersions.get(regionKey);
+        if (entry == null) {
+            if (unknownRegions.contains(regionKey)) {
+                return UNKNOWN_REGION_VERSION;
+            }
+            entry = initializeRegion(countryCode, regionCode, regionKey);
+            if (entry == null) {
+                return UNKNOWN_REGION_VERSION;
+            }
+        }
+        
+        log.debug("Latest version for {}: {}", regionKey, entry.version());
+        return entry.version();
+    }
+    
+    /**
+     * Obtient la séquence de la version courante d'une région, 0 pour une région inconnue
+     */
+    public long getLatestSequence(String countryCode, String regionCode) {
+        String regionKey = buildRegionKey(countryCode, regionCode);
+        CatalogEntry entry = latestVersions.get(regionKey);
+        if (entry == null) {
+            getLatestVersion(countryCode, regionCode);
+            entry = latestVersions.get(regionKey);
+        }
+        return entry != null ? entry.sequence() : 0;
+    }
+    
+    /**
+     * Obtient la séquence d'une version publiée pour une région, ou -1 si elle est inconnue du catalogue
+     */
+    public long getSequence(String countryCode, String regionCode, String version) {
+        if (version == null) {
+            return -1;
+        }
+        
+        String regionKey = buildRegionKey(countryCode, regionCode);
+        CatalogEntry latest = latestVersions.get(regionKey);
+        if (latest != null && latest.version().equals(version)) {
+            return latest.sequence();
+        }
         
-        log.debug("Latest version for {}: {}", regionKey, version);
-        return version;
+        String sequenceKey = regionKey + ":" + version;
+        Long sequence = versionSequences.get(sequenceKey);
+        if (sequence == null) {
+            sequence = regionVersionRepository.findByRegionKeyAndVersion(regionKey, version)
+                    .map(RegionVersion::getSequence)
+                    .orElse(-1L);
+            if (sequence >= 0) {
+                if (versionSequences.size() >= MAX_PARSED_VERSIONS) {
+                    versionSequences.clear();
+                }
+                versionSequences.put(sequenceKey, sequence);
+            }
+        }
+        return sequence;
     }
     
     /**
@@ -50,37 +158,52 @@ public class VersioningService {
             return false;
         }
         
-        try {
-            // Conversion simple basée sur le format yyyy.MM.dd.HH
-            String[] parts1 = version1.split("\\.");
-            String[] parts2 = version2.split("\\.");
-            
-            for (int i = 0; i < Math.min(parts1.length, parts2.length); i++) {
-                int v1 = Integer.parseInt(parts1[i]);
-                int v2 = Integer.parseInt(parts2[i]);
-                
-                if (v1 > v2) return true;
-                if (v1 < v2) return false;
-            }
-            
-            // Si toutes les parties sont égales, la version avec plus de parties est plus récente
-            return parts1.length > parts2.length;
-            
-        } catch (NumberFormatException e) {
-            log.warn("Error comparing versions {} and {}", version1, version2, e);
+        int[] key1 = parseVersion(version1);
+        int[] key2 = parseVersion(version2);
+        if (key1 == INVALID_VERSION || key2 == INVALID_VERSION) {
+            log.warn("Error comparing versions {} and {}", version1, version2);
             return false;
         }
+        
+        for (int i = 0; i < Math.min(key1.length, key2.length); i++) {
+            if (key1[i] != key2[i]) {
+                return key1[i] > key2[i];
+            }
+        }
+        
+        // Si toutes les parties sont égales, la version avec plus de parties est plus récente
+        return key1.length > key2.length;
     }
     
     /**
      * Met à jour la version pour une région
+     * La nouvelle version doit être plus récente que la version courante du catalogue
      */
     public void updateVersion(String countryCode, String regionCode, String newVersion) {
         String regionKey = buildRegionKey(countryCode, regionCode);
-        String oldVersion = versionCache.put(regionKey, newVersion);
-        releaseDateCache.put(newVersion, LocalDateTime.now());
+        
+        RegionVersion current = regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc(regionKey).orElse(null);
+        String oldVersion = current != null ? current.getVersion() : null;
+        if (current != null && !isNewerVersion(newVersion, oldVersion)) {
+            throw new IllegalArgumentException(String.format(
+                    "Version %s is not newer than %s for %s", newVersion, oldVersion, regionKey));
+        }
+        
+        long sequence = current != null ? current.getSequence() + 1 : 1;
+        RegionVersion saved;
+        try {
+            saved = publishVersion(countryCode, regionCode, regionKey, newVersion, sequence);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Concurrent version update for " + regionKey, e);
+        }
+        
+        // La version n'est servie qu'une fois validée avec ses modifications
+        applyToSnapshot(saved);
         
         log.info("Version updated for {}: {} -> {}", regionKey, oldVersion, newVersion);
+        
+        // Déclencher la pré-construction des packages pour la nouvelle version
+        eventPublisher.publishEvent(new VersionUpdatedEvent(countryCode, regionCode, oldVersion, newVersion));
     }
     
     /**
@@ -91,24 +214,17 @@ public class VersioningService {
             return false;
         }
         
-        try {
-            String[] currentParts = currentVersion.split("\\.");
-            String[] latestParts = latestVersion.split("\\.");
-            
-            if (currentParts.length >= 2 && latestParts.length >= 2) {
-                // Mise à jour obligatoire si l'année ou le mois a changé
-                int currentYear = Integer.parseInt(currentParts[0]);
-                int currentMonth = Integer.parseInt(currentParts[1]);
-                int latestYear = Integer.parseInt(latestParts[0]);
-                int latestMonth = Integer.parseInt(latestParts[1]);
-                
-                return (latestYear > currentYear) || 
-                       (latestYear == currentYear && latestMonth > currentMonth);
-            }
-            
-        } catch (NumberFormatException e) {
-            log.warn("Error determining mandatory update for versions {} and {}", 
-                    currentVersion, latestVersion, e);
+        int[] current = parseVersion(currentVersion);
+        int[] latest = parseVersion(latestVersion);
+        if (current == INVALID_VERSION || latest == INVALID_VERSION) {
+            log.warn("Error determining mandatory update for versions {} and {}", currentVersion, latestVersion);
+            return false;
+        }
+        
+        if (current.length >= 2 && latest.length >= 2) {
+            // Mise à jour obligatoire si l'année ou le mois a changé
+            return (latest[0] > current[0]) || 
+                   (latest[0] == current[0] && latest[1] > current[1]);
         }
         
         return false;
@@ -174,6 +290,140 @@ public class VersioningService {
         return String.format("%s.%03d", baseVersion, buildNumber);
     }
     
+    /**
+     * Crée la première version d'une région, une seule fois pour tous les pods
+     * Retourne null pour une région ou un pays absent du référentiel
+     */
+    private CatalogEntry initializeRegion(String countryCode, String regionCode, String regionKey) {
+        RegionVersion existing = regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc(regionKey).orElse(null);
+        if (existing == null && !isKnownRegion(countryCode, regionCode)) {
+            if (unknownRegions.size() >= MAX_PARSED_VERSIONS) {
+                unknownRegions.clear();
+            }
+            unknownRegions.add(regionKey);
+            log.warn("Version requested for unknown region {}", regionKey);
+            return null;
+        }
+        
+        RegionVersion current = existing != null ? existing : createFirstVersion(countryCode, regionCode, regionKey);
+        return applyToSnapshot(current);
+    }
+    
+    private RegionVersion createFirstVersion(String countryCode, String regionCode, String regionKey) {
+        try {
+            return publishVersion(countryCode, regionCode, regionKey, generateNewVersion(), 1);
+        } catch (DataIntegrityViolationException e) {
+            // Un autre pod a initialisé la région entre-temps
+            return regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc(regionKey)
+                    .orElseThrow(() -> e);
+        }
+    }
+    
+    private boolean isKnownRegion(String countryCode, String regionCode) {
+        return regionCode != null && !regionCode.isEmpty()
+                ? regionRepository.existsByCountryCodeAndRegionCodeAndActiveTrue(countryCode, regionCode)
+                : countryRepository.existsByCodeAndActiveTrue(countryCode);
+    }
+    
+    /**
+     * Insère la version et lui rattache les modifications en attente dans une même transaction
+     * Si la publication échoue, la version n'est pas créée et les modifications restent en attente
+     */
+    private RegionVersion publishVersion(String countryCode, String regionCode, String regionKey,
+                                         String version, long sequence) {
+        return transactionOperations.execute(status -> {
+            RegionVersion inserted = insertVersion(countryCode, regionCode, regionKey, version, sequence);
+            contentChangeLogService.publish(countryCode, regionCode, sequence);
+            return inserted;
+        });
+    }
+    
+    private RegionVersion insertVersion(String countryCode, String regionCode, String regionKey,
+                                        String version, long sequence) {
+        RegionVersion regionVersion = new RegionVersion();
+        regionVersion.setRegionKey(regionKey);
+        regionVersion.setCountryCode(countryCode);
+        regionVersion.setRegionCode(regionCode);
+        regionVersion.setVersion(version);
+        regionVersion.setSequence(sequence);
+        regionVersion.setReleasedAt(LocalDateTime.now());
+        return regionVersionRepository.save(regionVersion);
+    }
+    
+    private synchronized CatalogEntry applyToSnapshot(RegionVersion version) {
+        Map<String, CatalogEntry> snapshot = new HashMap<>(latestVersions);
+        CatalogEntry entry = snapshot.merge(version.getRegionKey(), toCatalogEntry(version), this::mostRecent);
+        latestVersions = Map.copyOf(snapshot);
+        return entry;
+    }
+    
+    private CatalogEntry toCatalogEntry(RegionVersion version) {
+        // Clé numérique et date de release préparées une fois pour toutes les requêtes
+        parseVersion(version.getVersion());
+        releaseDateCache.put(version.getVersion(), version.getReleasedAt());
+        return new CatalogEntry(version.getVersion(), version.getSequence());
+    }
+    
+    private CatalogEntry mostRecent(CatalogEntry first, CatalogEntry second) {
+        return second.sequence() > first.sequence() ? second : first;
+    }
+    
+    private int[] parseVersion(String version) {
+        int[] key = parsedVersions.get(version);
+        if (key == null) {
+            key = parseVersionKey(version);
+            if (parsedVersions.size() >= MAX_PARSED_VERSIONS) {
+                parsedVersions.clear();
+            }
+            parsedVersions.put(version, key);
+        }
+        return key;
+    }
+    
+    /**
+     * Découpe une version en parties numériques (ex: "2024.01.01.10" -> [2024, 1, 1, 10])
+     */
+    private static int[] parseVersionKey(String version) {
+        int parts = 1;
+        for (int i = 0; i < version.length(); i++) {
+            if (version.charAt(i) == '.') {
+                parts++;
+            }
+        }
+        
+        int[] key = new int[parts];
+        int index = 0;
+        long value = 0;
+        boolean hasDigits = false;
+        for (int i = 0; i < version.length(); i++) {
+            char c = version.charAt(i);
+            if (c == '.') {
+                if (!hasDigits) {
+                    return INVALID_VERSION;
+                }
+                key[index++] = (int) value;
+                value = 0;
+                hasDigits = false;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return INVALID_VERSION;
+                }
+                hasDigits = true;
+            } else {
+                return INVALID_VERSION;
+            }
+        }
+        if (!hasDigits) {
+            return INVALID_VERSION;
+        }
+        key[index] = (int) value;
+        return key;
+    }
+    
+    private record CatalogEntry(String version, long sequence) {
+    }
+    
     private String buildRegionKey(String countryCode, String regionCode) {
         return regionCode != null && !regionCode.isEmpty() 
                 ? countryCode + "-" + regionCode 
@@ -1,17 +1,31 @@
 package com.angel.update.service;
 
+import com.angel.update.model.ManifestEntry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Service de construction des packages ZIP de mise à jour
@@ -21,52 +35,83 @@ import java.util.zip.ZipOutputStream;
 @Slf4j
 public class ZipBuilderService {
     
+    private final ContentBlobStore contentBlobStore;
+    private final VersioningService versioningService;
+    private final ContentChangeLogService contentChangeLogService;
+    
     @Value("${angel.update.package.base-path:/data/packages}")
     private String packageBasePath;
     
     @Value("${angel.update.content.base-path:/data}")
     private String contentBasePath;
     
+    @Value("${angel.update.compression-level:6}")
+    private int compressionLevel = 6;
+    
+    // 0 : un thread par cœur
+    @Value("${angel.update.compression-threads:0}")
+    private int compressionThreads = 0;
+    
+    // Différentiels binaires par rapport à la version du client, à la place des fichiers complets
+    @Value("${angel.update.delta.enabled:false}")
+    private boolean deltaEnabled = false;
+    
+    private volatile ForkJoinPool compressionPool;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String METADATA_EXTENSION = ".meta";
+    private static final String METADATA_CHECKSUM = "sha256";
+    private static final String METADATA_SIZE = "size";
+    private static final String PATCH_EXTENSION = ".patch";
+    
+    // Builds en cours par chemin de package
+    private final Map<String, CompletableFuture<String>> inFlightBuilds = new ConcurrentHashMap<>();
+    
     /**
      * Construit un package de mise à jour différentiel
      */
     public String buildUpdatePackage(String countryCode, String regionCode, 
                                    String fromVersion, String toVersion, 
                                    List<String> changedFiles) {
+        return buildUpdatePackage(countryCode, regionCode, fromVersion, toVersion, changedFiles, List.of());
+    }
+    
+    /**
+     * Construit un package de mise à jour différentiel avec des marqueurs de suppression
+     * Un seul build par package : les appels concurrents attendent le build en cours
+     */
+    public String buildUpdatePackage(String countryCode, String regionCode, 
+                                   String fromVersion, String toVersion, 
+                                   List<String> changedFiles, List<String> deletedFiles) {
+        
+        String packagePath = getPackagePath(fromVersion, toVersion, countryCode, regionCode);
+        
+        // Vérifier si le package existe déjà
+        if (Files.exists(Paths.get(packagePath))) {
+            log.debug("Package already exists: {}", packagePath);
+            return packagePath;
+        }
         
-        String packageFileName = buildPackageFileName(countryCode, regionCode, toVersion);
-        String packagePath = Paths.get(packageBasePath, packageFileName).toString();
+        CompletableFuture<String> build = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = inFlightBuilds.putIfAbsent(packagePath, build);
+        if (inFlight != null) {
+            log.debug("Package build already in progress, waiting: {}", packagePath);
+            return awaitBuild(inFlight);
+        }
         
         try {
-            // Créer le répertoire de package si nécessaire
-            Files.createDirectories(Paths.get(packageBasePath));
-            
-            // Vérifier si le package existe déjà
-            if (Files.exists(Paths.get(packagePath))) {
-                log.info("Package already exists: {}", packagePath);
-                return packagePath;
+            // Le package a pu être terminé entre la vérification et l'enregistrement du build
+            if (!Files.exists(Paths.get(packagePath))) {
+                writePackage(packagePath, countryCode, regionCode, fromVersion, toVersion, changedFiles, deletedFiles);
             }
-            
-            // Créer le fichier ZIP
-            try (FileOutputStream fos = new FileOutputStream(packagePath);
-                 ZipOutputStream zos = new ZipOutputStream(fos)) {
-                
-                // Ajouter le manifeste
-                addManifestToZip(zos, countryCode, regionCode, fromVersion, toVersion, changedFiles);
-                
-                // Ajouter chaque fichier modifié
-                for (String filePath : changedFiles) {
-                    addFileToZip(zos, filePath);
-                }
-                
-                log.info("Created update package: {} with {} files", packagePath, changedFiles.size());
-            }
-            
+            build.complete(packagePath);
             return packagePath;
             
-        } catch (IOException e) {
-            log.error("Error creating update package", e);
-            throw new RuntimeException("Failed to create update package", e);
+        } catch (RuntimeException e) {
+            build.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightBuilds.remove(packagePath, build);
         }
     }
     
@@ -74,7 +119,14 @@ public class ZipBuilderService {
      * Récupère le chemin d'un package existant
      */
     public String getPackagePath(String version, String countryCode, String regionCode) {
-        String packageFileName = buildPackageFileName(countryCode, regionCode, version);
+        return getPackagePath(null, version, countryCode, regionCode);
+    }
+    
+    /**
+     * Récupère le chemin d'un package différentiel depuis une version donnée
+     */
+    public String getPackagePath(String fromVersion, String toVersion, String countryCode, String regionCode) {
+        String packageFileName = buildPackageFileName(countryCode, regionCode, fromVersion, toVersion);
         return Paths.get(packageBasePath, packageFileName).toString();
     }
     
@@ -82,6 +134,11 @@ public class ZipBuilderService {
      * Calcule la taille d'un package
      */
     public long getPackageSize(String packagePath) {
+        Properties metadata = readMetadata(Paths.get(packagePath));
+        if (metadata != null) {
+            return Long.parseLong(metadata.getProperty(METADATA_SIZE, "0"));
+        }
+        
         try {
             return Files.size(Paths.get(packagePath));
         } catch (IOException e) {
@@ -92,19 +149,46 @@ public class ZipBuilderService {
     
     /**
      * Calcule le checksum d'un package
+     * Le checksum est lu depuis les métadonnées écrites lors de la construction du package
      */
     public String calculateChecksum(String packagePath) {
-        try {
-            byte[] fileBytes = Files.readAllBytes(Paths.get(packagePath));
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(fileBytes);
-            return bytesToHex(hash);
+        Path path = Paths.get(packagePath);
+        Properties metadata = readMetadata(path);
+        if (metadata != null) {
+            return metadata.getProperty(METADATA_CHECKSUM, "");
+        }
+        
+        // Package construit sans métadonnées : calcul en streaming, une seule fois
+        MessageDigest digest = newSha256();
+        try (InputStream is = new DigestInputStream(Files.newInputStream(path), digest)) {
+            is.transferTo(OutputStream.nullOutputStream());
+            String checksum = bytesToHex(digest.digest());
+            writeMetadata(path, checksum, Files.size(path));
+            return checksum;
         } catch (Exception e) {
             log.error("Error calculating checksum for: {}", packagePath, e);
             return "";
         }
     }
     
+    /**
+     * Lit le manifeste binaire d'un package
+     */
+    public List<ManifestEntry> readManifest(String packagePath) {
+        try (ZipFile zip = new ZipFile(packagePath)) {
+            ZipEntry entry = zip.getEntry(PackageManifest.ENTRY_NAME);
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream is = zip.getInputStream(entry)) {
+                return PackageManifest.decode(is.readAllBytes());
+            }
+        } catch (IOException e) {
+            log.warn("Could not read manifest of package: {}", packagePath, e);
+            return null;
+        }
+    }
+    
     /**
      * Nettoie les anciens packages
      */
@@ -124,6 +208,7 @@ public class ZipBuilderService {
                         try {
                             if (Files.getLastModifiedTime(path).toMillis() < cutoffTime) {
                                 Files.delete(path);
+                                Files.deleteIfExists(getMetadataPath(path));
                                 log.info("Deleted old package: {}", path);
                             }
                         } catch (IOException e) {
@@ -136,17 +221,152 @@ public class ZipBuilderService {
         }
     }
     
-    private String buildPackageFileName(String countryCode, String regionCode, String version) {
+    private String buildPackageFileName(String countryCode, String regionCode, 
+                                        String fromVersion, String toVersion) {
         String regionPart = (regionCode != null && !regionCode.isEmpty()) 
                 ? "-" + regionCode.toLowerCase() 
                 : "";
-        return String.format("update-%s%s-%s.zip", 
-                countryCode.toLowerCase(), regionPart, version);
+        // Un package différentiel dépend de la version de départ du client
+        String fromPart = (fromVersion != null && !fromVersion.isEmpty()) 
+                ? fromVersion + "-" 
+                : "";
+        return String.format("update-%s%s-%s%s.zip", 
+                countryCode.toLowerCase(), regionPart, fromPart, toVersion);
+    }
+    
+    /**
+     * Écrit le package dans un fichier temporaire puis le renomme atomiquement,
+     * un lecteur ne voit jamais d'archive incomplète
+     */
+    private void writePackage(String packagePath, String countryCode, String regionCode,
+                              String fromVersion, String toVersion, List<String> changedFiles,
+                              List<String> deletedFiles) {
+        Path targetPath = Paths.get(packagePath);
+        Path tempPath = null;
+        
+        try {
+            // Créer le répertoire de package si nécessaire
+            Files.createDirectories(targetPath.getParent());
+            tempPath = Files.createTempFile(targetPath.getParent(), targetPath.getFileName().toString(), ".tmp");
+            
+            // Créer le fichier ZIP, le checksum est calculé au fil de l'écriture
+            MessageDigest digest = newSha256();
+            try (OutputStream fos = Files.newOutputStream(tempPath);
+                 DigestOutputStream dos = new DigestOutputStream(fos, digest);
+                 RawZipWriter zip = new RawZipWriter(new BufferedOutputStream(dos, BUFFER_SIZE))) {
+                
+                // Fichiers modifiés compressés en parallèle ; le manifeste indique lesquels sont des patchs
+                List<PreparedEntry> entries = prepareEntries(countryCode, regionCode, changedFiles,
+                        fromVersion, toVersion);
+                
+                // Manifeste binaire en première entrée : le client vérifie et applique en une seule passe
+                byte[] binaryManifest = PackageManifest.encode(fromVersion, toVersion,
+                        buildManifestEntries(entries, deletedFiles));
+                zip.addEntry(PackageManifest.ENTRY_NAME, binaryManifest, compressionLevel);
+                addManifestToZip(zip, countryCode, regionCode, fromVersion, toVersion, changedFiles,
+                        entries, deletedFiles);
+                
+                // Ajouter chaque fichier modifié dans l'ordre
+                for (PreparedEntry entry : entries) {
+                    addFileToZip(zip, entry);
+                }
+            }
+            
+            // Les métadonnées sont publiées avant le package : un package visible a toujours les siennes
+            writeMetadata(targetPath, bytesToHex(digest.digest()), Files.size(tempPath));
+            moveAtomically(tempPath, targetPath);
+            log.info("Created update package: {} with {} files and {} deletions", 
+                    packagePath, changedFiles.size(), deletedFiles.size());
+            
+        } catch (IOException e) {
+            log.error("Error creating update package", e);
+            throw new RuntimeException("Failed to create update package", e);
+        } finally {
+            deleteQuietly(tempPath);
+        }
+    }
+    
+    /**
+     * Écrit les métadonnées (checksum, taille) à côté du package
+     */
+    private void writeMetadata(Path packagePath, String checksum, long size) throws IOException {
+        Properties metadata = new Properties();
+        metadata.setProperty(METADATA_CHECKSUM, checksum);
+        metadata.setProperty(METADATA_SIZE, String.valueOf(size));
+        
+        Path metadataPath = getMetadataPath(packagePath);
+        Path tempPath = Files.createTempFile(metadataPath.getParent(), metadataPath.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                metadata.store(writer, "Angel Update Package Metadata");
+            }
+            moveAtomically(tempPath, metadataPath);
+        } finally {
+            deleteQuietly(tempPath);
+        }
+    }
+    
+    private Properties readMetadata(Path packagePath) {
+        Path metadataPath = getMetadataPath(packagePath);
+        if (!Files.exists(metadataPath)) {
+            return null;
+        }
+        
+        try (Reader reader = Files.newBufferedReader(metadataPath, StandardCharsets.UTF_8)) {
+            Properties metadata = new Properties();
+            metadata.load(reader);
+            return metadata;
+        } catch (IOException e) {
+            log.warn("Could not read package metadata: {}", metadataPath, e);
+            return null;
+        }
+    }
+    
+    private Path getMetadataPath(Path packagePath) {
+        return packagePath.resolveSibling(packagePath.getFileName() + METADATA_EXTENSION);
+    }
+    
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private String awaitBuild(CompletableFuture<String> build) {
+        try {
+            return build.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to create update package", e.getCause());
+        }
+    }
+    
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file: {}", path, e);
+        }
     }
     
-    private void addManifestToZip(ZipOutputStream zos, String countryCode, String regionCode,
-                                 String fromVersion, String toVersion, List<String> changedFiles) 
-            throws IOException {
+    private void addManifestToZip(RawZipWriter zip, String countryCode, String regionCode,
+                                 String fromVersion, String toVersion, List<String> changedFiles,
+                                 List<PreparedEntry> entries, List<String> deletedFiles) throws IOException {
         
         StringBuilder manifest = new StringBuilder();
         manifest.append("# Angel Update Package Manifest\n");
@@ -156,38 +376,199 @@ public class ZipBuilderService {
         manifest.append("from_version=").append(fromVersion).append("\n");
         manifest.append("created=").append(java.time.Instant.now()).append("\n");
         manifest.append("file_count=").append(changedFiles.size()).append("\n");
+        manifest.append("deleted_count=").append(deletedFiles.size()).append("\n");
         manifest.append("\n# Changed Files:\n");
         
         for (String file : changedFiles) {
             manifest.append(file).append("\n");
         }
         
-        ZipEntry manifestEntry = new ZipEntry("MANIFEST.txt");
-        zos.putNextEntry(manifestEntry);
-        zos.write(manifest.toString().getBytes());
-        zos.closeEntry();
+        // Patchs : entrée, checksum de la version de base attendue, checksum du fichier reconstruit
+        List<PreparedEntry> patches = entries.stream().filter(PreparedEntry::isPatch).toList();
+        if (!patches.isEmpty()) {
+            manifest.append("\n# Patches:\n");
+            for (PreparedEntry entry : patches) {
+                manifest.append(entry.getEntryName()).append(' ')
+                        .append(entry.baseChecksum()).append(' ')
+                        .append(entry.blob().getChecksum()).append("\n");
+            }
+        }
+        
+        if (!deletedFiles.isEmpty()) {
+            manifest.append("\n# Deleted Files:\n");
+            for (String file : deletedFiles) {
+                manifest.append(file).append("\n");
+            }
+        }
+        
+        zip.addEntry("MANIFEST.txt", manifest.toString().getBytes(StandardCharsets.UTF_8), compressionLevel);
     }
     
-    private void addFileToZip(ZipOutputStream zos, String filePath) throws IOException {
+    private List<ManifestEntry> buildManifestEntries(List<PreparedEntry> entries, List<String> deletedFiles) {
+        List<ManifestEntry> manifestEntries = new ArrayList<>(entries.size() + deletedFiles.size());
+        for (PreparedEntry entry : entries) {
+            if (entry.blob() == null) {
+                continue;
+            }
+            ContentBlobStore.Blob data = entry.isPatch() ? entry.patch() : entry.blob();
+            manifestEntries.add(ManifestEntry.builder()
+                    .type(entry.isPatch() ? ManifestEntry.Type.PATCH : ManifestEntry.Type.FILE)
+                    .path(entry.getEntryName())
+                    .contentType(PackageManifest.contentTypeOf(entry.filePath()))
+                    .size(data.getSize())
+                    .crc(data.getCrc())
+                    .checksum(entry.blob().getChecksum())
+                    .baseChecksum(entry.baseChecksum())
+                    .build());
+        }
+        
+        // Marqueurs de suppression : aucune donnée dans l'archive
+        for (String filePath : deletedFiles) {
+            manifestEntries.add(ManifestEntry.builder()
+                    .type(ManifestEntry.Type.DELETE)
+                    .path(filePath)
+                    .contentType(PackageManifest.contentTypeOf(filePath))
+                    .build());
+        }
+        return manifestEntries;
+    }
+    
+    /**
+     * Prépare les blobs compressés des fichiers en parallèle sur tous les cœurs
+     * Les fichiers absents donnent une entrée sans blob
+     * Au premier échec, les fichiers pas encore commencés sont abandonnés et ceux en cours
+     * sont attendus, pour qu'aucune écriture de blob ne survive à l'exception
+     */
+    private List<PreparedEntry> prepareEntries(String countryCode, String regionCode, List<String> changedFiles,
+                                               String fromVersion, String toVersion) throws IOException {
+        ForkJoinPool pool = getCompressionPool();
+        Map<String, String> checksums = findPublishedChecksums(countryCode, regionCode, changedFiles, toVersion);
+        Map<String, String> baseChecksums = deltaEnabled
+                ? findPublishedChecksums(countryCode, regionCode, changedFiles, fromVersion)
+                : Map.of();
+        
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<CompletableFuture<PreparedEntry>> futures = new ArrayList<>(changedFiles.size());
+        for (String filePath : changedFiles) {
+            String checksum = checksums.get(filePath);
+            String baseChecksum = baseChecksums.get(filePath);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> aborted.get() ? null : prepareEntry(filePath, checksum, baseChecksum), pool));
+        }
+        
+        List<PreparedEntry> entries = new ArrayList<>(changedFiles.size());
+        try {
+            for (CompletableFuture<PreparedEntry> future : futures) {
+                entries.add(future.join());
+            }
+        } catch (CompletionException e) {
+            // cancel() n'arrêterait pas les tâches déjà lancées : elles écriraient encore après l'échec
+            aborted.set(true);
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .handle((result, error) -> null)
+                    .join();
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            throw e;
+        }
+        return entries;
+    }
+    
+    /**
+     * Checksums des fichiers tels que publiés dans le journal à une version
+     * Pour la version du client, ce sont les bases des différentiels ; une version inconnue n'en donne aucun
+     */
+    private Map<String, String> findPublishedChecksums(String countryCode, String regionCode,
+                                                       List<String> changedFiles, String version) {
+        if (version == null || version.isEmpty()) {
+            return Map.of();
+        }
+        long sequence = versioningService.getSequence(countryCode, regionCode, version);
+        if (sequence <= 0) {
+            return Map.of();
+        }
+        return contentChangeLogService.getChecksumsAt(countryCode, regionCode, changedFiles, sequence);
+    }
+    
+    private PreparedEntry prepareEntry(String filePath, String checksum, String baseChecksum) {
         Path sourceFile = Paths.get(contentBasePath, filePath);
         
         if (!Files.exists(sourceFile)) {
             log.warn("File not found, skipping: {}", sourceFile);
+            return new PreparedEntry(filePath, null, null, null);
+        }
+        
+        try {
+            // Blob du checksum publié, déjà compressé à l'ingestion : pas de relecture du fichier
+            ContentBlobStore.Blob blob = checksum != null ? contentBlobStore.find(checksum) : null;
+            if (blob == null) {
+                blob = contentBlobStore.getOrCreate(sourceFile);
+            }
+            
+            // Fichier complet si la révision du client est inconnue ou si le patch est plus gros
+            if (baseChecksum == null || baseChecksum.equals(blob.getChecksum())) {
+                return new PreparedEntry(filePath, blob, null, null);
+            }
+            ContentBlobStore.Blob patch = contentBlobStore.getOrCreateDelta(baseChecksum, blob);
+            return patch != null
+                    ? new PreparedEntry(filePath, blob, patch, baseChecksum)
+                    : new PreparedEntry(filePath, blob, null, null);
+            
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Ajoute un fichier (ou son patch) en recopiant son blob pré-compressé, sans recompression
+     */
+    private void addFileToZip(RawZipWriter zip, PreparedEntry entry) throws IOException {
+        ContentBlobStore.Blob data = entry.isPatch() ? entry.patch() : entry.blob();
+        if (data == null) {
             return;
         }
+        zip.addRawEntry(entry.getEntryName(), data.getMethod(), data.getCrc(), data.getCompressedSize(), data.getSize(),
+                data::copyTo);
+    }
+    
+    /**
+     * Fichier à ajouter au package : blob complet et, en mode différentiel, patch depuis baseChecksum
+     */
+    private record PreparedEntry(String filePath, ContentBlobStore.Blob blob,
+                                 ContentBlobStore.Blob patch, String baseChecksum) {
         
-        ZipEntry entry = new ZipEntry(filePath);
-        zos.putNextEntry(entry);
+        boolean isPatch() {
+            return patch != null;
+        }
         
-        try (InputStream is = Files.newInputStream(sourceFile)) {
-            byte[] buffer = new byte[8192];
-            int length;
-            while ((length = is.read(buffer)) > 0) {
-                zos.write(buffer, 0, length);
+        String getEntryName() {
+            return isPatch() ? filePath + PATCH_EXTENSION : filePath;
+        }
+    }
+    
+    private ForkJoinPool getCompressionPool() {
+        ForkJoinPool pool = compressionPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = compressionPool;
+                if (pool == null) {
+                    int threads = compressionThreads > 0 
+                            ? compressionThreads 
+                            : Runtime.getRuntime().availableProcessors();
+                    pool = new ForkJoinPool(threads);
+                    compressionPool = pool;
+                }
             }
         }
-        
-        zos.closeEntry();
+        return pool;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (compressionPool != null) {
+            compressionPool.shutdownNow();
+        }
     }
     
     private String bytesToHex(byte[] bytes) {
@@ -0,0 +1,15 @@
+-- Catalogue des versions publiées par région
+-- Version: 2.0
+
+-- Une ligne par version publiée ; la séquence est strictement croissante par région
+CREATE TABLE IF NOT EXISTS region_versions (
+    id BIGSERIAL PRIMARY KEY,
+    region_key VARCHAR(64) NOT NULL,
+    country_code VARCHAR(10) NOT NULL,
+    region_code VARCHAR(50),
+    version VARCHAR(50) NOT NULL,
+    sequence BIGINT NOT NULL,
+    released_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_region_versions_sequence UNIQUE (region_key, sequence),
+    CONSTRAINT uk_region_versions_version UNIQUE (region_key, version)
+);
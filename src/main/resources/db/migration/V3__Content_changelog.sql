@@ -0,0 +1,26 @@
+-- Journal des modifications de contenu par version
+-- Version: 3.0
+
+-- Une ligne par modification et par catalogue (régional et national) ;
+-- la séquence est attribuée à la publication de la version suivante
+CREATE TABLE IF NOT EXISTS content_changes (
+    id BIGSERIAL PRIMARY KEY,
+    country_code VARCHAR(10) NOT NULL,
+    region_code VARCHAR(50),
+    sequence BIGINT,
+    file_path VARCHAR(500) NOT NULL,
+    change_type VARCHAR(20) NOT NULL,
+    recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- "Fichiers modifiés depuis la version X" : parcours d'une plage de l'index
+CREATE INDEX IF NOT EXISTS idx_content_changes_scope_sequence
+    ON content_changes(country_code, region_code, sequence);
+
+-- Les contenus actifs existants sont publiés avec la prochaine version de chaque catalogue
+INSERT INTO content_changes (country_code, region_code, file_path, change_type)
+SELECT country_code, region_code, file_path, 'UPSERT' FROM contents WHERE status = 'ACTIVE';
+
+INSERT INTO content_changes (country_code, region_code, file_path, change_type)
+SELECT country_code, NULL, file_path, 'UPSERT' FROM contents
+WHERE status = 'ACTIVE' AND region_code IS NOT NULL;
@@ -0,0 +1,22 @@
+-- Index composites partiels pour les requêtes de ContentRepository
+-- Version: 4.0
+
+-- findActiveContentForRegion : égalité sur (type, pays, région), tri sans étape Sort
+CREATE INDEX IF NOT EXISTS idx_contents_active_type_region
+    ON contents(content_type, country_code, region_code, priority DESC, published_at DESC)
+    WHERE status = 'ACTIVE';
+
+-- findActiveContentForCountry et countActiveContentByTypeAndCountry
+CREATE INDEX IF NOT EXISTS idx_contents_active_type_country
+    ON contents(content_type, country_code, priority DESC, published_at DESC)
+    WHERE status = 'ACTIVE';
+
+-- findByCountryAndRegionInDateRange : plage sur published_at
+CREATE INDEX IF NOT EXISTS idx_contents_active_region_published
+    ON contents(country_code, region_code, published_at)
+    WHERE status = 'ACTIVE';
+
+-- findByCountryInDateRange
+CREATE INDEX IF NOT EXISTS idx_contents_active_country_published
+    ON contents(country_code, published_at)
+    WHERE status = 'ACTIVE';
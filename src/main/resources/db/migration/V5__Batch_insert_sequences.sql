@@ -0,0 +1,6 @@
+-- Identifiants alloués par blocs pour les insertions par lots
+-- Version: 5.0
+
+-- Doit correspondre à allocationSize des entités Content et ContentChange
+ALTER SEQUENCE contents_id_seq INCREMENT BY 50;
+ALTER SEQUENCE content_changes_id_seq INCREMENT BY 50;
@@ -0,0 +1,11 @@
+-- Index de déduplication des contenus à l'ingestion
+-- Version: 6.0
+
+-- findByChecksum : recherche d'un contenu identique déjà stocké
+CREATE INDEX IF NOT EXISTS idx_contents_checksum
+    ON contents(checksum);
+
+-- existsNewerActiveContent : dernière révision active d'un chemin
+CREATE INDEX IF NOT EXISTS idx_contents_active_file_path
+    ON contents(file_path, id)
+    WHERE status = 'ACTIVE';
@@ -0,0 +1,10 @@
+-- Checksum du fichier publié par chaque modification
+-- Version: 7.0
+
+-- Révision possédée par un client à une séquence donnée, base des différentiels ;
+-- nul pour les suppressions et les modifications enregistrées avant cette migration
+ALTER TABLE content_changes ADD COLUMN IF NOT EXISTS checksum VARCHAR(64);
+
+-- Dernière modification d'un chemin jusqu'à une séquence
+CREATE INDEX IF NOT EXISTS idx_content_changes_scope_path_sequence
+    ON content_changes(country_code, region_code, file_path, sequence);
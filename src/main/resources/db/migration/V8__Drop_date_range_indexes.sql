@@ -0,0 +1,7 @@
+-- Suppression des index des requêtes par plage de dates, retirées de ContentRepository
+-- Version: 8.0
+
+-- Aucune requête n'interroge plus (pays, région, date de publication) : ces index ne faisaient
+-- que ralentir les insertions et les archivages
+DROP INDEX IF EXISTS idx_contents_active_region_published;
+DROP INDEX IF EXISTS idx_contents_active_country_published;
@@ -0,0 +1,135 @@
+package com.angel.update.collector;
+
+import com.angel.update.config.AppConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour CollectorFetchExecutor
+ */
+class CollectorFetchExecutorTest {
+    
+    private CollectorFetchExecutor fetchExecutor;
+    
+    @BeforeEach
+    void setUp() {
+        AppConfig.CollectorsConfig.SourceConfig source = new AppConfig.CollectorsConfig.SourceConfig();
+        source.setUrl("https://news.example.com/rss");
+        source.setRateLimit(2);
+        AppConfig.CollectorsConfig.CollectorConfig collector = new AppConfig.CollectorsConfig.CollectorConfig();
+        collector.setSources(List.of(source));
+        
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCollectors().setCollectors(Map.of("NewsCollector", collector));
+        
+        fetchExecutor = new CollectorFetchExecutor(appConfig);
+        fetchExecutor.initialize();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fetchExecutor.shutdown();
+    }
+    
+    @Test
+    void fanOut_ShouldBoundConcurrencyPerHostAndDeliverResultsOnCaller() {
+        // Given
+        List<Integer> tasks = IntStream.range(0, 12).boxed().toList();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> results = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+        
+        // When
+        int collected = fetchExecutor.fanOut(tasks, task -> "https://news.example.com/rss?q=" + task + " news",
+                task -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return task * 10;
+                },
+                (task, value) -> {
+                    assertSame(caller, Thread.currentThread());
+                    results.add(value);
+                });
+        
+        // Then
+        assertEquals(12, collected);
+        assertEquals(12, results.size());
+        assertTrue(maxInFlight.get() <= 2, "At most 2 concurrent calls to the host, was " + maxInFlight.get());
+    }
+    
+    @Test
+    void fanOut_WithSaturatedHost_ShouldNotBlockOtherHosts() throws Exception {
+        // Given
+        AppConfig.CollectorsConfig.SourceConfig slow = new AppConfig.CollectorsConfig.SourceConfig();
+        slow.setUrl("https://slow.example.com/feed");
+        slow.setRateLimit(1);
+        AppConfig.CollectorsConfig.CollectorConfig collector = new AppConfig.CollectorsConfig.CollectorConfig();
+        collector.setSources(List.of(slow));
+        AppConfig appConfig = new AppConfig();
+        appConfig.getCollectors().setCollectors(Map.of("NewsCollector", collector));
+        fetchExecutor.shutdown();
+        fetchExecutor = new CollectorFetchExecutor(appConfig);
+        ReflectionTestUtils.setField(fetchExecutor, "fetchThreads", 2);
+        fetchExecutor.initialize();
+        
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> tasks = new ArrayList<>(List.of("slow-1", "slow-2", "slow-3", "slow-4"));
+        tasks.add("fast");
+        List<String> completed = new CopyOnWriteArrayList<>();
+        
+        // When
+        Thread fanOut = new Thread(() -> fetchExecutor.fanOut(tasks,
+                task -> task.startsWith("slow") ? "https://slow.example.com/feed?" + task : "https://fast.example.com",
+                task -> {
+                    if (task.startsWith("slow")) {
+                        release.await();
+                    }
+                    completed.add(task);
+                    return task;
+                },
+                (task, value) -> { }));
+        fanOut.start();
+        
+        // Then
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!completed.contains("fast") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("fast"), completed, "The other host must be fetched while the slow host is busy");
+        release.countDown();
+        fanOut.join(2000);
+        assertEquals(5, completed.size());
+    }
+    
+    @Test
+    void fanOut_WhenOneFetchFails_ShouldKeepOtherResults() {
+        // When
+        List<String> results = new ArrayList<>();
+        int collected = fetchExecutor.fanOut(List.of("a", "b", "c"), task -> "https://" + task + ".example.com",
+                task -> {
+                    if ("b".equals(task)) {
+                        throw new IllegalStateException("Feed unavailable");
+                    }
+                    return task.toUpperCase();
+                },
+                (task, value) -> results.add(value));
+        
+        // Then
+        assertEquals(2, collected);
+        assertEquals(List.of("A", "C"), results.stream().sorted().toList());
+    }
+}
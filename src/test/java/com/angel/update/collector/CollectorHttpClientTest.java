@@ -0,0 +1,148 @@
+package com.angel.update.collector;
+
+import com.angel.update.config.HttpClientConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour CollectorHttpClient, contre un serveur HTTP local
+ */
+class CollectorHttpClientTest {
+    
+    private HttpServer server;
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private String baseUrl;
+    private final List<String> receivedValidators = new ArrayList<>();
+    
+    private CollectorHttpClient httpClient;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/feed", exchange -> {
+            String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            receivedValidators.add(etag);
+            if ("\"v1\"".equals(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "{\"status\":\"ok\",\"totalResults\":3}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/stalled", exchange -> {
+            // En-têtes envoyés, puis corps jamais terminé
+            exchange.sendResponseHeaders(200, 100);
+            exchange.getResponseBody().write('{');
+            exchange.getResponseBody().flush();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        
+        HttpClientConfig config = new HttpClientConfig();
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 2000L);
+        httpClient = new CollectorHttpClient(config.collectorHttpClient(), new ObjectMapper());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+    
+    @Test
+    void getJson_WhenSourceUnchanged_ShouldReturnNullWithoutParsing() throws Exception {
+        // When
+        Map<?, ?> first = httpClient.getJson(baseUrl + "/feed", Map.class);
+        httpClient.confirm(baseUrl + "/feed");
+        AtomicInteger reads = new AtomicInteger();
+        Object second = httpClient.get(baseUrl + "/feed", true, body -> reads.incrementAndGet());
+        
+        // Then
+        assertEquals("ok", first.get("status"));
+        assertNull(second);
+        assertEquals(0, reads.get());
+        assertEquals(List.of("\"v1\""), receivedValidators.subList(1, 2));
+    }
+    
+    @Test
+    void getJson_WhenPreviousResultNotConfirmed_ShouldFetchFullBodyAgain() throws Exception {
+        // Given
+        httpClient.getJson(baseUrl + "/feed", Map.class);
+        
+        // When
+        Map<?, ?> second = httpClient.getJson(baseUrl + "/feed", Map.class);
+        
+        // Then
+        assertEquals("ok", second.get("status"));
+        assertNull(receivedValidators.get(1));
+    }
+    
+    @Test
+    void get_WhenBodyStalls_ShouldTimeOut() {
+        // Given
+        ReflectionTestUtils.setField(httpClient, "readTimeoutMs", 300L);
+        long start = System.nanoTime();
+        
+        // When / Then
+        assertThrows(HttpTimeoutException.class, () -> httpClient.get(baseUrl + "/stalled", false,
+                InputStream::readAllBytes));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 3000,
+                "Body read must stop at the read timeout");
+    }
+    
+    @Test
+    void get_WhenNotConditional_ShouldFetchFullBody() throws Exception {
+        // Given
+        httpClient.getJson(baseUrl + "/feed", Map.class);
+        httpClient.confirm(baseUrl + "/feed");
+        
+        // When
+        String body = httpClient.get(baseUrl + "/feed", false, 
+                stream -> new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        
+        // Then
+        assertTrue(body.contains("totalResults"));
+        assertNull(receivedValidators.get(1));
+    }
+    
+    @Test
+    void get_WhenServerFails_ShouldThrow() {
+        assertThrows(IOException.class, () -> httpClient.getJson(baseUrl + "/missing", Map.class));
+    }
+}
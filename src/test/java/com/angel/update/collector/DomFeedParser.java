@@ -0,0 +1,40 @@
+package com.angel.update.collector;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extraction DOM de référence (ancienne implémentation de GoogleNewsCollector)
+ * Sert de point de comparaison aux tests et aux benchmarks de RssFeedParser
+ */
+final class DomFeedParser {
+    
+    private DomFeedParser() {
+    }
+    
+    static List<RssFeedParser.RssItem> parse(InputStream feed) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(feed);
+        NodeList nodes = document.getElementsByTagName("item");
+        List<RssFeedParser.RssItem> items = new ArrayList<>();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Element item = (Element) nodes.item(i);
+            String title = text(item, "title");
+            if (title != null && !title.isEmpty()) {
+                items.add(new RssFeedParser.RssItem(title, text(item, "link"), text(item, "pubDate"),
+                        text(item, "description")));
+            }
+        }
+        return items;
+    }
+    
+    private static String text(Element parent, String tagName) {
+        NodeList nodes = parent.getElementsByTagName(tagName);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.angel.update.collector;
+
+/**
+ * Ancienne implémentation de GoogleNewsCollector.cleanTitle, par expressions régulières
+ * Sert de référence aux tests et aux benchmarks de TitleNormalizer
+ */
+final class LegacyTitleCleaner {
+    
+    private LegacyTitleCleaner() {
+    }
+    
+    static String cleanTitle(String title) {
+        if (title == null || title.isEmpty()) {
+            return "";
+        }
+        
+        int lastDashIndex = title.lastIndexOf('-');
+        if (lastDashIndex > 0) {
+            title = title.substring(0, lastDashIndex).trim();
+        }
+        
+        title = title.replaceAll("\\s+", " ");
+        title = title.replaceAll("^[\\s\\p{Punct}]+", "");
+        title = title.replaceAll("[\\s\\p{Punct}]+$", "");
+        
+        if (!title.isEmpty() && !title.matches(".*[.!?]$")) {
+            title += ".";
+        }
+        
+        return title;
+    }
+}
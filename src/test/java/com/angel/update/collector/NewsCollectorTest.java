@@ -1,14 +1,25 @@
 package com.angel.update.collector;
 
+import com.angel.update.config.AppConfig;
 import com.angel.update.service.CacheService;
+import com.angel.update.service.ContentManagerService;
+import com.angel.update.service.TieredCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -17,16 +28,26 @@ import static org.mockito.Mockito.*;
  * Tests unitaires pour NewsCollector
  */
 @ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
 class NewsCollectorTest {
     
     @Mock
     private CacheService cacheService;
     
+    @Mock
+    private ContentManagerService contentManagerService;
+    
+    @Mock
+    private CollectorHttpClient httpClient;
+    
     private NewsCollector newsCollector;
     
     @BeforeEach
     void setUp() {
-        newsCollector = new NewsCollector(cacheService);
+        CollectorFetchExecutor fetchExecutor = new CollectorFetchExecutor(new AppConfig());
+        fetchExecutor.initialize();
+        newsCollector = new NewsCollector(cacheService, contentManagerService, 
+                new ObjectMapper().findAndRegisterModules(), fetchExecutor, httpClient);
         ReflectionTestUtils.setField(newsCollector, "mockMode", true);
         ReflectionTestUtils.setField(newsCollector, "globalEnabled", true);
     }
@@ -78,18 +99,19 @@ class NewsCollectorTest {
         // Given
         ReflectionTestUtils.setField(newsCollector, "globalEnabled", true);
         ReflectionTestUtils.setField(newsCollector, "mockMode", true);
+        when(contentManagerService.ingestContent(anyList())).thenReturn(new ContentManagerService.IngestResult(2, 0, 0));
         
         // When
         newsCollector.collectNews();
         
         // Then
-        // Vérifier que cacheNews a été appelé pour les différents pays
-        verify(cacheService, atLeast(4)).cacheNews(anyString(), any(), any());
-        verify(cacheService).cacheNews(eq("FR"), eq(null), any());
-        verify(cacheService).cacheNews(eq("FR"), eq("IDF"), any());
-        verify(cacheService).cacheNews(eq("US"), eq(null), any());
-        verify(cacheService).cacheNews(eq("GB"), eq(null), any());
-        verify(cacheService).cacheNews(eq("DE"), eq(null), any());
+        verify(contentManagerService, times(5)).ingestContent(anyList());
+        // Vérifier que les actualités des différents pays sont mises en cache en un seul lot
+        ArgumentCaptor<List<TieredCache.Entry>> cached = ArgumentCaptor.forClass(List.class);
+        verify(cacheService).cacheAll(cached.capture());
+        assertEquals(Set.of("news:FR:national", "news:FR:IDF", "news:US:national", "news:GB:national", "news:DE:national"),
+                cached.getValue().stream().map(TieredCache.Entry::key).collect(Collectors.toSet()));
+        verify(cacheService, never()).cacheNews(anyString(), any(), any());
     }
     
     @Test
@@ -104,6 +126,39 @@ class NewsCollectorTest {
         verifyNoInteractions(cacheService);
     }
     
+    @Test
+    void collectNews_WhenSourceUnchanged_ShouldExtendCachedNewsWithoutStoringThem() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(newsCollector, "mockMode", false);
+        List<NewsCollector.NewsArticle> cached = List.of(NewsCollector.NewsArticle.builder().title("Titre").build());
+        when(httpClient.getJson(anyString(), eq(NewsCollector.NewsApiResponse.class))).thenReturn(null);
+        when(cacheService.getCachedNews(anyString(), any(), any())).thenReturn(cached);
+        
+        // When
+        newsCollector.collectNews();
+        
+        // Then
+        verify(cacheService, times(5)).cacheNews(anyString(), any(), eq(cached));
+        verify(httpClient, never()).forget(anyString());
+        verify(httpClient, never()).confirm(anyString());
+        verifyNoInteractions(contentManagerService);
+    }
+    
+    @Test
+    void collectNews_WhenSourceUnchangedButCacheExpired_ShouldFetchFullBodyAgain() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(newsCollector, "mockMode", false);
+        when(httpClient.getJson(anyString(), eq(NewsCollector.NewsApiResponse.class))).thenReturn(null);
+        when(cacheService.getCachedNews(anyString(), any(), any())).thenReturn(null);
+        
+        // When
+        newsCollector.collectNews();
+        
+        // Then
+        verify(httpClient, times(5)).forget(anyString());
+        verify(httpClient, times(10)).getJson(anyString(), eq(NewsCollector.NewsApiResponse.class));
+    }
+    
     @Test
     void validateConfiguration_ShouldReturnTrue() {
         // When
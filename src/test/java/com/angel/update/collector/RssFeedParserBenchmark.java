@@ -0,0 +1,86 @@
+package com.angel.update.collector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH : lecture StAX de RssFeedParser contre l'ancienne extraction DOM
+ * Les flux sont construits à partir du flux Google News capturé, dont les éléments sont répétés
+ * jusqu'à la taille voulue (100 éléments : taille d'une page Google News)
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="RssFeedParserBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RssFeedParserBenchmark {
+
+    private static final String FEED = "/feeds/google-news-fr.xml";
+
+    // Limite par défaut de GoogleNewsCollector
+    private static final int MAX_ITEMS = 100;
+
+    @Param({"4", "100", "500"})
+    private int itemCount;
+
+    private byte[] feed;
+
+    @Setup
+    public void setUp() throws IOException {
+        feed = buildFeed(itemCount);
+    }
+
+    @Benchmark
+    public List<RssFeedParser.RssItem> dom() throws Exception {
+        return DomFeedParser.parse(new ByteArrayInputStream(feed));
+    }
+
+    @Benchmark
+    public List<RssFeedParser.RssItem> stax() throws Exception {
+        return RssFeedParser.parse(new ByteArrayInputStream(feed), 0);
+    }
+
+    @Benchmark
+    public List<RssFeedParser.RssItem> staxWithCutoff() throws Exception {
+        return RssFeedParser.parse(new ByteArrayInputStream(feed), MAX_ITEMS);
+    }
+
+    /**
+     * Flux capturé dont les éléments sont répétés jusqu'à itemCount
+     */
+    static byte[] buildFeed(int itemCount) throws IOException {
+        String captured;
+        try (InputStream stream = RssFeedParserBenchmark.class.getResourceAsStream(FEED)) {
+            captured = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        int itemsStart = captured.indexOf("<item>");
+        int itemsEnd = captured.lastIndexOf("</item>") + "</item>".length();
+        List<String> items = List.of(captured.substring(itemsStart, itemsEnd).split("(?<=</item>)"));
+
+        StringBuilder xml = new StringBuilder(captured.substring(0, itemsStart));
+        for (int i = 0; i < itemCount; i++) {
+            xml.append(items.get(i % items.size()).strip()).append('\n');
+        }
+        xml.append(captured.substring(itemsEnd));
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package com.angel.update.collector;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour RssFeedParser
+ */
+class RssFeedParserTest {
+    
+    private static final String FEED = "/feeds/google-news-fr.xml";
+    
+    @Test
+    void parse_ShouldMatchDomExtractionOnCapturedFeed() throws Exception {
+        // Given
+        List<RssFeedParser.RssItem> expected;
+        try (InputStream feed = getClass().getResourceAsStream(FEED)) {
+            expected = DomFeedParser.parse(feed);
+        }
+        
+        // When
+        List<RssFeedParser.RssItem> items;
+        try (InputStream feed = getClass().getResourceAsStream(FEED)) {
+            items = RssFeedParser.parse(feed, 0);
+        }
+        
+        // Then
+        assertEquals(4, items.size());
+        assertEquals(expected, items);
+        assertEquals("Neige et verglas : \"vigilance orange\" pour huit départements franciliens - France Bleu",
+                items.get(1).title());
+    }
+    
+    @Test
+    void parse_WithMaxItems_ShouldStopReadingTheStream() throws Exception {
+        // Given
+        StringBuilder xml = new StringBuilder("<rss><channel>");
+        for (int i = 0; i < 5000; i++) {
+            xml.append("<item><title>Titre ").append(i).append(" - Source</title>")
+               .append("<description>").append("x".repeat(200)).append("</description></item>");
+        }
+        xml.append("</channel></rss>");
+        byte[] bytes = xml.toString().getBytes(StandardCharsets.UTF_8);
+        CountingInputStream feed = new CountingInputStream(new ByteArrayInputStream(bytes));
+        
+        // When
+        List<RssFeedParser.RssItem> items = RssFeedParser.parse(feed, 10);
+        
+        // Then
+        assertEquals(10, items.size());
+        assertEquals("Titre 9 - Source", items.get(9).title());
+        assertTrue(feed.count < bytes.length / 10, "Read " + feed.count + " of " + bytes.length + " bytes");
+    }
+    
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+        
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.angel.update.collector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH : TitleNormalizer contre l'ancien nettoyage par expressions régulières
+ * Le corpus reprend les titres du flux capturé et des titres Google News typiques :
+ * source après un tiret, mots composés, guillemets, points d'interrogation, espaces multiples
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="TitleNormalizerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TitleNormalizerBenchmark {
+
+    static final int CORPUS_SIZE = 1000;
+
+    private static final String[] PREFIXES = {
+            "", "", "", "EN DIRECT - ", "VIDÉO. ", "INFO FRANCE BLEU. ", "« ", "\""
+    };
+    private static final String[] SUBJECTS = {
+            "Grève RATP", "Neige et verglas", "Réforme des retraites", "Saint-Denis", "Le gouvernement",
+            "Coupe du monde de rugby", "Prix de l'électricité", "Aix-en-Provence", "La SNCF", "Météo-France"
+    };
+    private static final String[] PREDICATES = {
+            " : le trafic fortement perturbé ce lundi", " : vigilance orange pour huit départements",
+            " : ce qui change au 1er février", " annonce un plan d'urgence", " : pourquoi les prix augmentent ?",
+            " : les images impressionnantes", ", un bilan encore provisoire", " : « nous ne céderons pas »",
+            " face à la crise...", " :  ce  qu'il  faut  retenir"
+    };
+    private static final String[] SOURCES = {
+            "Le Parisien", "France Bleu", "Le Monde", "BFMTV", "Ouest-France", "20 Minutes",
+            "Le Figaro", "franceinfo", "Libération", "La Dépêche du Midi"
+    };
+
+    private List<String> titles;
+
+    @Setup
+    public void setUp() throws Exception {
+        titles = corpus();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void normalize(Blackhole blackhole) {
+        for (String title : titles) {
+            blackhole.consume(TitleNormalizer.normalize(title));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void legacy(Blackhole blackhole) {
+        for (String title : titles) {
+            blackhole.consume(LegacyTitleCleaner.cleanTitle(title));
+        }
+    }
+
+    /**
+     * Titres du flux capturé complétés de titres générés, toujours les mêmes
+     */
+    static List<String> corpus() throws Exception {
+        List<String> corpus = new ArrayList<>(CORPUS_SIZE);
+        byte[] feed = RssFeedParserBenchmark.buildFeed(4);
+        for (RssFeedParser.RssItem item : RssFeedParser.parse(new ByteArrayInputStream(feed), 0)) {
+            corpus.add(item.title());
+        }
+
+        Random random = new Random(20240115L);
+        while (corpus.size() < CORPUS_SIZE) {
+            String prefix = PREFIXES[random.nextInt(PREFIXES.length)];
+            String title = prefix + SUBJECTS[random.nextInt(SUBJECTS.length)]
+                    + PREDICATES[random.nextInt(PREDICATES.length)];
+            if (prefix.startsWith("«")) {
+                title += " »";
+            } else if (prefix.startsWith("\"")) {
+                title += "\"";
+            }
+            // Presque tous les titres Google News se terminent par leur source
+            if (random.nextInt(10) != 0) {
+                title += " - " + SOURCES[random.nextInt(SOURCES.length)];
+            }
+            corpus.add(random.nextInt(20) == 0 ? title + "  " : title);
+        }
+        return corpus;
+    }
+}
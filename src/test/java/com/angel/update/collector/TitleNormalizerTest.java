@@ -0,0 +1,71 @@
+package com.angel.update.collector;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour TitleNormalizer
+ * Le résultat doit rester identique à l'ancienne implémentation par expressions régulières
+ */
+class TitleNormalizerTest {
+    
+    private static final String ALPHABET = "abcXYZ019 éÉœ日本 \t\n\r\u000B\f\u0001\u00A0\u0085\u2028\u2029"
+            + "-.!?,;:'\"()[]{}«»…—–_/\\@#%&*+=<>|~^`$";
+    
+    @Test
+    void normalize_ShouldMatchLegacyImplementationOnRandomTitles() {
+        Random random = new Random(20240115L);
+        for (int i = 0; i < 200_000; i++) {
+            String title = randomTitle(random);
+            assertEquals(LegacyTitleCleaner.cleanTitle(title), TitleNormalizer.normalize(title), 
+                    () -> "Mismatch for title: " + escape(title));
+        }
+    }
+    
+    @Test
+    void normalize_ShouldMatchLegacyImplementationOnCapturedFeed() throws Exception {
+        try (InputStream feed = getClass().getResourceAsStream("/feeds/google-news-fr.xml")) {
+            for (RssFeedParser.RssItem item : RssFeedParser.parse(feed, 0)) {
+                assertEquals(LegacyTitleCleaner.cleanTitle(item.title()), TitleNormalizer.normalize(item.title()));
+            }
+        }
+    }
+    
+    @Test
+    void normalize_ShouldMatchLegacyImplementationOnBenchmarkCorpus() throws Exception {
+        for (String title : TitleNormalizerBenchmark.corpus()) {
+            assertEquals(LegacyTitleCleaner.cleanTitle(title), TitleNormalizer.normalize(title));
+        }
+    }
+    
+    @Test
+    void normalize_ShouldRemoveSourceAndTerminateSentence() {
+        assertEquals("Grève RATP : le trafic fortement perturbé ce lundi.", 
+                TitleNormalizer.normalize("Grève RATP :  le trafic\tfortement perturbé ce lundi ! - Le Parisien"));
+        assertEquals("Pourquoi.", TitleNormalizer.normalize("\"Pourquoi ?\""));
+        assertEquals("« Pourquoi ? ».", TitleNormalizer.normalize("« Pourquoi ? »"));
+        assertEquals("", TitleNormalizer.normalize(" -- Source"));
+        assertEquals("", TitleNormalizer.normalize(null));
+    }
+    
+    private String randomTitle(Random random) {
+        int length = random.nextInt(random.nextInt(10) == 0 ? 80 : 25);
+        StringBuilder title = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            title.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return title.toString();
+    }
+    
+    private String escape(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            escaped.append(c < 0x20 || c > 0x7E ? String.format("\\u%04x", (int) c) : String.valueOf(c));
+        }
+        return escaped.toString();
+    }
+}
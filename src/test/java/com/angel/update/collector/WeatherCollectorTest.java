@@ -0,0 +1,126 @@
+package com.angel.update.collector;
+
+import com.angel.update.config.AppConfig;
+import com.angel.update.service.CacheService;
+import com.angel.update.service.ContentManagerService;
+import com.angel.update.service.TieredCache;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour WeatherCollector
+ */
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class WeatherCollectorTest {
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private ContentManagerService contentManagerService;
+
+    @Mock
+    private CollectorHttpClient httpClient;
+
+    private WeatherCollector weatherCollector;
+
+    @BeforeEach
+    void setUp() {
+        CollectorFetchExecutor fetchExecutor = new CollectorFetchExecutor(new AppConfig());
+        fetchExecutor.initialize();
+        weatherCollector = new WeatherCollector(cacheService, contentManagerService,
+                new ObjectMapper().findAndRegisterModules(), fetchExecutor, httpClient);
+        ReflectionTestUtils.setField(weatherCollector, "mockMode", false);
+        ReflectionTestUtils.setField(weatherCollector, "globalEnabled", true);
+    }
+
+    @Test
+    void collectWeather_WhenSourceUnchanged_ShouldReadCacheOncePerCountry() throws Exception {
+        // Given
+        when(httpClient.getJson(anyString(), eq(WeatherCollector.WeatherApiResponse.class))).thenReturn(null);
+        when(cacheService.<WeatherCollector.WeatherData>getCachedWeather(anyString(), anyCollection(), any(JavaType.class)))
+                .thenAnswer(invocation -> {
+                    String countryCode = invocation.getArgument(0);
+                    return switch (countryCode) {
+                        case "FR" -> Map.of("IDF", weather("Paris", "FR"), "national", weather("Lyon", "FR"));
+                        case "US" -> Map.of("national", weather("New York", "US"));
+                        case "GB" -> Map.of("national", weather("London", "GB"));
+                        default -> Map.of("national", weather("Berlin", "DE"));
+                    };
+                });
+
+        // When
+        weatherCollector.collectWeather();
+
+        // Then
+        verify(cacheService, times(4)).getCachedWeather(anyString(), anyCollection(), any(JavaType.class));
+        verify(cacheService, never()).getCachedWeather(anyString(), nullable(String.class), any(JavaType.class));
+        // Seules les villes propriétaires de l'entrée de leur région la prolongent, en un seul lot
+        ArgumentCaptor<List<TieredCache.Entry>> cached = ArgumentCaptor.forClass(List.class);
+        verify(cacheService).cacheAll(cached.capture());
+        assertEquals(Set.of("weather:FR:IDF", "weather:FR:national", "weather:US:national",
+                        "weather:GB:national", "weather:DE:national"),
+                cached.getValue().stream().map(TieredCache.Entry::key).collect(Collectors.toSet()));
+        verify(httpClient, never()).forget(anyString());
+        verifyNoInteractions(contentManagerService);
+    }
+
+    @Test
+    void collectWeather_WhenSourceUnchangedButCacheExpired_ShouldFetchFullBodyAgain() throws Exception {
+        // Given
+        when(httpClient.getJson(anyString(), eq(WeatherCollector.WeatherApiResponse.class))).thenReturn(null);
+        when(cacheService.getCachedWeather(anyString(), anyCollection(), any(JavaType.class))).thenReturn(Map.of());
+
+        // When
+        weatherCollector.collectWeather();
+
+        // Then
+        verify(httpClient, times(20)).forget(anyString());
+        verify(httpClient, times(40)).getJson(anyString(), eq(WeatherCollector.WeatherApiResponse.class));
+        verify(cacheService, never()).cacheAll(any());
+    }
+
+    @Test
+    void collectWeather_InMockMode_ShouldNotReadCache() {
+        // Given
+        ReflectionTestUtils.setField(weatherCollector, "mockMode", true);
+        when(contentManagerService.ingestContent(anyList())).thenReturn(new ContentManagerService.IngestResult(5, 0, 0));
+
+        // When
+        weatherCollector.collectWeather();
+
+        // Then
+        verify(cacheService, never()).getCachedWeather(anyString(), anyCollection(), any(JavaType.class));
+        verify(cacheService).cacheAll(anyList());
+        verify(contentManagerService, times(4)).ingestContent(anyList());
+    }
+
+    private static WeatherCollector.WeatherData weather(String city, String countryCode) {
+        return WeatherCollector.WeatherData.builder()
+                .city(city)
+                .countryCode(countryCode)
+                .build();
+    }
+}
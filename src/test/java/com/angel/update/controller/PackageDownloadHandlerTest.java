@@ -0,0 +1,106 @@
+package com.angel.update.controller;
+
+import com.angel.update.model.PackageDescriptor;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.RequestFacade;
+import org.apache.catalina.connector.ResponseFacade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.security.web.header.writers.XContentTypeOptionsHeaderWriter;
+import org.springframework.security.web.servletapi.SecurityContextHolderAwareRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour PackageDownloadHandler
+ */
+class PackageDownloadHandlerTest {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    @TempDir
+    Path tempDir;
+
+    private final PackageDownloadHandler packageDownloadHandler = new PackageDownloadHandler();
+
+    private RequestFacade request;
+    private ResponseFacade response;
+    private Path packageFile;
+    private PackageDescriptor descriptor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        request = mock(RequestFacade.class);
+        response = mock(ResponseFacade.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getAttribute(SENDFILE_SUPPORT)).thenReturn(Boolean.TRUE);
+
+        packageFile = Files.writeString(tempDir.resolve("update.zip"), "fake zip content");
+        descriptor = PackageDescriptor.builder()
+                .packagePath(packageFile.toString())
+                .packageSize(Files.size(packageFile))
+                .checksum("abc123")
+                .build();
+    }
+
+    @Test
+    void sendPackage_ThroughSpringSecurityFilters_ShouldUseSendfile() throws Exception {
+        // Given
+        SecurityContextHolderAwareRequestFilter requestFilter = new SecurityContextHolderAwareRequestFilter();
+        requestFilter.afterPropertiesSet();
+        HeaderWriterFilter headerFilter = new HeaderWriterFilter(List.of(new XContentTypeOptionsHeaderWriter()));
+        List<ServletRequest> received = new ArrayList<>();
+        MockFilterChain chain = new MockFilterChain(downloadServlet(received), requestFilter, headerFilter);
+
+        // When
+        chain.doFilter(request, response);
+
+        // Then
+        assertNotSame(request, received.get(0), "The request must reach the handler wrapped");
+        verify(request).setAttribute(SENDFILE_FILENAME, packageFile.toAbsolutePath().toString());
+        verify(request).setAttribute("org.apache.tomcat.sendfile.start", 0L);
+        verify(request).setAttribute("org.apache.tomcat.sendfile.end", 16L);
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    void sendPackage_WithBufferingResponseWrapper_ShouldWriteBodyItself() throws Exception {
+        // Given
+        ContentCachingResponseWrapper buffering = new ContentCachingResponseWrapper(response);
+
+        // When
+        packageDownloadHandler.sendPackage(descriptor, "update.zip", request, buffering);
+
+        // Then
+        verify(request, never()).setAttribute(eq(SENDFILE_FILENAME), any());
+        assertEquals("fake zip content", new String(buffering.getContentAsByteArray()));
+    }
+
+    private HttpServlet downloadServlet(List<ServletRequest> received) {
+        return new HttpServlet() {
+            @Override
+            public void service(ServletRequest req, ServletResponse res) throws IOException {
+                received.add(req);
+                packageDownloadHandler.sendPackage(descriptor, "update.zip",
+                        (HttpServletRequest) req, (HttpServletResponse) res);
+            }
+        };
+    }
+}
@@ -1,22 +1,26 @@
 package com.angel.update.controller;
 
 import com.angel.update.config.TestSecurityConfig;
+import com.angel.update.model.PackageDescriptor;
 import com.angel.update.model.UpdateRequest;
 import com.angel.update.model.UpdateResponse;
 import com.angel.update.service.UpdateService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,7 +31,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Tests d'intégration pour UpdateController
  */
 @WebMvcTest(controllers = UpdateController.class)
-@Import(TestSecurityConfig.class)
+@Import({TestSecurityConfig.class, PackageDownloadHandler.class})
 class UpdateControllerTest {
     
     @Autowired
@@ -39,6 +43,9 @@ class UpdateControllerTest {
     @MockBean
     private UpdateService updateService;
     
+    @TempDir
+    Path tempDir;
+    
     @Test
     void checkUpdate_WithValidRequest_ShouldReturnUpdateResponse() throws Exception {
         // Given
@@ -107,10 +114,9 @@ class UpdateControllerTest {
         String version = "1.1.0";
         String countryCode = "FR";
         String regionCode = "IDF";
-        Resource resource = new ByteArrayResource("fake zip content".getBytes());
         
-        when(updateService.getUpdatePackage(version, countryCode, regionCode))
-                .thenReturn(resource);
+        when(updateService.getUpdatePackage(version, countryCode, regionCode, null))
+                .thenReturn(createPackage("fake zip content"));
         
         // When & Then
         mockMvc.perform(get("/api/v1/update/download/{version}", version)
@@ -118,7 +124,83 @@ class UpdateControllerTest {
                 .param("regionCode", regionCode))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Type", "application/octet-stream"))
-                .andExpect(header().string("Content-Disposition", "attachment; filename=\"update-1.1.0.zip\""));
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"update-1.1.0.zip\""))
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().string("fake zip content"));
+    }
+    
+    @Test
+    void downloadUpdate_WithSendfileSupportOnWrappedRequest_ShouldWriteBodyItself() throws Exception {
+        // Given
+        when(updateService.getUpdatePackage("1.1.0", "FR", null, null))
+                .thenReturn(createPackage("fake zip content"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/v1/update/download/{version}", "1.1.0")
+                .param("countryCode", "FR")
+                .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", nullValue()))
+                .andExpect(content().string("fake zip content"));
+    }
+    
+    @Test
+    void downloadUpdate_WithRange_ShouldReturnPartialContent() throws Exception {
+        // Given
+        when(updateService.getUpdatePackage("1.1.0", "FR", null, null))
+                .thenReturn(createPackage("fake zip content"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/v1/update/download/{version}", "1.1.0")
+                .param("countryCode", "FR")
+                .header("Range", "bytes=5-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 5-15/16"))
+                .andExpect(content().string("zip content"));
+    }
+    
+    @Test
+    void downloadUpdate_WithStaleIfRange_ShouldReturnWholeFile() throws Exception {
+        // Given
+        when(updateService.getUpdatePackage("1.1.0", "FR", null, null))
+                .thenReturn(createPackage("fake zip content"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/v1/update/download/{version}", "1.1.0")
+                .param("countryCode", "FR")
+                .header("Range", "bytes=5-")
+                .header("If-Range", "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("fake zip content"));
+    }
+    
+    @Test
+    void downloadUpdate_WithUnsatisfiableRange_ShouldReturn416() throws Exception {
+        // Given
+        when(updateService.getUpdatePackage("1.1.0", "FR", null, null))
+                .thenReturn(createPackage("fake zip content"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/v1/update/download/{version}", "1.1.0")
+                .param("countryCode", "FR")
+                .header("Range", "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */16"));
+    }
+    
+    @Test
+    void downloadUpdate_WithMatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // Given
+        when(updateService.getUpdatePackage("1.1.0", "FR", null, null))
+                .thenReturn(createPackage("fake zip content"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/v1/update/download/{version}", "1.1.0")
+                .param("countryCode", "FR")
+                .header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
     }
     
     @Test
@@ -131,6 +213,15 @@ class UpdateControllerTest {
                 .andExpect(status().isBadRequest());
     }
     
+    private PackageDescriptor createPackage(String content) throws IOException {
+        Path packageFile = Files.writeString(tempDir.resolve("update.zip"), content);
+        return PackageDescriptor.builder()
+                .packagePath(packageFile.toString())
+                .packageSize(Files.size(packageFile))
+                .checksum("abc123")
+                .build();
+    }
+    
     @Test
     void getVersion_ShouldReturnCurrentVersion() throws Exception {
         // Given
@@ -0,0 +1,160 @@
+package com.angel.update.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie sur PostgreSQL que les requêtes de ContentRepository utilisent les index de V4
+ * Les plans sont ceux du SQL réellement généré par Hibernate, sur un volume et une distribution
+ * proches de la production : une année de contenus dont seul le dernier mois reste actif,
+ * majoritairement des actualités françaises
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ContentRepositoryIndexTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private ContentRepository contentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                SqlRecorder.class::getName);
+    }
+
+    @BeforeEach
+    void setUp() {
+        if (seeded) {
+            return;
+        }
+        // Graine et insertion dans la même instruction : même session, donc données reproductibles
+        jdbcTemplate.execute("SELECT setseed(0.42); " +
+                "INSERT INTO contents (content_type, language_code, country_code, region_code, file_path, " +
+                "version, priority, status, published_at, file_size, checksum) " +
+                "SELECT CASE WHEN r.type < 0.7 THEN 'news' WHEN r.type < 0.9 THEN 'weather' " +
+                "WHEN r.type < 0.96 THEN 'events' ELSE 'traffic' END, 'fr', " +
+                "CASE WHEN r.country < 0.6 THEN 'FR' WHEN r.country < 0.75 THEN 'BE' " +
+                "WHEN r.country < 0.85 THEN 'CH' WHEN r.country < 0.95 THEN 'CA' ELSE 'LU' END, " +
+                "CASE WHEN r.region < 0.3 THEN NULL ELSE (ARRAY['IDF', 'ARA', 'BFC', 'BRE', 'CVL', 'COR', " +
+                "'GES', 'HDF', 'NOR', 'NAQ', 'OCC', 'PDL', 'PAC'])[1 + floor(r.region * 1000)::int % 13] END, " +
+                "'contents/' || r.i || '.txt', '1.0.0', " +
+                "CASE WHEN r.priority < 0.05 THEN 'URGENT' WHEN r.priority < 0.2 THEN 'HIGH' " +
+                "WHEN r.priority < 0.95 THEN 'NORMAL' ELSE 'LOW' END, " +
+                // Publication chronologique sur un an ; archivage au-delà de 30 jours
+                "CASE WHEN r.i > 183600 THEN 'ACTIVE' ELSE 'ARCHIVED' END, " +
+                "TIMESTAMP '2024-01-01' + r.i * INTERVAL '158 seconds', 2048, md5(r.i::text) " +
+                "FROM (SELECT i, random() AS type, random() AS country, random() AS region, " +
+                "random() AS priority FROM generate_series(1, 200000) AS i) AS r");
+        jdbcTemplate.execute("ANALYZE contents");
+        seeded = true;
+    }
+
+    @Test
+    void findActiveContentForRegion_ShouldUsePartialRegionIndex() {
+        String sql = hibernateSql(() -> contentRepository.findActiveContentForRegion("news", "FR", "IDF"));
+
+        String plan = explain(sql, "news", "FR", "IDF");
+
+        assertTrue(plan.contains("idx_contents_active_type_region"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void findActiveContentForCountry_ShouldUsePartialCountryIndex() {
+        String sql = hibernateSql(() -> contentRepository.findActiveContentForCountry("news", "FR"));
+
+        String plan = explain(sql, "news", "FR");
+
+        assertTrue(plan.contains("idx_contents_active_type_country"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    void countActiveContentByTypeAndCountry_ShouldUsePartialCountryIndex() {
+        String sql = hibernateSql(() -> contentRepository.countActiveContentByTypeAndCountry("weather", "BE"));
+
+        String plan = explain(sql, "weather", "BE");
+
+        assertTrue(plan.contains("idx_contents_active_type_country"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    /**
+     * Dernière requête SQL émise par Hibernate pendant l'appel
+     */
+    private static String hibernateSql(Runnable query) {
+        SqlRecorder.statements.clear();
+        query.run();
+        assertFalse(SqlRecorder.statements.isEmpty(), "No SQL recorded");
+        return SqlRecorder.statements.get(SqlRecorder.statements.size() - 1);
+    }
+
+    /**
+     * Plan d'une requête dont les paramètres sont remplacés par leurs valeurs, comme pour un plan spécifique
+     */
+    private String explain(String sql, String... parameters) {
+        StringBuilder bound = new StringBuilder();
+        int next = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                bound.append('\'').append(parameters[next++]).append('\'');
+            } else {
+                bound.append(c);
+            }
+        }
+        assertEquals(parameters.length, next, sql);
+
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + bound, String.class);
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Enregistre les requêtes SQL préparées par Hibernate
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.angel.update.repository;
+
+import com.angel.update.model.Content;
+import com.angel.update.model.ContentSummary;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des requêtes de projection de ContentRepository
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class ContentRepositoryTest {
+    
+    @Autowired
+    private ContentRepository contentRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Test
+    void findActiveContent_ShouldReturnSummariesForRegionOrWholeCountry() {
+        // Given
+        persist("fr/regions/idf/news/a.txt", "IDF", Content.ContentStatus.ACTIVE, Content.ContentPriority.NORMAL);
+        persist("fr/regions/paca/news/b.txt", "PACA", Content.ContentStatus.ACTIVE, Content.ContentPriority.NORMAL);
+        persist("fr/national/news/c.txt", null, Content.ContentStatus.ACTIVE, Content.ContentPriority.URGENT);
+        persist("fr/regions/idf/news/d.txt", "IDF", Content.ContentStatus.ARCHIVED, Content.ContentPriority.NORMAL);
+        entityManager.clear();
+        
+        // When
+        List<ContentSummary> regional = contentRepository.findActiveContent("news", "FR", "IDF");
+        List<ContentSummary> national = contentRepository.findActiveContent("news", "FR", null);
+        
+        // Then
+        assertEquals(List.of("fr/regions/idf/news/a.txt"), regional.stream().map(ContentSummary::filePath).toList());
+        assertEquals(3, national.size());
+        assertEquals("fr/national/news/c.txt", national.get(0).filePath());
+        assertEquals("checksum-fr/national/news/c.txt", national.get(0).checksum());
+    }
+    
+    @Test
+    void findById_ShouldNotLoadContentBody() {
+        // Given
+        Long id = persist("fr/national/news/a.txt", null, Content.ContentStatus.ACTIVE, Content.ContentPriority.NORMAL);
+        entityManager.clear();
+        
+        // When
+        Content content = contentRepository.findById(id).orElseThrow();
+        
+        // Then
+        assertFalse(Hibernate.isPropertyInitialized(content, "content"));
+        assertEquals("Corps de fr/national/news/a.txt", content.getContent());
+    }
+    
+    private Long persist(String filePath, String regionCode, Content.ContentStatus status,
+                         Content.ContentPriority priority) {
+        Content content = new Content();
+        content.setContentType("news");
+        content.setLanguageCode("fr");
+        content.setCountryCode("FR");
+        content.setRegionCode(regionCode);
+        content.setFilePath(filePath);
+        content.setContent("Corps de " + filePath);
+        content.setChecksum("checksum-" + filePath);
+        content.setFileSize(42L);
+        content.setStatus(status);
+        content.setPriority(priority);
+        content.setPublishedAt(LocalDateTime.now());
+        return entityManager.persistAndFlush(content).getId();
+    }
+}
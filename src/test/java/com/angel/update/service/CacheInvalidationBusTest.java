@@ -0,0 +1,82 @@
+package com.angel.update.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour CacheInvalidationBus
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private TieredCache tieredCache;
+
+    @Mock
+    private VersioningService versioningService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @BeforeEach
+    void setUp() {
+        cacheInvalidationBus = new CacheInvalidationBus(redisTemplate, listenerContainer, objectMapper,
+                tieredCache, versioningService);
+    }
+
+    @Test
+    void onMessage_FromAnotherPod_ShouldRefreshCatalogThenInvalidateLocalCache() throws Exception {
+        // Given
+        CacheInvalidationBus.Invalidation invalidation = new CacheInvalidationBus.Invalidation(
+                "other-pod", List.of(), "update:FR:IDF:*", false, true);
+
+        // When
+        cacheInvalidationBus.onMessage(message(objectMapper.writeValueAsString(invalidation)), null);
+
+        // Then
+        var inOrder = inOrder(versioningService, tieredCache);
+        inOrder.verify(versioningService).refreshCatalog();
+        inOrder.verify(tieredCache).invalidateLocalMatching("update:FR:IDF:*");
+        verify(tieredCache, never()).evictMatching(anyString());
+    }
+
+    @Test
+    void onMessage_FromSamePod_ShouldBeIgnored() {
+        // Given
+        cacheInvalidationBus.publish(List.of("updateResponses"), "content:*");
+        ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("angel:cache:invalidations"), sent.capture());
+
+        // When
+        cacheInvalidationBus.onMessage(message(sent.getValue()), null);
+
+        // Then
+        verifyNoInteractions(tieredCache, versioningService);
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage("angel:cache:invalidations".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
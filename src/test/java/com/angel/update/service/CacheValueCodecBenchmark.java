@@ -0,0 +1,145 @@
+package com.angel.update.service;
+
+import com.angel.update.collector.NewsCollector.NewsArticle;
+import com.angel.update.collector.WeatherCollector.ForecastDay;
+import com.angel.update.collector.WeatherCollector.WeatherData;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH : CacheValueCodec contre l'ancien stockage en chaîne JSON
+ * Mesure le coût CPU d'une écriture et d'une lecture typée ; la taille stockée de chaque
+ * encodage est affichée au démarrage de chaque essai
+ *
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="CacheValueCodecBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheValueCodecBenchmark {
+
+    @Param({"news", "weather"})
+    private String payload;
+
+    @Param({"SMILE", "JSON"})
+    private CacheValueCodec.Format format;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private CacheValueCodec cacheValueCodec;
+    private Object value;
+    private JavaType type;
+    private byte[] encoded;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        cacheValueCodec = new CacheValueCodec(objectMapper);
+        ReflectionTestUtils.setField(cacheValueCodec, "format", format);
+        cacheValueCodec.initialize();
+
+        if ("news".equals(payload)) {
+            value = newsArticles(50);
+            type = objectMapper.getTypeFactory().constructCollectionType(List.class, NewsArticle.class);
+        } else {
+            value = weatherData();
+            type = objectMapper.constructType(WeatherData.class);
+        }
+        encoded = cacheValueCodec.encode(value);
+        json = objectMapper.writeValueAsString(value);
+
+        System.out.printf("%n%s/%s: codec %d bytes, JSON string %d bytes%n", payload, format,
+                encoded.length, json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Benchmark
+    public byte[] codecEncode() throws Exception {
+        return cacheValueCodec.encode(value);
+    }
+
+    @Benchmark
+    public Object codecDecode() throws Exception {
+        return cacheValueCodec.decode(encoded, type);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        // Ancien chemin : writeValueAsString puis StringRedisSerializer
+        return objectMapper.writeValueAsString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object jsonDecode() throws Exception {
+        return objectMapper.readValue(json, type);
+    }
+
+    private List<NewsArticle> newsArticles(int count) {
+        List<NewsArticle> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            articles.add(NewsArticle.builder()
+                    .title("Grève RATP : le trafic fortement perturbé ce lundi, ligne " + i)
+                    .content("Le trafic reste très perturbé sur le réseau francilien ce lundi matin, "
+                            + "avec un train sur deux en moyenne aux heures de pointe (" + i + ").")
+                    .source("Le Parisien")
+                    .publishedAt(LocalDateTime.of(2024, 1, 15, 8, 0).plusMinutes(i))
+                    .countryCode("FR")
+                    .regionCode("IDF")
+                    .category("general")
+                    .language("fr")
+                    .imageUrl("https://news.example.org/images/" + i + ".jpg")
+                    .build());
+        }
+        return articles;
+    }
+
+    private WeatherData weatherData() {
+        List<ForecastDay> forecast = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            forecast.add(ForecastDay.builder()
+                    .date(LocalDateTime.of(2024, 1, 15, 0, 0).plusDays(i))
+                    .minTemp(2.5 + i)
+                    .maxTemp(9.0 + i)
+                    .condition(i % 2 == 0 ? "cloudy" : "rainy")
+                    .precipitationChance(40 + i * 10)
+                    .build());
+        }
+        return WeatherData.builder()
+                .city("Paris")
+                .countryCode("FR")
+                .temperature(7.4)
+                .feelsLike(5.1)
+                .humidity(82)
+                .pressure(1012)
+                .windSpeed(18)
+                .windDirection(240)
+                .visibility(10)
+                .uvIndex(1)
+                .condition("cloudy")
+                .description("Nuageux")
+                .timestamp(LocalDateTime.of(2024, 1, 15, 9, 0))
+                .forecast(forecast)
+                .build();
+    }
+}
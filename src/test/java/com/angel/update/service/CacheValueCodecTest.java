@@ -0,0 +1,103 @@
+package com.angel.update.service;
+
+import com.angel.update.collector.NewsCollector.NewsArticle;
+import com.angel.update.model.UpdateResponse;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour CacheValueCodec
+ */
+class CacheValueCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private CacheValueCodec cacheValueCodec;
+
+    @BeforeEach
+    void setUp() {
+        cacheValueCodec = new CacheValueCodec(objectMapper);
+        cacheValueCodec.initialize();
+    }
+
+    @Test
+    void encode_NewsArticles_ShouldBeSmallerThanJsonAndDecodeToTypedList() throws Exception {
+        // Given
+        List<NewsArticle> articles = newsArticles(50);
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, NewsArticle.class);
+        byte[] json = objectMapper.writeValueAsBytes(articles);
+
+        // When
+        byte[] encoded = cacheValueCodec.encode(articles);
+        List<NewsArticle> decoded = cacheValueCodec.decode(encoded, listType);
+
+        // Then
+        assertTrue(encoded.length * 3 < json.length,
+                "Encoded size " + encoded.length + " should be well below JSON size " + json.length);
+        assertEquals(articles.size(), decoded.size());
+        for (int i = 0; i < articles.size(); i++) {
+            assertEquals(articles.get(i).getTitle(), decoded.get(i).getTitle());
+            assertEquals(articles.get(i).getContent(), decoded.get(i).getContent());
+            assertEquals(articles.get(i).getPublishedAt(), decoded.get(i).getPublishedAt());
+        }
+    }
+
+    @Test
+    void decode_LegacyJsonValue_ShouldStillBeReadable() throws Exception {
+        // Given
+        UpdateResponse response = UpdateResponse.builder().hasUpdates(true).latestVersion("2.0.0").build();
+        byte[] legacy = objectMapper.writeValueAsString(response).getBytes(StandardCharsets.UTF_8);
+
+        // When
+        UpdateResponse decoded = cacheValueCodec.decode(legacy, cacheValueCodec.typeOf(UpdateResponse.class));
+
+        // Then
+        assertTrue(decoded.isHasUpdates());
+        assertEquals("2.0.0", decoded.getLatestVersion());
+    }
+
+    @Test
+    void encode_SmallValueWithJsonFormat_ShouldStayUncompressedAndReadableBySmileReader() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(cacheValueCodec, "format", CacheValueCodec.Format.JSON);
+        byte[] encoded = cacheValueCodec.encode("orage");
+
+        // When
+        ReflectionTestUtils.setField(cacheValueCodec, "format", CacheValueCodec.Format.SMILE);
+        String decoded = cacheValueCodec.decode(encoded, cacheValueCodec.typeOf(String.class));
+
+        // Then
+        assertEquals(CacheValueCodec.MAGIC, encoded[0]);
+        assertEquals(0, encoded[2]);
+        assertEquals("orage", decoded);
+    }
+
+    private List<NewsArticle> newsArticles(int count) {
+        List<NewsArticle> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            articles.add(NewsArticle.builder()
+                    .title("Titre de l'actualité numéro " + i)
+                    .content("Résumé de l'actualité régionale " + i + ", publié par la rédaction locale.")
+                    .source("Google News")
+                    .publishedAt(LocalDateTime.of(2024, 1, 15, 8, 0).plusMinutes(i))
+                    .countryCode("FR")
+                    .regionCode("IDF")
+                    .category("general")
+                    .language("fr")
+                    .imageUrl("https://news.example.org/images/" + i + ".jpg")
+                    .build());
+        }
+        return articles;
+    }
+}
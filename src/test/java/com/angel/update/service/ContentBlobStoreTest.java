@@ -0,0 +1,134 @@
+package com.angel.update.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour ContentBlobStore
+ */
+class ContentBlobStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path blobDir;
+    private ContentBlobStore contentBlobStore;
+
+    @BeforeEach
+    void setUp() {
+        blobDir = tempDir.resolve("blobs");
+        contentBlobStore = newStore();
+    }
+
+    @Test
+    void getOrCreate_IncompressibleFile_ShouldStoreRawBytes() throws Exception {
+        // Given
+        byte[] payload = randomBytes(200);
+        Path source = Files.write(tempDir.resolve("small.bin"), payload);
+
+        // When
+        ContentBlobStore.Blob blob = contentBlobStore.getOrCreate(source);
+
+        // Then
+        assertEquals(ZipEntry.STORED, blob.getMethod());
+        assertEquals(payload.length, blob.getCompressedSize());
+        assertArrayEquals(payload, blob.readContent());
+    }
+
+    @Test
+    void getOrCreate_LargeIncompressibleFile_ShouldStoreRawBytesAndCleanUp() throws Exception {
+        // Given
+        byte[] payload = randomBytes(3 * 1024 * 1024);
+        Path source = Files.write(tempDir.resolve("large.bin"), payload);
+
+        // When
+        ContentBlobStore.Blob blob = contentBlobStore.getOrCreate(source);
+
+        // Then
+        assertEquals(ZipEntry.STORED, blob.getMethod());
+        assertArrayEquals(payload, blob.readContent());
+        try (Stream<Path> files = Files.walk(blobDir)) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".tmp")),
+                    "Temporary files must not be left behind");
+        }
+    }
+
+    @Test
+    void register_AfterRestart_ShouldReuseBlobOfKnownChecksumWithoutReadingSource() throws Exception {
+        // Given
+        Path source = Files.writeString(tempDir.resolve("news.txt"), "Actualité du jour\n".repeat(100),
+                StandardCharsets.UTF_8);
+        ContentBlobStore.Blob stored = contentBlobStore.getOrCreate(source);
+        ContentBlobStore restarted = newStore();
+        Files.delete(source);
+
+        // When
+        ContentBlobStore.Blob found = restarted.find(stored.getChecksum());
+
+        // Then
+        assertNotNull(found);
+        assertEquals(ZipEntry.DEFLATED, found.getMethod());
+        assertEquals(stored.getCrc(), found.getCrc());
+        assertEquals(stored.getCompressedSize(), found.getCompressedSize());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 9})
+    void getOrCreate_ShouldCompressWithConfiguredLevel(int level) throws Exception {
+        // Given
+        byte[] payload = "Prévisions météo : averses orageuses en fin de journée.\n".repeat(2000)
+                .getBytes(StandardCharsets.UTF_8);
+        Path source = Files.write(tempDir.resolve("forecast.txt"), payload);
+        ReflectionTestUtils.setField(contentBlobStore, "compressionLevel", level);
+        
+        // When
+        ContentBlobStore.Blob blob = contentBlobStore.getOrCreate(source);
+        
+        // Then
+        assertEquals(ZipEntry.DEFLATED, blob.getMethod());
+        assertEquals(deflatedSize(payload, level), blob.getCompressedSize());
+        assertArrayEquals(payload, blob.readContent());
+    }
+
+    private long deflatedSize(byte[] payload, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            long size = 0;
+            while (!deflater.finished()) {
+                size += deflater.deflate(buffer);
+            }
+            return size;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private ContentBlobStore newStore() {
+        ContentBlobStore store = new ContentBlobStore();
+        ReflectionTestUtils.setField(store, "blobBasePath", blobDir.toString());
+        return store;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,152 @@
+package com.angel.update.service;
+
+import com.angel.update.model.ContentChange;
+import com.angel.update.model.RegionVersion;
+import com.angel.update.repository.ContentChangeRepository;
+import com.angel.update.repository.RegionVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ContentChangeLogService
+ */
+@ExtendWith(MockitoExtension.class)
+class ContentChangeLogServiceTest {
+    
+    @Mock
+    private ContentChangeRepository contentChangeRepository;
+    
+    @Mock
+    private RegionVersionRepository regionVersionRepository;
+    
+    private ContentChangeLogService contentChangeLogService;
+    
+    @BeforeEach
+    void setUp() {
+        contentChangeLogService = new ContentChangeLogService(contentChangeRepository, regionVersionRepository);
+    }
+    
+    @Test
+    void getChanges_OneVersionBehind_ShouldBeServedFromTailAfterPublish() {
+        // Given
+        when(contentChangeRepository.assignRegionalSequence("FR", "IDF", 5L)).thenReturn(2);
+        when(contentChangeRepository.findRegionalChanges("FR", "IDF", 4L, 5L)).thenReturn(List.of(
+                change("fr/regions/idf/news/a.txt", ContentChange.ChangeType.UPSERT),
+                change("fr/regions/idf/news/b.txt", ContentChange.ChangeType.DELETE)));
+        contentChangeLogService.publish("FR", "IDF", 5L);
+        
+        // When
+        ContentChangeLogService.ChangeSet changes = contentChangeLogService.getChanges("FR", "IDF", 4L, 5L);
+        
+        // Then
+        assertEquals(List.of("fr/regions/idf/news/a.txt"), changes.changedFiles());
+        assertEquals(List.of("fr/regions/idf/news/b.txt"), changes.deletedFiles());
+        verify(contentChangeRepository, times(1)).findRegionalChanges(anyString(), anyString(), anyLong(), anyLong());
+    }
+    
+    @Test
+    void getChanges_OneVersionBehind_ShouldNotCacheVersionNotYetCommitted() {
+        // Given
+        when(regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc("FR-IDF"))
+                .thenReturn(Optional.of(regionVersion("FR-IDF", 4L)));
+        when(contentChangeRepository.findRegionalChanges("FR", "IDF", 4L, 5L)).thenReturn(List.of());
+        
+        // When
+        contentChangeLogService.getChanges("FR", "IDF", 4L, 5L);
+        contentChangeLogService.getChanges("FR", "IDF", 4L, 5L);
+        
+        // Then
+        verify(contentChangeRepository, times(2)).findRegionalChanges("FR", "IDF", 4L, 5L);
+    }
+    
+    @Test
+    void getChanges_OneVersionBehind_ShouldCacheCommittedVersion() {
+        // Given
+        when(regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc("FR-IDF"))
+                .thenReturn(Optional.of(regionVersion("FR-IDF", 5L)));
+        when(contentChangeRepository.findRegionalChanges("FR", "IDF", 4L, 5L)).thenReturn(List.of(
+                change("fr/regions/idf/news/a.txt", ContentChange.ChangeType.UPSERT)));
+        
+        // When
+        contentChangeLogService.getChanges("FR", "IDF", 4L, 5L);
+        ContentChangeLogService.ChangeSet changes = contentChangeLogService.getChanges("FR", "IDF", 4L, 5L);
+        
+        // Then
+        assertEquals(List.of("fr/regions/idf/news/a.txt"), changes.changedFiles());
+        verify(contentChangeRepository, times(1)).findRegionalChanges("FR", "IDF", 4L, 5L);
+    }
+    
+    @Test
+    void getChanges_ShouldKeepLastChangeOfEachFile() {
+        // Given
+        when(contentChangeRepository.findNationalChanges("FR", 1L, 4L)).thenReturn(List.of(
+                change("fr/national/news/a.txt", ContentChange.ChangeType.UPSERT),
+                change("fr/national/news/b.txt", ContentChange.ChangeType.UPSERT),
+                change("fr/national/news/a.txt", ContentChange.ChangeType.DELETE),
+                change("fr/national/news/b.txt", ContentChange.ChangeType.DELETE),
+                change("fr/national/news/b.txt", ContentChange.ChangeType.UPSERT)));
+        
+        // When
+        ContentChangeLogService.ChangeSet changes = contentChangeLogService.getChanges("FR", null, 1L, 4L);
+        
+        // Then
+        assertEquals(List.of("fr/national/news/b.txt"), changes.changedFiles());
+        assertEquals(List.of("fr/national/news/a.txt"), changes.deletedFiles());
+    }
+    
+    @Test
+    void recordChange_ForRegionalContent_ShouldAlsoFeedNationalCatalog() {
+        // When
+        contentChangeLogService.recordChange("FR", "IDF", "fr/regions/idf/news/a.txt", "abc123",
+                ContentChange.ChangeType.UPSERT);
+        
+        // Then
+        verify(contentChangeRepository).save(argThat(change -> "IDF".equals(change.getRegionCode())));
+        verify(contentChangeRepository).save(argThat(change -> change.getRegionCode() == null));
+    }
+    
+    @Test
+    void getChecksumsAt_ShouldReturnLastPublishedRevisionOfEachFile() {
+        // Given
+        List<String> paths = List.of("fr/national/news/a.txt", "fr/national/news/b.txt", "fr/national/news/c.txt");
+        ContentChange a1 = change("fr/national/news/a.txt", ContentChange.ChangeType.UPSERT);
+        a1.setChecksum("a1");
+        ContentChange a2 = change("fr/national/news/a.txt", ContentChange.ChangeType.UPSERT);
+        a2.setChecksum("a2");
+        ContentChange b1 = change("fr/national/news/b.txt", ContentChange.ChangeType.UPSERT);
+        b1.setChecksum("b1");
+        ContentChange bDeleted = change("fr/national/news/b.txt", ContentChange.ChangeType.DELETE);
+        when(contentChangeRepository.findNationalHistory("FR", paths, 3L)).thenReturn(List.of(a1, b1, a2, bDeleted));
+        
+        // When
+        Map<String, String> checksums = contentChangeLogService.getChecksumsAt("FR", null, paths, 3L);
+        
+        // Then
+        assertEquals(Map.of("fr/national/news/a.txt", "a2"), checksums);
+    }
+    
+    private RegionVersion regionVersion(String regionKey, long sequence) {
+        RegionVersion version = new RegionVersion();
+        version.setRegionKey(regionKey);
+        version.setSequence(sequence);
+        return version;
+    }
+    
+    private ContentChange change(String filePath, ContentChange.ChangeType type) {
+        ContentChange change = new ContentChange();
+        change.setFilePath(filePath);
+        change.setChangeType(type);
+        return change;
+    }
+}
@@ -0,0 +1,110 @@
+package com.angel.update.service;
+
+import com.angel.update.model.Content;
+import com.angel.update.model.ContentFingerprint;
+import com.angel.update.repository.ContentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ContentChecksumIndex
+ */
+@ExtendWith(MockitoExtension.class)
+class ContentChecksumIndexTest {
+    
+    @Mock
+    private ContentRepository contentRepository;
+    
+    private ContentChecksumIndex contentChecksumIndex;
+    
+    @BeforeEach
+    void setUp() {
+        contentChecksumIndex = new ContentChecksumIndex(contentRepository);
+        when(contentRepository.findActiveFingerprints()).thenReturn(List.of(
+                new ContentFingerprint("fr/national/news/day.json", "aaa")));
+        contentChecksumIndex.initialize();
+    }
+    
+    @Test
+    void isUnchanged_WhenNotInFilter_ShouldNotQueryDatabase() {
+        // When
+        boolean unchanged = contentChecksumIndex.isUnchanged("fr/national/news/day.json", "bbb");
+        
+        // Then
+        assertFalse(unchanged);
+        verify(contentRepository, never()).findByChecksum(anyString());
+    }
+    
+    @Test
+    void isUnchanged_WhenLatestActiveRevisionMatches_ShouldSearchOnceThenConfirmByKey() {
+        // Given
+        Content content = new Content();
+        content.setId(7L);
+        content.setFilePath("fr/national/news/day.json");
+        content.setStatus(Content.ContentStatus.ACTIVE);
+        when(contentRepository.findByChecksum("aaa")).thenReturn(List.of(content));
+        when(contentRepository.existsNewerActiveContent("fr/national/news/day.json", 7L)).thenReturn(false);
+        when(contentRepository.isLatestActiveRevision(7L)).thenReturn(true);
+        
+        // When
+        boolean first = contentChecksumIndex.isUnchanged("fr/national/news/day.json", "aaa");
+        boolean second = contentChecksumIndex.isUnchanged("fr/national/news/day.json", "aaa");
+        
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(contentRepository, times(1)).findByChecksum("aaa");
+        verify(contentRepository, times(1)).isLatestActiveRevision(7L);
+    }
+    
+    @Test
+    void isUnchanged_WhenNewerRevisionExists_ShouldReportChange() {
+        // Given
+        Content content = new Content();
+        content.setId(7L);
+        content.setFilePath("fr/national/news/day.json");
+        content.setStatus(Content.ContentStatus.ACTIVE);
+        when(contentRepository.findByChecksum("aaa")).thenReturn(List.of(content));
+        when(contentRepository.existsNewerActiveContent("fr/national/news/day.json", 7L)).thenReturn(true);
+        
+        // When / Then
+        assertFalse(contentChecksumIndex.isUnchanged("fr/national/news/day.json", "aaa"));
+    }
+    
+    @Test
+    void record_ShouldMakeContentKnownWithPrimaryKeyCheckOnly() {
+        // Given
+        when(contentRepository.isLatestActiveRevision(12L)).thenReturn(true);
+        
+        // When
+        contentChecksumIndex.record("fr/regions/idf/weather/paris.json", "ccc", 12L);
+        
+        // Then
+        assertTrue(contentChecksumIndex.isUnchanged("fr/regions/idf/weather/paris.json", "ccc"));
+        verify(contentRepository, never()).findByChecksum(anyString());
+    }
+    
+    @Test
+    void isUnchanged_WhenCachedRevisionWasReplacedByAnotherPod_ShouldReportChange() {
+        // Given
+        contentChecksumIndex.record("fr/regions/idf/weather/paris.json", "ccc", 12L);
+        when(contentRepository.isLatestActiveRevision(12L)).thenReturn(false);
+        when(contentRepository.findByChecksum("ccc")).thenReturn(List.of());
+        
+        // When
+        boolean unchanged = contentChecksumIndex.isUnchanged("fr/regions/idf/weather/paris.json", "ccc");
+        
+        // Then
+        assertFalse(unchanged);
+        verify(contentRepository).findByChecksum("ccc");
+    }
+}
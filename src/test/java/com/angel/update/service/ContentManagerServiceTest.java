@@ -0,0 +1,413 @@
+package com.angel.update.service;
+
+import com.angel.update.model.Content;
+import com.angel.update.model.ContentChange;
+import com.angel.update.model.ContentItem;
+import com.angel.update.model.ContentSummary;
+import com.angel.update.repository.ContentRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ContentManagerService
+ */
+@ExtendWith(MockitoExtension.class)
+class ContentManagerServiceTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Mock
+    private ContentRepository contentRepository;
+
+    @Mock
+    private ContentBlobStore contentBlobStore;
+
+    @Mock
+    private VersioningService versioningService;
+
+    @Mock
+    private ContentChangeLogService contentChangeLogService;
+
+    @Mock
+    private ContentChecksumIndex contentChecksumIndex;
+    
+    @Mock
+    private CacheService cacheService;
+    
+    @Mock
+    private MultipartFile file;
+    
+    @Mock
+    private EntityManager entityManager;
+
+    private ContentManagerService contentManagerService;
+
+    @BeforeEach
+    void setUp() {
+        contentManagerService = new ContentManagerService(
+                contentRepository,
+                contentBlobStore,
+                versioningService,
+                contentChangeLogService,
+                contentChecksumIndex,
+                cacheService,
+                TransactionOperations.withoutTransaction()
+        );
+        ReflectionTestUtils.setField(contentManagerService, "baseDataPath", dataDir.toString());
+        ReflectionTestUtils.setField(contentManagerService, "entityManager", entityManager);
+    }
+
+    @Test
+    void uploadContent_ShouldStreamFileAndChecksumWithoutBuffering() throws Exception {
+        // Given
+        byte[] payload = "Recette du jour\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        when(file.getOriginalFilename()).thenReturn("recipe.txt");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(payload));
+        when(contentRepository.save(any(Content.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Content content = contentManagerService.uploadContent(file, "recipes", "FR", "IDF", "cuisine, hiver", "HIGH");
+
+        // Then
+        Path stored = dataDir.resolve("fr/regions/idf/recipes/recipe.txt");
+        assertArrayEquals(payload, Files.readAllBytes(stored));
+        assertEquals(sha256(payload), content.getChecksum());
+        assertEquals(payload.length, content.getFileSize());
+        assertEquals(Set.of("cuisine", "hiver"), content.getTags());
+        assertNull(content.getContent());
+        try (Stream<Path> files = Files.list(stored.getParent())) {
+            assertEquals(1, files.count(), "Temporary files must not be left behind");
+        }
+
+        verify(file, never()).getBytes();
+        verify(contentBlobStore).register(content.getChecksum(), stored);
+        verify(contentChangeLogService).recordChange("FR", "IDF", "fr/regions/idf/recipes/recipe.txt",
+                content.getChecksum(), ContentChange.ChangeType.UPSERT);
+    }
+
+    @Test
+    void uploadContent_InTransaction_ShouldMoveFileOnlyAfterCommit() throws Exception {
+        // Given
+        Path target = Files.createDirectories(dataDir.resolve("fr/regions/idf/recipes")).resolve("recipe.txt");
+        Files.writeString(target, "Ancienne recette");
+        byte[] payload = "Nouvelle recette".getBytes(StandardCharsets.UTF_8);
+        when(file.getOriginalFilename()).thenReturn("recipe.txt");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(payload));
+        when(contentRepository.save(any(Content.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            Content content = contentManagerService.uploadContent(file, "recipes", "FR", "IDF", null, "NORMAL");
+            
+            // Then
+            assertEquals("Ancienne recette", Files.readString(target));
+            verify(contentBlobStore, never()).register(anyString(), any(Path.class));
+            
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertArrayEquals(payload, Files.readAllBytes(target));
+            verify(contentBlobStore).register(content.getChecksum(), target);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void uploadContent_OnRollback_ShouldKeepServedFileAndDiscardStagedFile() throws Exception {
+        // Given
+        Path target = Files.createDirectories(dataDir.resolve("fr/regions/idf/recipes")).resolve("recipe.txt");
+        Files.writeString(target, "Ancienne recette");
+        when(file.getOriginalFilename()).thenReturn("recipe.txt");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(
+                "Nouvelle recette".getBytes(StandardCharsets.UTF_8)));
+        when(contentRepository.save(any(Content.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            contentManagerService.uploadContent(file, "recipes", "FR", "IDF", null, "NORMAL");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            
+            // Then
+            assertEquals("Ancienne recette", Files.readString(target));
+            try (Stream<Path> files = Files.list(target.getParent())) {
+                assertEquals(1, files.count(), "Staged file must be discarded");
+            }
+            verifyNoInteractions(contentBlobStore);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void uploadContent_WhenBodyStorageEnabled_ShouldTruncateBody() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(contentManagerService, "storeBody", true);
+        ReflectionTestUtils.setField(contentManagerService, "maxBodyLength", 10);
+        when(file.getOriginalFilename()).thenReturn("story.txt");
+        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(
+                "Il était une fois, très loin".getBytes(StandardCharsets.UTF_8)));
+        when(contentRepository.save(any(Content.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Content content = contentManagerService.uploadContent(file, "stories", "FR", null, null, "NORMAL");
+
+        // Then
+        assertEquals("Il était u", content.getContent());
+        assertEquals(30, content.getFileSize());
+    }
+
+    @Test
+    void ingestContent_WhenPayloadUnchanged_ShouldSkipItWithoutChangelogEntry() throws Exception {
+        // Given
+        byte[] unchanged = "Météo stable".getBytes(StandardCharsets.UTF_8);
+        byte[] updated = "Météo orageuse".getBytes(StandardCharsets.UTF_8);
+        when(contentChecksumIndex.isUnchanged("fr/national/weather/paris.json", sha256(unchanged))).thenReturn(true);
+        
+        // When
+        ContentManagerService.IngestResult result = contentManagerService.ingestContent(List.of(
+                weatherItem("paris.json", unchanged),
+                weatherItem("lyon.json", updated)));
+        
+        // Then
+        assertEquals(new ContentManagerService.IngestResult(1, 1, 0), result);
+        assertFalse(Files.exists(dataDir.resolve("fr/national/weather/paris.json")));
+        try (Stream<Path> files = Files.list(dataDir.resolve("fr/national/weather"))) {
+            assertEquals(List.of("lyon.json"), files.map(path -> path.getFileName().toString()).toList());
+        }
+        
+        verify(contentRepository).saveAll(anyList());
+        verify(contentChangeLogService).recordChanges(anyList(), eq(ContentChange.ChangeType.UPSERT));
+        verify(contentChecksumIndex).record(eq("fr/national/weather/lyon.json"), eq(sha256(updated)), any());
+        verify(contentChecksumIndex, never()).record(eq("fr/national/weather/paris.json"), anyString(), any());
+        verify(contentBlobStore).register(sha256(updated), dataDir.resolve("fr/national/weather/lyon.json"));
+    }
+    
+    @Test
+    void ingestContent_ShouldInsertByBatchesAndClearPersistenceContextAfterEach() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(contentManagerService, "ingestBatchSize", 2);
+        List<ContentItem> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(weatherItem("city-" + i + ".json", ("Prévision " + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        List<Integer> batchSizes = new ArrayList<>();
+        when(contentRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            batchSizes.add(((List<?>) invocation.getArgument(0)).size());
+            return invocation.getArgument(0);
+        });
+        
+        // When
+        ContentManagerService.IngestResult result = contentManagerService.ingestContent(items);
+        
+        // Then
+        assertEquals(new ContentManagerService.IngestResult(5, 0, 0), result);
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+        verify(contentBlobStore, times(5)).register(anyString(), any(Path.class));
+    }
+    
+    @Test
+    void ingestContent_WhenBatchInsertFails_ShouldCountFailuresAndLeaveFilesUntouched() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(contentManagerService, "ingestBatchSize", 2);
+        Path weatherDir = Files.createDirectories(dataDir.resolve("fr/national/weather"));
+        Files.writeString(weatherDir.resolve("city-2.json"), "Prévision d'hier");
+        List<ContentItem> items = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            items.add(weatherItem("city-" + i + ".json", ("Prévision " + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        when(contentRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("duplicate"));
+        
+        // When
+        ContentManagerService.IngestResult result = contentManagerService.ingestContent(items);
+        
+        // Then
+        assertEquals(new ContentManagerService.IngestResult(2, 0, 2), result);
+        assertEquals("Prévision d'hier", Files.readString(weatherDir.resolve("city-2.json")));
+        assertFalse(Files.exists(weatherDir.resolve("city-3.json")));
+        try (Stream<Path> files = Files.list(weatherDir)) {
+            assertEquals(Set.of("city-0.json", "city-1.json", "city-2.json"),
+                    files.map(path -> path.getFileName().toString()).collect(Collectors.toSet()),
+                    "Staged files of the failed batch must be removed");
+        }
+        verify(contentChecksumIndex, never()).record(eq("fr/national/weather/city-3.json"), anyString(), any());
+        verify(contentBlobStore, times(2)).register(anyString(), any(Path.class));
+    }
+    
+    @Test
+    void archiveOldContent_ShouldRecordTombstonesOnlyForPathsWithoutActiveRevision() {
+        // Given
+        LocalDateTime cutoff = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Content oldNews = storedContent(1L, "fr/national/news/2023-12-30.txt");
+        Content oldWeather = storedContent(2L, "fr/national/weather/paris.json");
+        when(contentRepository.findActivePublishedBefore(cutoff)).thenReturn(List.of(oldNews, oldWeather));
+        when(contentRepository.existsNewerActiveContent("fr/national/news/2023-12-30.txt", 1L)).thenReturn(false);
+        when(contentRepository.existsNewerActiveContent("fr/national/weather/paris.json", 2L)).thenReturn(true);
+        
+        // When
+        int archived = contentManagerService.archiveOldContent(cutoff);
+        
+        // Then
+        assertEquals(2, archived);
+        assertEquals(Content.ContentStatus.ARCHIVED, oldNews.getStatus());
+        assertEquals(Content.ContentStatus.ARCHIVED, oldWeather.getStatus());
+        verify(contentRepository).saveAll(List.of(oldNews, oldWeather));
+        verify(contentChangeLogService).recordChanges(List.of(oldNews), ContentChange.ChangeType.DELETE);
+        verify(contentChecksumIndex).forget("fr/national/news/2023-12-30.txt");
+        verify(contentChecksumIndex).forget("fr/national/weather/paris.json");
+        verify(cacheService).evictContentCache();
+    }
+    
+    @Test
+    void updateContentStatus_ArchivingLatestRevision_ShouldRecordTombstone() {
+        // Given
+        Content latest = storedContent(5L, "fr/national/news/a.txt");
+        when(contentRepository.findById(5L)).thenReturn(Optional.of(latest));
+        when(contentRepository.existsNewerActiveContent("fr/national/news/a.txt", 5L)).thenReturn(false);
+        
+        // When
+        contentManagerService.updateContentStatus(5L, Content.ContentStatus.ARCHIVED);
+        
+        // Then
+        assertEquals(Content.ContentStatus.ARCHIVED, latest.getStatus());
+        verify(contentChangeLogService).recordChange("FR", null, "fr/national/news/a.txt", "a".repeat(64),
+                ContentChange.ChangeType.DELETE);
+        verify(cacheService).evictContentCache();
+    }
+    
+    @Test
+    void updateContentStatus_ArchivingOlderRevision_ShouldKeepNewerRevisionPublished() {
+        // Given
+        Content older = storedContent(3L, "fr/national/news/a.txt");
+        when(contentRepository.findById(3L)).thenReturn(Optional.of(older));
+        when(contentRepository.existsNewerActiveContent("fr/national/news/a.txt", 3L)).thenReturn(true);
+        
+        // When
+        contentManagerService.updateContentStatus(3L, Content.ContentStatus.ARCHIVED);
+        
+        // Then
+        verify(contentRepository).save(older);
+        verify(contentChangeLogService, never()).recordChange(any(), any(), any(), any(), any());
+        verify(cacheService).evictContentCache();
+    }
+    
+    @Test
+    void updateContentStatus_ReactivatingOlderRevision_ShouldNotPublishStaleChecksum() {
+        // Given
+        Content older = storedContent(3L, "fr/national/news/a.txt");
+        older.setStatus(Content.ContentStatus.ARCHIVED);
+        when(contentRepository.findById(3L)).thenReturn(Optional.of(older));
+        when(contentRepository.existsNewerActiveContent("fr/national/news/a.txt", 3L)).thenReturn(true);
+        
+        // When
+        contentManagerService.updateContentStatus(3L, Content.ContentStatus.ACTIVE);
+        
+        // Then
+        assertEquals(Content.ContentStatus.ACTIVE, older.getStatus());
+        verify(contentChangeLogService, never()).recordChange(any(), any(), any(), any(), any());
+        verify(cacheService).evictContentCache();
+    }
+    
+    @Test
+    void updateContentStatus_WithUnchangedStatus_ShouldDoNothing() {
+        // Given
+        Content content = storedContent(5L, "fr/national/news/a.txt");
+        when(contentRepository.findById(5L)).thenReturn(Optional.of(content));
+        
+        // When
+        contentManagerService.updateContentStatus(5L, Content.ContentStatus.ACTIVE);
+        
+        // Then
+        verify(contentRepository, never()).save(any());
+        verifyNoInteractions(contentChangeLogService, cacheService);
+    }
+    
+    @Test
+    void getActiveContent_OnCacheMiss_ShouldLoadAndCacheTypedSummaries() {
+        // Given
+        List<ContentSummary> contents = List.of(new ContentSummary(1L, "news", "FR", "IDF",
+                "fr/regions/idf/news/a.txt", "a".repeat(64), 10L, "1.0.0", Content.ContentPriority.NORMAL,
+                LocalDateTime.of(2024, 1, 15, 8, 0)));
+        when(contentRepository.findActiveContent("news", "FR", "IDF")).thenReturn(contents);
+        
+        // When
+        List<ContentSummary> result = contentManagerService.getActiveContent("news", "FR", "IDF");
+        
+        // Then
+        assertEquals(contents, result);
+        verify(cacheService).getContentCache(eq("news"), eq("FR"), eq("IDF"),
+                argThat(type -> type.isCollectionLikeType() && type.getContentType().getRawClass() == ContentSummary.class));
+        verify(cacheService).putContentCache("news", "FR", "IDF", contents);
+    }
+    
+    @Test
+    void getActiveContent_OnCacheHit_ShouldNotQueryRepository() {
+        // Given
+        List<ContentSummary> cached = List.of();
+        when(cacheService.<List<ContentSummary>>getContentCache(eq("news"), eq("FR"), isNull(), any())).thenReturn(cached);
+        
+        // When
+        List<ContentSummary> result = contentManagerService.getActiveContent("news", "FR", null);
+        
+        // Then
+        assertSame(cached, result);
+        verifyNoInteractions(contentRepository);
+    }
+    
+    private Content storedContent(Long id, String filePath) {
+        Content content = new Content();
+        content.setId(id);
+        content.setContentType("news");
+        content.setCountryCode("FR");
+        content.setFilePath(filePath);
+        content.setChecksum("a".repeat(64));
+        return content;
+    }
+    
+    private ContentItem weatherItem(String fileName, byte[] payload) {
+        return ContentItem.builder()
+                .contentType("weather")
+                .countryCode("FR")
+                .fileName(fileName)
+                .source(() -> new ByteArrayInputStream(payload))
+                .build();
+    }
+    
+    private String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,88 @@
+package com.angel.update.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour PackageIndexService
+ */
+@ExtendWith(MockitoExtension.class)
+class PackageIndexServiceTest {
+
+    @Mock
+    private ContentManagerService contentManagerService;
+
+    @Mock
+    private ZipBuilderService zipBuilderService;
+
+    private PackageIndexService packageIndexService;
+
+    @BeforeEach
+    void setUp() {
+        packageIndexService = new PackageIndexService(contentManagerService, zipBuilderService);
+        ReflectionTestUtils.setField(packageIndexService, "buildThreads", 1);
+        packageIndexService.initialize();
+        when(contentManagerService.getChangedFiles("FR", "IDF", "1.0.0", "1.1.0"))
+                .thenReturn(List.of("fr/regions/idf/news/a.txt"));
+        when(zipBuilderService.buildUpdatePackage(eq("FR"), eq("IDF"), eq("1.0.0"), eq("1.1.0"), anyList(), any()))
+                .thenThrow(new IllegalStateException("Error building update package"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        packageIndexService.shutdown();
+    }
+
+    @Test
+    void requestBuild_AfterFailure_ShouldWaitForBackoffBeforeRetrying() {
+        // Given
+        packageIndexService.requestBuild("FR", "IDF", "1.0.0", "1.1.0");
+        awaitIdle();
+
+        // When
+        packageIndexService.requestBuild("FR", "IDF", "1.0.0", "1.1.0");
+        awaitIdle();
+
+        // Then
+        verify(contentManagerService, times(1)).getChangedFiles("FR", "IDF", "1.0.0", "1.1.0");
+        assertFalse(packageIndexService.isBuildFailing("FR", "IDF", "1.0.0", "1.1.0"));
+    }
+
+    @Test
+    void isBuildFailing_AfterMaxAttempts_ShouldReportFailure() {
+        // Given
+        ReflectionTestUtils.setField(packageIndexService, "retryBackoffMs", 0L);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            packageIndexService.requestBuild("FR", "IDF", "1.0.0", "1.1.0");
+            awaitIdle();
+        }
+
+        // Then
+        verify(contentManagerService, times(3)).getChangedFiles("FR", "IDF", "1.0.0", "1.1.0");
+        assertTrue(packageIndexService.isBuildFailing("FR", "IDF", "1.0.0", "1.1.0"));
+        assertEquals(0, packageIndexService.getIndexedPackageCount());
+    }
+
+    private void awaitIdle() {
+        Set<?> pendingBuilds = (Set<?>) ReflectionTestUtils.getField(packageIndexService, "pendingBuilds");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!pendingBuilds.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(pendingBuilds.isEmpty(), "Build did not complete");
+    }
+}
@@ -0,0 +1,87 @@
+package com.angel.update.service;
+
+import com.angel.update.model.ManifestEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour PackageManifest
+ */
+class PackageManifestTest {
+
+    private static final String CHECKSUM = "a".repeat(64);
+    private static final String BASE_CHECKSUM = "0123456789abcdef".repeat(4);
+
+    @Test
+    void encode_ThenDecode_ShouldRestoreEveryEntryType() throws Exception {
+        // Given
+        List<ManifestEntry> entries = List.of(
+                ManifestEntry.builder()
+                        .type(ManifestEntry.Type.FILE)
+                        .path("fr/regions/idf/news/actualité.txt")
+                        .contentType("news")
+                        .size(1234L)
+                        .crc(0xFFFFFFFEL)
+                        .checksum(CHECKSUM)
+                        .build(),
+                ManifestEntry.builder()
+                        .type(ManifestEntry.Type.PATCH)
+                        .path("fr/national/weather/forecast.txt.patch")
+                        .contentType("weather")
+                        .size(56L)
+                        .crc(42L)
+                        .checksum(CHECKSUM)
+                        .baseChecksum(BASE_CHECKSUM)
+                        .build(),
+                ManifestEntry.builder()
+                        .type(ManifestEntry.Type.DELETE)
+                        .path("fr/national/news/old.txt")
+                        .contentType("news")
+                        .build());
+
+        // When
+        List<ManifestEntry> decoded = PackageManifest.decode(PackageManifest.encode("1.0.0", "1.1.0", entries));
+
+        // Then
+        assertEquals(entries, decoded);
+    }
+
+    @Test
+    void deleteEntry_ShouldSerializeWithoutSizeOrCrc() throws Exception {
+        // Given
+        ManifestEntry entry = ManifestEntry.builder()
+                .type(ManifestEntry.Type.DELETE)
+                .path("fr/national/news/old.txt")
+                .contentType("news")
+                .build();
+        
+        // When
+        String json = new ObjectMapper().writeValueAsString(entry);
+        
+        // Then
+        assertEquals("{\"type\":\"DELETE\",\"path\":\"fr/national/news/old.txt\",\"contentType\":\"news\"}", json);
+    }
+    
+    @Test
+    void decode_TruncatedManifest_ShouldFail() throws Exception {
+        // Given
+        byte[] encoded = PackageManifest.encode("1.0.0", "1.1.0", List.of(ManifestEntry.builder()
+                .type(ManifestEntry.Type.FILE)
+                .path("fr/national/news/a.txt")
+                .contentType("news")
+                .size(10L)
+                .crc(1L)
+                .checksum(CHECKSUM)
+                .build()));
+
+        // When / Then
+        assertThrows(IOException.class,
+                () -> PackageManifest.decode(Arrays.copyOf(encoded, encoded.length - 5)));
+    }
+}
@@ -0,0 +1,312 @@
+package com.angel.update.service;
+
+import com.angel.update.config.AppConfig;
+import com.angel.update.model.UpdateResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisSetCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour TieredCache
+ */
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class TieredCacheTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    @Mock
+    private RedisSetCommands setCommands;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    @Mock
+    private RedisZSetCommands zSetCommands;
+
+    private CacheValueCodec cacheValueCodec;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TieredCache tieredCache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        lenient().when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient().when(connection.setCommands()).thenReturn(setCommands);
+        lenient().when(connection.keyCommands()).thenReturn(keyCommands);
+        lenient().when(connection.zSetCommands()).thenReturn(zSetCommands);
+        lenient().when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation ->
+                invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        lenient().when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+        cacheValueCodec = new CacheValueCodec(new ObjectMapper().registerModule(new JavaTimeModule()));
+        cacheValueCodec.initialize();
+        tieredCache = new TieredCache(redisTemplate, cacheValueCodec, new AppConfig(), meterRegistry);
+        tieredCache.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tieredCache.shutdown();
+    }
+
+    @Test
+    void get_WhenOnlyInRedis_ShouldPromoteToLocalCache() throws Exception {
+        // Given
+        UpdateResponse response = UpdateResponse.builder().hasUpdates(false).latestVersion("1.2.0").build();
+        when(stringCommands.get(aryEq(bytes("update:FR")))).thenReturn(cacheValueCodec.encode(response));
+
+        // When
+        UpdateResponse first = tieredCache.get("updateResponses", "update:FR", UpdateResponse.class);
+        UpdateResponse second = tieredCache.get("updateResponses", "update:FR", UpdateResponse.class);
+
+        // Then
+        assertEquals("1.2.0", first.getLatestVersion());
+        assertSame(first, second);
+        verify(stringCommands, times(1)).get(any(byte[].class));
+        assertEquals(1.0, meterRegistry.get("cache.l2.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("tier", "l1", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_WhenMissingEverywhere_ShouldLoadOnceAndWriteBehind() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        String first = tieredCache.get("news", "news:FR:national", String.class,
+                () -> "actualités-" + loads.incrementAndGet(), Duration.ofMinutes(15));
+        String second = tieredCache.get("news", "news:FR:national", String.class,
+                () -> "actualités-" + loads.incrementAndGet(), Duration.ofMinutes(15));
+
+        // Then
+        assertEquals("actualités-1", first);
+        assertEquals(first, second);
+        ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<Expiration> expiration = ArgumentCaptor.forClass(Expiration.class);
+        verify(stringCommands, timeout(2000)).set(aryEq(bytes("news:FR:national")), written.capture(),
+                expiration.capture(), eq(RedisStringCommands.SetOption.upsert()));
+        assertEquals("actualités-1", cacheValueCodec.decode(written.getValue(), cacheValueCodec.typeOf(String.class)));
+        assertEquals(900, expiration.getValue().getExpirationTimeInSeconds());
+        verify(zSetCommands, timeout(2000)).zAdd(aryEq(bytes("cache-index:v2:news:FR")), anyDouble(),
+                aryEq(bytes("news:FR:national")));
+        verify(setCommands, timeout(2000)).sAdd(aryEq(bytes("cache-index")), aryEq(bytes("news:FR")));
+        assertEquals(1.0, meterRegistry.get("cache.l2.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void evict_ShouldDropPendingWriteAndBothTiers() {
+        // Given
+        AtomicBoolean drainScheduled = (AtomicBoolean) ReflectionTestUtils.getField(tieredCache, "drainScheduled");
+        drainScheduled.set(true);
+        tieredCache.put("weather", "weather:FR:IDF", "orage", Duration.ofMinutes(10));
+        assertEquals(1, tieredCache.pendingWriteCount());
+
+        // When
+        tieredCache.evict("weather", "weather:FR:IDF");
+        tieredCache.drainPendingWrites();
+
+        // Then
+        assertNull(tieredCache.get("weather", "weather:FR:IDF", String.class));
+        verify(redisTemplate).delete("weather:FR:IDF");
+        verify(stringCommands, never()).set(any(byte[].class), any(byte[].class), any(Expiration.class),
+                any(RedisStringCommands.SetOption.class));
+    }
+
+    @Test
+    void evictMatching_WithRegionPrefix_ShouldEvictOnlyNamespacesOfThatRegionAtomically() {
+        // Given
+        when(setOperations.members("cache-index")).thenReturn(Set.of("update:FR:IDF", "update:FR:PACA", "news:FR"));
+
+        // When
+        tieredCache.evictMatching("update:FR:IDF:*");
+
+        // Then
+        verify(redisTemplate).execute(eq(TieredCache.EVICT_NAMESPACE),
+                eq(List.of("cache-index:v2:update:FR:IDF", "cache-index")), eq("update:FR:IDF"));
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        verify(zSetOperations, never()).rangeByScore(anyString(), anyDouble(), anyDouble());
+        verify(redisTemplate, never()).keys(anyString());
+    }
+
+    @Test
+    void evictMatching_WithinNamespace_ShouldRemoveOnlyLiveMatchingKeys() {
+        // Given
+        when(setOperations.members("cache-index")).thenReturn(Set.of("news:FR"));
+        when(zSetOperations.rangeByScore(eq("cache-index:v2:news:FR"), anyDouble(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(new LinkedHashSet<>(List.of("news:FR:IDF", "news:FR:national")));
+
+        // When
+        tieredCache.evictMatching("news:FR:IDF*");
+
+        // Then
+        verify(redisTemplate).execute(eq(TieredCache.EVICT_KEYS),
+                eq(List.of("cache-index:v2:news:FR", "cache-index")), eq("news:FR"), eq("news:FR:IDF"));
+    }
+
+    @Test
+    void put_ShouldPruneExpiredIndexMembers() {
+        // Given
+        long before = System.currentTimeMillis();
+
+        // When
+        tieredCache.put("update", "update:FR:IDF:3:1.0.0", "réponse", Duration.ofMinutes(5));
+        tieredCache.drainPendingWrites();
+
+        // Then
+        ArgumentCaptor<Double> score = ArgumentCaptor.forClass(Double.class);
+        verify(zSetCommands, timeout(2000)).zAdd(aryEq(bytes("cache-index:v2:update:FR:IDF:3")), score.capture(),
+                aryEq(bytes("update:FR:IDF:3:1.0.0")));
+        assertTrue(score.getValue() >= before + Duration.ofMinutes(5).toMillis());
+        ArgumentCaptor<Double> cutoff = ArgumentCaptor.forClass(Double.class);
+        verify(zSetCommands, timeout(2000)).zRemRangeByScore(aryEq(bytes("cache-index:v2:update:FR:IDF:3")),
+                eq(Double.NEGATIVE_INFINITY), cutoff.capture());
+        assertTrue(cutoff.getValue() >= before && cutoff.getValue() < score.getValue());
+    }
+
+    @Test
+    void evictMatching_WithArbitraryPattern_ShouldFallBackToScan() {
+        // Given
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn("weather:FR:IDF", "weather:BE:IDF");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+
+        // When
+        tieredCache.evictMatching("weather:*:IDF");
+
+        // Then
+        verify(redisTemplate).delete(List.of("weather:FR:IDF", "weather:BE:IDF"));
+        verify(cursor).close();
+        verify(redisTemplate, never()).keys(anyString());
+    }
+
+    @Test
+    void evictAll_ShouldEvictEveryIndexedNamespaceWithoutFlushingDatabase() {
+        // Given
+        when(setOperations.members("cache-index")).thenReturn(Set.of("news:FR"));
+
+        // When
+        tieredCache.evictAll();
+
+        // Then
+        verify(redisTemplate).execute(eq(TieredCache.EVICT_NAMESPACE),
+                eq(List.of("cache-index:v2:news:FR", "cache-index")), eq("news:FR"));
+        verify(redisTemplate, never()).getConnectionFactory();
+    }
+
+    @Test
+    void putAll_ShouldWriteWholeBatchInOnePipelineWithPerKeyTtl() {
+        // Given
+        AtomicBoolean drainScheduled = (AtomicBoolean) ReflectionTestUtils.getField(tieredCache, "drainScheduled");
+        drainScheduled.set(true);
+        List<TieredCache.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entries.add(new TieredCache.Entry("weather", "weather:FR:R" + i, "soleil " + i, Duration.ofMinutes(10)));
+        }
+        entries.add(new TieredCache.Entry("news", "news:FR:national", "actualités", Duration.ofMinutes(15)));
+
+        // When
+        tieredCache.putAll(entries);
+        tieredCache.drainPendingWrites();
+
+        // Then
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        ArgumentCaptor<Expiration> expirations = ArgumentCaptor.forClass(Expiration.class);
+        verify(stringCommands, times(21)).set(any(byte[].class), any(byte[].class), expirations.capture(),
+                eq(RedisStringCommands.SetOption.upsert()));
+        assertEquals(List.of(600L, 900L), expirations.getAllValues().stream()
+                .map(Expiration::getExpirationTimeInSeconds).distinct().toList());
+        assertEquals("soleil 3", tieredCache.get("weather", "weather:FR:R3", String.class));
+    }
+
+    @Test
+    void getAll_ShouldServeLocalHitsAndFetchTheRestWithOneMget() throws Exception {
+        // Given
+        AtomicBoolean drainScheduled = (AtomicBoolean) ReflectionTestUtils.getField(tieredCache, "drainScheduled");
+        drainScheduled.set(true);
+        tieredCache.put("weather", "weather:FR:IDF", "pluie", Duration.ofMinutes(10));
+        when(stringCommands.mGet(any(byte[][].class))).thenReturn(
+                Arrays.asList(cacheValueCodec.encode("mistral"), null));
+
+        // When
+        Map<String, String> values = tieredCache.getAll("weather",
+                List.of("weather:FR:IDF", "weather:FR:PACA", "weather:FR:BRE"), cacheValueCodec.typeOf(String.class));
+
+        // Then
+        assertEquals(Map.of("weather:FR:IDF", "pluie", "weather:FR:PACA", "mistral"), values);
+        verify(stringCommands).mGet(aryEq(bytes("weather:FR:PACA")), aryEq(bytes("weather:FR:BRE")));
+        assertEquals("mistral", tieredCache.get("weather", "weather:FR:PACA", String.class));
+    }
+
+    @Test
+    void globMatcher_ShouldFollowRedisPatternSyntax() {
+        assertTrue(TieredCache.globMatcher("news:FR:*").test("news:FR:national"));
+        assertTrue(TieredCache.globMatcher("weather:??:IDF").test("weather:FR:IDF"));
+        assertFalse(TieredCache.globMatcher("news:FR:*").test("weather:FR:national"));
+        assertFalse(TieredCache.globMatcher("content.*").test("contentX"));
+        assertEquals("update:FR:", TieredCache.literalPrefix("update:FR:*"));
+        assertNull(TieredCache.literalPrefix("weather:*:IDF"));
+        assertEquals("update:FR:IDF", TieredCache.namespaceOf("update:FR:IDF:1.0.0"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
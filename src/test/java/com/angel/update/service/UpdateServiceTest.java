@@ -1,12 +1,13 @@
 package com.angel.update.service;
 
+import com.angel.update.model.ManifestEntry;
+import com.angel.update.model.PackageDescriptor;
 import com.angel.update.model.UpdateResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.Resource;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,9 +22,6 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class UpdateServiceTest {
     
-    @Mock
-    private ContentManagerService contentManagerService;
-    
     @Mock
     private ZipBuilderService zipBuilderService;
     
@@ -33,15 +31,18 @@ class UpdateServiceTest {
     @Mock
     private CacheService cacheService;
     
+    @Mock
+    private PackageIndexService packageIndexService;
+    
     private UpdateService updateService;
     
     @BeforeEach
     void setUp() {
         updateService = new UpdateService(
-                contentManagerService,
                 zipBuilderService,
                 versioningService,
-                cacheService
+                cacheService,
+                packageIndexService
         );
     }
     
@@ -85,12 +86,13 @@ class UpdateServiceTest {
         when(cacheService.getUpdateResponse(anyString())).thenReturn(null);
         when(versioningService.getLatestVersion(countryCode, regionCode)).thenReturn(latestVersion);
         when(versioningService.isNewerVersion(latestVersion, currentVersion)).thenReturn(true);
-        when(contentManagerService.getChangedFiles(countryCode, regionCode, currentVersion, latestVersion))
-                .thenReturn(changedFiles);
-        when(zipBuilderService.buildUpdatePackage(countryCode, regionCode, currentVersion, latestVersion, changedFiles))
-                .thenReturn(packagePath);
-        when(zipBuilderService.getPackageSize(packagePath)).thenReturn(1024L);
-        when(zipBuilderService.calculateChecksum(packagePath)).thenReturn("abc123");
+        when(packageIndexService.findPackage(countryCode, regionCode, currentVersion, latestVersion))
+                .thenReturn(PackageDescriptor.builder()
+                        .packagePath(packagePath)
+                        .packageSize(1024L)
+                        .checksum("abc123")
+                        .changedFiles(changedFiles)
+                        .build());
         when(versioningService.getReleaseDate(latestVersion)).thenReturn(LocalDateTime.now());
         when(versioningService.getReleaseNotes(latestVersion)).thenReturn("New features and bug fixes");
         when(versioningService.isMandatoryUpdate(currentVersion, latestVersion)).thenReturn(false);
@@ -102,7 +104,8 @@ class UpdateServiceTest {
         assertNotNull(response);
         assertTrue(response.isHasUpdates());
         assertEquals(latestVersion, response.getLatestVersion());
-        assertEquals("/api/v1/update/download/" + latestVersion, response.getDownloadUrl());
+        assertEquals("/api/v1/update/download/" + latestVersion + "?countryCode=FR&regionCode=IDF&fromVersion=1.0.0",
+                response.getDownloadUrl());
         assertEquals(1024L, response.getPackageSize());
         assertEquals("abc123", response.getChecksum());
         assertEquals(changedFiles, response.getChangedFiles());
@@ -111,6 +114,98 @@ class UpdateServiceTest {
         assertEquals("Update available", response.getMessage());
         
         verify(cacheService).putUpdateResponse(anyString(), eq(response));
+        verifyNoInteractions(zipBuilderService);
+    }
+    
+    @Test
+    void checkForUpdates_WithManifest_ShouldNotRepeatChangedFiles() {
+        // Given
+        List<String> changedFiles = List.of("fr/regions/idf/news/a.txt");
+        List<ManifestEntry> manifest = List.of(ManifestEntry.builder()
+                .type(ManifestEntry.Type.FILE)
+                .path("fr/regions/idf/news/a.txt")
+                .contentType("news")
+                .build());
+        when(cacheService.getUpdateResponse(anyString())).thenReturn(null);
+        when(versioningService.getLatestVersion("FR", "IDF")).thenReturn("1.1.0");
+        when(versioningService.isNewerVersion("1.1.0", "1.0.0")).thenReturn(true);
+        when(packageIndexService.findPackage("FR", "IDF", "1.0.0", "1.1.0"))
+                .thenReturn(PackageDescriptor.builder()
+                        .packagePath("/data/packages/update-fr-idf-1.0.0-1.1.0.zip")
+                        .changedFiles(changedFiles)
+                        .manifest(manifest)
+                        .build());
+        
+        // When
+        UpdateResponse response = updateService.checkForUpdates("FR", "IDF", "1.0.0", "fr");
+        
+        // Then
+        assertNull(response.getChangedFiles());
+        assertEquals(manifest, response.getManifest());
+        assertEquals(1, response.getChangesSummary().get("news"));
+    }
+    
+    @Test
+    void checkForUpdates_ShouldKeyCachedResponseByCatalogSequence() {
+        // Given
+        when(versioningService.getLatestSequence("FR", "IDF")).thenReturn(7L);
+        UpdateResponse cached = UpdateResponse.builder().hasUpdates(false).latestVersion("1.0.0").build();
+        when(cacheService.getUpdateResponse("update:FR:IDF:7:1.0.0")).thenReturn(cached);
+        
+        // When
+        UpdateResponse response = updateService.checkForUpdates("FR", "IDF", "1.0.0", "fr");
+        
+        // Then
+        assertSame(cached, response);
+        verify(versioningService, never()).getLatestVersion(anyString(), anyString());
+    }
+    
+    @Test
+    void checkForUpdates_WhenPackageNotYetBuilt_ShouldRequestBackgroundBuild() {
+        // Given
+        String countryCode = "FR";
+        String regionCode = "IDF";
+        String currentVersion = "1.0.0";
+        String latestVersion = "1.1.0";
+        
+        when(cacheService.getUpdateResponse(anyString())).thenReturn(null);
+        when(versioningService.getLatestVersion(countryCode, regionCode)).thenReturn(latestVersion);
+        when(versioningService.isNewerVersion(latestVersion, currentVersion)).thenReturn(true);
+        when(packageIndexService.findPackage(countryCode, regionCode, currentVersion, latestVersion))
+                .thenReturn(null);
+        
+        // When
+        UpdateResponse response = updateService.checkForUpdates(countryCode, regionCode, currentVersion, "fr");
+        
+        // Then
+        assertTrue(response.isHasUpdates());
+        assertEquals(latestVersion, response.getLatestVersion());
+        assertNull(response.getDownloadUrl());
+        assertEquals("Update package is being prepared", response.getMessage());
+        
+        // Aucune construction sur le thread de la requête, et pas de mise en cache
+        verify(packageIndexService).requestBuild(countryCode, regionCode, currentVersion, latestVersion);
+        verifyNoInteractions(zipBuilderService);
+        verify(cacheService, never()).putUpdateResponse(anyString(), any());
+    }
+    
+    @Test
+    void checkForUpdates_WhenPackageBuildKeepsFailing_ShouldReportUnavailablePackage() {
+        // Given
+        when(cacheService.getUpdateResponse(anyString())).thenReturn(null);
+        when(versioningService.getLatestVersion("FR", "IDF")).thenReturn("1.1.0");
+        when(versioningService.isNewerVersion("1.1.0", "1.0.0")).thenReturn(true);
+        when(packageIndexService.isBuildFailing("FR", "IDF", "1.0.0", "1.1.0")).thenReturn(true);
+        
+        // When
+        UpdateResponse response = updateService.checkForUpdates("FR", "IDF", "1.0.0", "fr");
+        
+        // Then
+        assertTrue(response.isHasUpdates());
+        assertEquals("1.1.0", response.getLatestVersion());
+        assertNull(response.getDownloadUrl());
+        assertEquals("Update package is temporarily unavailable", response.getMessage());
+        assertTrue(response.getNextCheckTime().isAfter(LocalDateTime.now().plusMinutes(30)));
     }
     
     @Test
@@ -136,26 +231,28 @@ class UpdateServiceTest {
         assertEquals(cachedResponse, response);
         assertEquals("Cached response", response.getMessage());
         
-        // Vérifier que les autres services ne sont pas appelés
-        verifyNoInteractions(versioningService, contentManagerService, zipBuilderService);
+        // Seule la séquence du catalogue, en mémoire, est lue pour construire la clé
+        verify(versioningService).getLatestSequence(countryCode, regionCode);
+        verifyNoMoreInteractions(versioningService);
+        verifyNoInteractions(packageIndexService, zipBuilderService);
     }
     
     @Test
-    void getUpdatePackage_WhenPackageExists_ShouldReturnResource() {
+    void getUpdatePackage_WhenPackageIsMissing_ShouldThrow() {
         // Given
         String version = "1.1.0";
         String countryCode = "FR";
         String regionCode = "IDF";
         String packagePath = "/data/packages/update-fr-idf-1.1.0.zip";
         
-        when(zipBuilderService.getPackagePath(version, countryCode, regionCode)).thenReturn(packagePath);
+        when(zipBuilderService.getPackagePath(null, version, countryCode, regionCode)).thenReturn(packagePath);
         
         // When & Then
         assertThrows(RuntimeException.class, () -> {
-            updateService.getUpdatePackage(version, countryCode, regionCode);
+            updateService.getUpdatePackage(version, countryCode, regionCode, null);
         });
         
-        verify(zipBuilderService).getPackagePath(version, countryCode, regionCode);
+        verify(zipBuilderService).getPackagePath(null, version, countryCode, regionCode);
     }
     
     @Test
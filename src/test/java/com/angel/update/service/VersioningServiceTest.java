@@ -0,0 +1,174 @@
+package com.angel.update.service;
+
+import com.angel.update.model.RegionVersion;
+import com.angel.update.repository.CountryRepository;
+import com.angel.update.repository.RegionRepository;
+import com.angel.update.repository.RegionVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour VersioningService
+ */
+@ExtendWith(MockitoExtension.class)
+class VersioningServiceTest {
+    
+    @Mock
+    private RegionVersionRepository regionVersionRepository;
+    
+    @Mock
+    private RegionRepository regionRepository;
+    
+    @Mock
+    private CountryRepository countryRepository;
+    
+    @Mock
+    private ContentChangeLogService contentChangeLogService;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    private VersioningService versioningService;
+    
+    @BeforeEach
+    void setUp() {
+        versioningService = new VersioningService(regionVersionRepository, regionRepository, countryRepository,
+                contentChangeLogService, eventPublisher,
+                TransactionOperations.withoutTransaction());
+    }
+    
+    @Test
+    void getLatestVersion_ShouldServeCatalogSnapshotWithoutQueryingEachTime() {
+        // Given
+        when(regionVersionRepository.findLatestVersions())
+                .thenReturn(List.of(regionVersion("FR-IDF", "2024.01.01.10", 3)));
+        versioningService.refreshCatalog();
+        
+        // When
+        String first = versioningService.getLatestVersion("FR", "IDF");
+        String second = versioningService.getLatestVersion("FR", "IDF");
+        
+        // Then
+        assertEquals("2024.01.01.10", first);
+        assertEquals(first, second);
+        verify(regionVersionRepository, never()).findTopByRegionKeyOrderBySequenceDesc(any());
+        verify(regionVersionRepository, never()).save(any());
+    }
+    
+    @Test
+    void getLatestVersion_ForNewCountry_ShouldPersistFirstVersionOnce() {
+        // Given
+        when(regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc("FR")).thenReturn(Optional.empty());
+        when(countryRepository.existsByCodeAndActiveTrue("FR")).thenReturn(true);
+        when(regionVersionRepository.save(any(RegionVersion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        String first = versioningService.getLatestVersion("FR", null);
+        String second = versioningService.getLatestVersion("FR", null);
+        
+        // Then
+        assertEquals(first, second);
+        verify(regionVersionRepository, times(1)).save(any(RegionVersion.class));
+    }
+    
+    @Test
+    void getLatestVersion_ForRegionOutsideReferential_ShouldNotWriteCatalog() {
+        // Given
+        when(regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc("FR-XYZ")).thenReturn(Optional.empty());
+        when(regionRepository.existsByCountryCodeAndRegionCodeAndActiveTrue("FR", "XYZ")).thenReturn(false);
+        
+        // When
+        String first = versioningService.getLatestVersion("FR", "XYZ");
+        String second = versioningService.getLatestVersion("FR", "XYZ");
+        
+        // Then
+        assertEquals(VersioningService.UNKNOWN_REGION_VERSION, first);
+        assertEquals(first, second);
+        assertFalse(versioningService.isNewerVersion(first, "1.0.0"));
+        verify(regionRepository, times(1)).existsByCountryCodeAndRegionCodeAndActiveTrue("FR", "XYZ");
+        verify(regionVersionRepository, never()).save(any());
+        verifyNoInteractions(contentChangeLogService);
+    }
+    
+    @Test
+    void updateVersion_ShouldIncrementSequenceAndPublishEvent() {
+        // Given
+        when(regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc("FR-IDF"))
+                .thenReturn(Optional.of(regionVersion("FR-IDF", "2024.01.01.10", 3)));
+        when(regionVersionRepository.save(any(RegionVersion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        versioningService.updateVersion("FR", "IDF", "2024.01.01.11");
+        
+        // Then
+        verify(regionVersionRepository).save(argThat(version -> version.getSequence() == 4L));
+        verify(contentChangeLogService).publish("FR", "IDF", 4L);
+        verify(eventPublisher).publishEvent(any(VersionUpdatedEvent.class));
+        assertEquals("2024.01.01.11", versioningService.getLatestVersion("FR", "IDF"));
+        assertEquals(4L, versioningService.getLatestSequence("FR", "IDF"));
+    }
+    
+    @Test
+    void updateVersion_WhenPublishFails_ShouldNotServeNewVersion() {
+        // Given
+        when(regionVersionRepository.findLatestVersions())
+                .thenReturn(List.of(regionVersion("FR-IDF", "2024.01.01.10", 3)));
+        versioningService.refreshCatalog();
+        when(regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc("FR-IDF"))
+                .thenReturn(Optional.of(regionVersion("FR-IDF", "2024.01.01.10", 3)));
+        when(regionVersionRepository.save(any(RegionVersion.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(contentChangeLogService.publish("FR", "IDF", 4L)).thenThrow(new IllegalStateException("db down"));
+        
+        // When / Then
+        assertThrows(IllegalStateException.class,
+                () -> versioningService.updateVersion("FR", "IDF", "2024.01.01.11"));
+        assertEquals("2024.01.01.10", versioningService.getLatestVersion("FR", "IDF"));
+        verifyNoInteractions(eventPublisher);
+    }
+    
+    @Test
+    void updateVersion_WhenNotNewer_ShouldReject() {
+        // Given
+        when(regionVersionRepository.findTopByRegionKeyOrderBySequenceDesc("FR-IDF"))
+                .thenReturn(Optional.of(regionVersion("FR-IDF", "2024.01.01.10", 3)));
+        
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> versioningService.updateVersion("FR", "IDF", "2024.01.01.09"));
+        verify(regionVersionRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+    
+    @Test
+    void isNewerVersion_ShouldCompareNumericParts() {
+        assertTrue(versioningService.isNewerVersion("2024.01.01.11", "2024.01.01.10"));
+        assertTrue(versioningService.isNewerVersion("2024.01.10", "2024.01.9"));
+        assertTrue(versioningService.isNewerVersion("1.0.1", "1.0"));
+        assertFalse(versioningService.isNewerVersion("1.0", "1.0"));
+        assertFalse(versioningService.isNewerVersion("1.0", "1.0.1"));
+        assertFalse(versioningService.isNewerVersion("1.a", "1.0"));
+        assertFalse(versioningService.isNewerVersion(null, "1.0"));
+    }
+    
+    private RegionVersion regionVersion(String regionKey, String version, long sequence) {
+        RegionVersion regionVersion = new RegionVersion();
+        regionVersion.setRegionKey(regionKey);
+        regionVersion.setVersion(version);
+        regionVersion.setSequence(sequence);
+        regionVersion.setReleasedAt(LocalDateTime.now());
+        return regionVersion;
+    }
+}
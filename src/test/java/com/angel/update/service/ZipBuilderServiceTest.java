@@ -0,0 +1,409 @@
+package com.angel.update.service;
+
+import com.angel.update.model.ManifestEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ZipBuilderService
+ */
+class ZipBuilderServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path contentDir;
+    private Path packageDir;
+
+    private VersioningService versioningService;
+    private ContentChangeLogService contentChangeLogService;
+    private ZipBuilderService zipBuilderService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        contentDir = Files.createDirectories(tempDir.resolve("content"));
+        packageDir = tempDir.resolve("packages");
+
+        ContentBlobStore contentBlobStore = new ContentBlobStore();
+        ReflectionTestUtils.setField(contentBlobStore, "blobBasePath", tempDir.resolve("blobs").toString());
+        
+        versioningService = mock(VersioningService.class);
+        contentChangeLogService = mock(ContentChangeLogService.class);
+        zipBuilderService = newZipBuilderService(contentBlobStore);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        zipBuilderService.shutdown();
+    }
+
+    @Test
+    void buildUpdatePackage_ShouldContainManifestAndChangedFiles() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(3);
+
+        // When
+        String packagePath = zipBuilderService.buildUpdatePackage("FR", "IDF", "2024.01.01.10", "2024.01.01.11", changedFiles);
+
+        // Then
+        assertTrue(packagePath.endsWith("update-fr-idf-2024.01.01.10-2024.01.01.11.zip"));
+        try (ZipFile zip = new ZipFile(packagePath)) {
+            assertEquals(PackageManifest.ENTRY_NAME, zip.entries().nextElement().getName());
+            assertNotNull(zip.getEntry("MANIFEST.txt"));
+            for (String file : changedFiles) {
+                ZipEntry entry = zip.getEntry(file);
+                assertNotNull(entry, "Missing entry " + file);
+                try (InputStream is = zip.getInputStream(entry)) {
+                    assertArrayEquals(Files.readAllBytes(contentDir.resolve(file)), is.readAllBytes());
+                }
+            }
+        }
+        
+        List<ManifestEntry> manifest = zipBuilderService.readManifest(packagePath);
+        assertEquals(changedFiles, manifest.stream().map(ManifestEntry::getPath).toList());
+        for (ManifestEntry entry : manifest) {
+            byte[] content = Files.readAllBytes(contentDir.resolve(entry.getPath()));
+            assertEquals(ManifestEntry.Type.FILE, entry.getType());
+            assertEquals("news", entry.getContentType());
+            assertEquals(Long.valueOf(content.length), entry.getSize());
+            assertEquals(sha256(content), entry.getChecksum());
+        }
+    }
+
+    @Test
+    void buildUpdatePackage_ShouldCompressSharedFilesOnlyOnce() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(4);
+        
+        // When
+        String first = zipBuilderService.buildUpdatePackage("FR", "IDF", "1.0.0", "1.1.0", changedFiles);
+        String second = zipBuilderService.buildUpdatePackage("FR", "PACA", "1.0.0", "1.1.0", changedFiles);
+        
+        // Then
+        assertNotEquals(first, second);
+        try (Stream<Path> blobs = Files.walk(tempDir.resolve("blobs"))) {
+            assertEquals(changedFiles.size(), blobs.filter(path -> path.toString().endsWith(".blob")).count());
+        }
+        try (ZipFile zip = new ZipFile(second)) {
+            assertEquals(changedFiles.size() + 2, zip.size());
+        }
+    }
+    
+    @Test
+    void buildUpdatePackage_WhenCalledConcurrently_ShouldBuildOnceAndLeaveNoTempFile() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Callable<String>> calls = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                calls.add(() -> zipBuilderService.buildUpdatePackage("FR", null, "1.0.0", "1.1.0", changedFiles));
+            }
+
+            // When
+            Set<String> paths = new HashSet<>();
+            for (Future<String> future : executor.invokeAll(calls)) {
+                paths.add(future.get());
+            }
+
+            // Then
+            assertEquals(1, paths.size());
+            try (ZipFile zip = new ZipFile(paths.iterator().next())) {
+                assertEquals(changedFiles.size() + 2, zip.size());
+            }
+            try (Stream<Path> files = Files.list(packageDir)) {
+                assertEquals(List.of(".meta", ".zip"), files
+                        .map(path -> path.getFileName().toString())
+                        .map(name -> name.substring(name.lastIndexOf('.')))
+                        .sorted()
+                        .toList(), "Temporary files must not be left behind");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void buildUpdatePackage_WithDeletedFiles_ShouldListTombstonesInManifest() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(2);
+        List<String> deletedFiles = List.of("fr/national/news/archived-1.txt", "fr/national/weather/old.txt");
+        
+        // When
+        String packagePath = zipBuilderService.buildUpdatePackage("FR", null, "1.0.0", "1.1.0",
+                changedFiles, deletedFiles);
+        
+        // Then
+        try (ZipFile zip = new ZipFile(packagePath)) {
+            assertEquals(changedFiles.size() + 2, zip.size());
+            deletedFiles.forEach(file -> assertNull(zip.getEntry(file)));
+        }
+        List<ManifestEntry> tombstones = zipBuilderService.readManifest(packagePath).stream()
+                .filter(entry -> entry.getType() == ManifestEntry.Type.DELETE)
+                .toList();
+        assertEquals(deletedFiles, tombstones.stream().map(ManifestEntry::getPath).toList());
+        assertEquals("weather", tombstones.get(1).getContentType());
+    }
+    
+    @Test
+    void buildUpdatePackage_WithDeltaEnabled_ShouldShipPatchAgainstClientRevision() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(zipBuilderService, "deltaEnabled", true);
+        String relativePath = "fr/national/weather/forecast.txt";
+        Path file = Files.createDirectories(contentDir.resolve("fr/national/weather")).resolve("forecast.txt");
+        
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            content.append("Prévision ").append(i).append(" : ").append(Long.toHexString(random.nextLong())).append('\n');
+        }
+        byte[] baseContent = content.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(file, baseContent);
+        setLastModified(file, LocalDateTime.of(2024, 1, 1, 9, 0));
+        zipBuilderService.buildUpdatePackage("FR", null, "2024.01.01.08", "2024.01.01.10", List.of(relativePath));
+        
+        byte[] newContent = content.toString().replace("Prévision 200 ", "Prévision 200 révisée ")
+                .getBytes(StandardCharsets.UTF_8);
+        Files.write(file, newContent);
+        setLastModified(file, LocalDateTime.of(2024, 1, 1, 10, 30));
+        when(versioningService.getSequence("FR", null, "2024.01.01.10")).thenReturn(3L);
+        when(contentChangeLogService.getChecksumsAt("FR", null, List.of(relativePath), 3L))
+                .thenReturn(Map.of(relativePath, sha256(baseContent)));
+        
+        // When
+        String packagePath = zipBuilderService.buildUpdatePackage("FR", null, "2024.01.01.10", "2024.01.01.11",
+                List.of(relativePath));
+        
+        // Then
+        try (ZipFile zip = new ZipFile(packagePath)) {
+            assertNull(zip.getEntry(relativePath));
+            ZipEntry patchEntry = zip.getEntry(relativePath + ".patch");
+            assertNotNull(patchEntry);
+            assertTrue(patchEntry.getCompressedSize() * 10 < newContent.length);
+            
+            try (InputStream is = zip.getInputStream(patchEntry)) {
+                assertArrayEquals(newContent, BinaryDelta.apply(baseContent, is.readAllBytes()));
+            }
+            try (InputStream is = zip.getInputStream(zip.getEntry("MANIFEST.txt"))) {
+                String manifest = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(manifest.contains("# Patches:\n" + relativePath + ".patch " + sha256(baseContent)
+                        + " " + sha256(newContent)));
+            }
+        }
+        
+        ManifestEntry patch = zipBuilderService.readManifest(packagePath).get(0);
+        assertEquals(ManifestEntry.Type.PATCH, patch.getType());
+        assertEquals(sha256(baseContent), patch.getBaseChecksum());
+        assertEquals(sha256(newContent), patch.getChecksum());
+    }
+    
+    @Test
+    void buildUpdatePackage_WithPublishedChecksum_ShouldReuseStoredBlobAfterRestart() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(2);
+        ContentBlobStore previousRun = new ContentBlobStore();
+        ReflectionTestUtils.setField(previousRun, "blobBasePath", tempDir.resolve("blobs").toString());
+        String checksum = previousRun.getOrCreate(contentDir.resolve(changedFiles.get(1))).getChecksum();
+        
+        ContentBlobStore contentBlobStore = spy(new ContentBlobStore());
+        ReflectionTestUtils.setField(contentBlobStore, "blobBasePath", tempDir.resolve("blobs").toString());
+        zipBuilderService = newZipBuilderService(contentBlobStore);
+        when(versioningService.getSequence("FR", null, "1.1.0")).thenReturn(5L);
+        when(contentChangeLogService.getChecksumsAt("FR", null, changedFiles, 5L))
+                .thenReturn(Map.of(changedFiles.get(1), checksum));
+        
+        // When
+        String packagePath = zipBuilderService.buildUpdatePackage("FR", null, "1.0.0", "1.1.0", changedFiles);
+        
+        // Then
+        verify(contentBlobStore, never()).getOrCreate(contentDir.resolve(changedFiles.get(1)));
+        verify(contentBlobStore).getOrCreate(contentDir.resolve(changedFiles.get(0)));
+        try (ZipFile zip = new ZipFile(packagePath)) {
+            assertNotNull(zip.getEntry(changedFiles.get(1)));
+        }
+    }
+    
+    @Test
+    void buildUpdatePackage_WithDeltaEnabledAndUnknownClientVersion_ShouldShipFullFile() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(zipBuilderService, "deltaEnabled", true);
+        List<String> changedFiles = writeContentFiles(1);
+        when(versioningService.getSequence("FR", null, "0.9.0")).thenReturn(-1L);
+        
+        // When
+        String packagePath = zipBuilderService.buildUpdatePackage("FR", null, "0.9.0", "1.1.0", changedFiles);
+        
+        // Then
+        try (ZipFile zip = new ZipFile(packagePath)) {
+            assertNotNull(zip.getEntry(changedFiles.get(0)));
+            assertNull(zip.getEntry(changedFiles.get(0) + ".patch"));
+        }
+        verifyNoInteractions(contentChangeLogService);
+    }
+    
+    @Test
+    void buildUpdatePackage_WhenLargeFileCompressesLast_ShouldKeepChangedFilesOrder() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(zipBuilderService, "compressionThreads", 4);
+        List<String> changedFiles = writeContentFiles(12);
+        Files.writeString(contentDir.resolve(changedFiles.get(0)), randomText(4 * 1024 * 1024));
+        
+        // When
+        String packagePath = zipBuilderService.buildUpdatePackage("FR", null, "1.0.0", "1.1.0", changedFiles);
+        
+        // Then
+        try (ZipFile zip = new ZipFile(packagePath)) {
+            List<String> names = zip.stream().map(ZipEntry::getName).toList();
+            assertEquals(changedFiles, names.subList(2, names.size()));
+        }
+        assertEquals(changedFiles, zipBuilderService.readManifest(packagePath).stream()
+                .map(ManifestEntry::getPath).toList());
+    }
+    
+    @Test
+    void buildUpdatePackage_WhenBlobCannotBeRead_ShouldPropagateIOExceptionAndLeaveNoPackage() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(3);
+        ContentBlobStore contentBlobStore = spy(new ContentBlobStore());
+        ReflectionTestUtils.setField(contentBlobStore, "blobBasePath", tempDir.resolve("blobs").toString());
+        doThrow(new IOException("disk error")).when(contentBlobStore).getOrCreate(contentDir.resolve(changedFiles.get(1)));
+        zipBuilderService = newZipBuilderService(contentBlobStore);
+        
+        // When
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> zipBuilderService.buildUpdatePackage("FR", null, "1.0.0", "1.1.0", changedFiles));
+        
+        // Then
+        assertInstanceOf(IOException.class, error.getCause());
+        assertEquals("disk error", error.getCause().getMessage());
+        try (Stream<Path> packages = Files.list(packageDir)) {
+            assertEquals(0, packages.count(), "No package nor temporary file must be left behind");
+        }
+    }
+    
+    @Test
+    void buildUpdatePackage_WhenOneFileFails_ShouldCancelPendingCompressions() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(20);
+        ContentBlobStore contentBlobStore = spy(new ContentBlobStore());
+        ReflectionTestUtils.setField(contentBlobStore, "blobBasePath", tempDir.resolve("blobs").toString());
+        doThrow(new IOException("disk error")).when(contentBlobStore).getOrCreate(contentDir.resolve(changedFiles.get(0)));
+        doAnswer(invocation -> {
+            Thread.sleep(50);
+            return invocation.callRealMethod();
+        }).when(contentBlobStore).getOrCreate(argThat(path -> !path.endsWith(changedFiles.get(0))));
+        zipBuilderService = newZipBuilderService(contentBlobStore);
+        ReflectionTestUtils.setField(zipBuilderService, "compressionThreads", 1);
+        
+        // When
+        assertThrows(RuntimeException.class,
+                () -> zipBuilderService.buildUpdatePackage("FR", null, "1.0.0", "1.1.0", changedFiles));
+        zipBuilderService.shutdown();
+        
+        // Then
+        verify(contentBlobStore, atMost(changedFiles.size() / 2)).getOrCreate(any(Path.class));
+    }
+    
+    @Test
+    void calculateChecksum_ShouldMatchDigestOfPackageFile() throws Exception {
+        // Given
+        List<String> changedFiles = writeContentFiles(5);
+        String packagePath = zipBuilderService.buildUpdatePackage("FR", null, "1.0.0", "1.1.0", changedFiles);
+        
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        String expected = HexFormat.of().formatHex(md.digest(Files.readAllBytes(Path.of(packagePath))));
+        
+        // When
+        String checksum = zipBuilderService.calculateChecksum(packagePath);
+        long size = zipBuilderService.getPackageSize(packagePath);
+        
+        // Then
+        assertEquals(expected, checksum);
+        assertEquals(Files.size(Path.of(packagePath)), size);
+    }
+    
+    @Test
+    void calculateChecksum_WithoutMetadata_ShouldComputeAndPersistIt() throws Exception {
+        // Given
+        Files.createDirectories(packageDir);
+        Path legacyPackage = Files.write(packageDir.resolve("legacy.zip"), "legacy".getBytes());
+        
+        // When
+        String checksum = zipBuilderService.calculateChecksum(legacyPackage.toString());
+        
+        // Then
+        assertEquals(64, checksum.length());
+        assertTrue(Files.exists(packageDir.resolve("legacy.zip.meta")));
+    }
+    
+    private ZipBuilderService newZipBuilderService(ContentBlobStore contentBlobStore) {
+        ZipBuilderService service = new ZipBuilderService(contentBlobStore, versioningService, contentChangeLogService);
+        ReflectionTestUtils.setField(service, "packageBasePath", packageDir.toString());
+        ReflectionTestUtils.setField(service, "contentBasePath", contentDir.toString());
+        return service;
+    }
+    
+    private String randomText(int length) {
+        Random random = new Random(11);
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append((char) ('a' + random.nextInt(26)));
+            if (random.nextInt(8) == 0) {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+    
+    private void setLastModified(Path file, LocalDateTime time) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(time.atZone(ZoneId.systemDefault()).toInstant()));
+    }
+    
+    private String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+    
+    private List<String> writeContentFiles(int count) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String relativePath = "fr/national/news/item-" + i + ".txt";
+            Path file = contentDir.resolve(relativePath);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, ("Actualité numéro " + i + "\n").repeat(i % 2 == 0 ? 1 : 50));
+            files.add(relativePath);
+        }
+        return files;
+    }
+}